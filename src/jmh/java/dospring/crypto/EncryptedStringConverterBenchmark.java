@@ -0,0 +1,91 @@
+package dospring.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * AES-256-GCM column encryption as done on every load/save of {@code User.email} and the order
+ * payment fields: the pre-optimisation converter (Cipher lookup, shared SecureRandom, ByteBuffer and
+ * Base64 copies per value) vs {@link EncryptedStringConverter} on {@link AesGcm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EncryptedStringConverterBenchmark {
+
+  private final EncryptedStringConverter converter = new EncryptedStringConverter();
+  private final String plain = "jane.doe+bookings@example.com";
+  private final SecureRandom rng = new SecureRandom();
+  private SecretKey key;
+  private String stored;
+
+  @Setup
+  public void setUp() {
+    byte[] raw = new byte[32];
+    for (int i = 0; i < raw.length; i++) {
+      raw[i] = (byte) i;
+    }
+    key = new SecretKeySpec(raw, "AES");
+    EncryptedStringConverter.enableEncryption(new KeyRing(Map.of(1, key), 1));
+    stored = converter.convertToDatabaseColumn(plain);
+  }
+
+  @TearDown
+  public void tearDown() {
+    EncryptedStringConverter.disableEncryption();
+  }
+
+  @Benchmark
+  public String baselineEncrypt() throws Exception {
+    byte[] iv = new byte[12];
+    rng.nextBytes(iv);
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+    byte[] ct = cipher.doFinal(plain.getBytes(StandardCharsets.UTF_8));
+    ByteBuffer bb = ByteBuffer.allocate(iv.length + ct.length);
+    bb.put(iv);
+    bb.put(ct);
+    return "enc:" + Base64.getEncoder().encodeToString(bb.array());
+  }
+
+  @Benchmark
+  public String baselineDecrypt() throws Exception {
+    byte[] raw = Base64.getDecoder().decode(stored.substring(4));
+    ByteBuffer bb = ByteBuffer.wrap(raw);
+    byte[] iv = new byte[12];
+    bb.get(iv);
+    byte[] ct = new byte[bb.remaining()];
+    bb.get(ct);
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, iv));
+    return new String(cipher.doFinal(ct), StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String encrypt() {
+    return converter.convertToDatabaseColumn(plain);
+  }
+
+  @Benchmark
+  public String decrypt() {
+    return converter.convertToEntityAttribute(stored);
+  }
+}
@@ -0,0 +1,42 @@
+package dospring.model;
+
+import jakarta.xml.bind.DatatypeConverter;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Razorpay webhook HMAC: the pre-optimisation {@link Signature#calculateRFC2104HMAC} (new Mac per
+ * call, hex via DatatypeConverter + toLowerCase) vs the per-thread Mac.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SignatureBenchmark {
+
+  private final String secret = "rzp_test_webhook_secret_0123456789";
+  private final String data = "order_NX3kPq8hJ2mV9a|pay_NX3lR7tY5uW1bc";
+
+  @Benchmark
+  public String baseline() throws Exception {
+    SecretKeySpec signingKey = new SecretKeySpec(secret.getBytes(), "HmacSHA256");
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(signingKey);
+    byte[] rawHmac = mac.doFinal(data.getBytes());
+    return DatatypeConverter.printHexBinary(rawHmac).toLowerCase();
+  }
+
+  @Benchmark
+  public String optimized() throws Exception {
+    return Signature.calculateRFC2104HMAC(data, secret);
+  }
+}
@@ -0,0 +1,57 @@
+package dospring.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Access token issue / verification through {@link JwtUtils}, with and without the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtBenchmark {
+
+  private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+  private JwtUtils cached;
+  private JwtUtils uncached;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    cached = new JwtUtils(SECRET, "dospring", 900, true, 10_000, 30);
+    uncached = new JwtUtils(SECRET, "dospring", 900, false, 0, 0);
+    token = cached.generateAccessToken("alice", List.of("ROLE_USER", "ROLE_ADMIN"));
+  }
+
+  @Benchmark
+  public String generateAccessToken() {
+    return uncached.generateAccessToken("alice", List.of("ROLE_USER", "ROLE_ADMIN"));
+  }
+
+  @Benchmark
+  public Claims parseClaims() {
+    return uncached.parseClaims(token);
+  }
+
+  @Benchmark
+  public Optional<VerifiedToken> verifyAccessTokenUncached() {
+    return uncached.verifyAccessToken(token);
+  }
+
+  @Benchmark
+  public Optional<VerifiedToken> verifyAccessTokenCached() {
+    return cached.verifyAccessToken(token);
+  }
+}
@@ -0,0 +1,70 @@
+package dospring.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Password history check latency (p50/p99 via sample time) for a new password that matches none of
+ * the stored hashes, i.e. every comparison runs: serial loop vs {@link OffloadingPasswordEncoder#matchesAny}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordHistoryBenchmark {
+
+  @Param({"5", "10", "24"})
+  public int depth;
+
+  private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+  private final String candidate = "Brand#New7Password";
+
+  private PasswordHashingExecutor executor;
+  private OffloadingPasswordEncoder offloading;
+  private List<String> history;
+
+  @Setup
+  public void setUp() {
+    executor = new PasswordHashingExecutor(
+        new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class), 0, 64, 60_000, 0);
+    offloading = new OffloadingPasswordEncoder(bcrypt, executor);
+    history = new ArrayList<>(depth);
+    for (int i = 0; i < depth; i++) {
+      history.add(bcrypt.encode("Old#Password" + i));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.destroy();
+  }
+
+  @Benchmark
+  public boolean serial() {
+    for (String hash : history) {
+      if (bcrypt.matches(candidate, hash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Benchmark
+  public boolean parallel() {
+    return offloading.matchesAny(candidate, history);
+  }
+}
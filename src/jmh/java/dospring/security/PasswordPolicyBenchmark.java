@@ -0,0 +1,59 @@
+package dospring.security;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Password policy on a valid password (every rule evaluated): the pre-optimisation
+ * {@code AuthService.validatePassword} vs {@link PasswordPolicy}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordPolicyBenchmark {
+
+  private static final int MIN_LENGTH = 12;
+
+  private final String password = "Correct#Horse7Battery";
+  private final PasswordPolicy policy = new PasswordPolicy(MIN_LENGTH);
+
+  @Benchmark
+  public String baseline() {
+    validateBaseline(password);
+    return password;
+  }
+
+  @Benchmark
+  public String optimized() {
+    policy.validate(password);
+    return password;
+  }
+
+  private static void validateBaseline(String password) {
+    if (password == null || password.length() < MIN_LENGTH) {
+      throw new IllegalArgumentException("Password must be at least " + MIN_LENGTH + " characters");
+    }
+    if (password.contains(" ")) {
+      throw new IllegalArgumentException("Password must not contain spaces");
+    }
+    boolean upper = password.chars().anyMatch(Character::isUpperCase);
+    boolean lower = password.chars().anyMatch(Character::isLowerCase);
+    boolean digit = password.chars().anyMatch(Character::isDigit);
+    boolean special = password.chars().anyMatch(ch -> !Character.isLetterOrDigit(ch));
+    if (!(upper && lower && digit && special)) {
+      throw new IllegalArgumentException("Password must contain upper, lower, digit and special character");
+    }
+    List<String> common = List.of("password", "12345678", "qwerty", "admin", "letmein");
+    String low = password.toLowerCase();
+    if (common.stream().anyMatch(low::contains)) {
+      throw new IllegalArgumentException("Password too common");
+    }
+  }
+}
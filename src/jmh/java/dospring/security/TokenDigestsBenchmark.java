@@ -0,0 +1,42 @@
+package dospring.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * SHA-256 hex of a refresh token: the pre-optimisation {@code AuthService.sha256Hex} vs
+ * {@link TokenDigests}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TokenDigestsBenchmark {
+
+  /** Same shape as AuthService.randomToken(): 64 random bytes, base64url, 86 chars. */
+  private final String token =
+      "q3J5Zk9fV2xPa0lRbW5hV3dQeE5ZbGRmS0pQcXJ0eXVpb3BBU0RGR0hKS0xaWENWQk5NcXdlcnR5dWlvcGFzZGZn";
+
+  @Benchmark
+  public String baseline() throws Exception {
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    byte[] digest = md.digest(token.getBytes(StandardCharsets.UTF_8));
+    StringBuilder sb = new StringBuilder();
+    for (byte b : digest) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+
+  @Benchmark
+  public String optimized() {
+    return TokenDigests.sha256Hex(token);
+  }
+}
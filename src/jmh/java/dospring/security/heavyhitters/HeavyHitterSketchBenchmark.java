@@ -0,0 +1,49 @@
+package dospring.security.heavyhitters;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of recording one event on the request path, with 1M distinct keys (an IP spray) and one key
+ * in 16 being the same heavy hitter. Baseline: an exact per-key counter map (what "just count them"
+ * would do; memory grows with every new key). Optimized: {@link HeavyHitterSketch} with the
+ * {@code app.heavy-hitters} defaults.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeavyHitterSketchBenchmark {
+
+  private static final int KEYS = 1 << 20;
+
+  private final String[] keys = new String[KEYS];
+  private final ConcurrentHashMap<String, LongAdder> exact = new ConcurrentHashMap<>();
+  private final HeavyHitterSketch sketch =
+      new HeavyHitterSketch(20, 4, 2048, Duration.ofMinutes(5), 5, System.nanoTime());
+  private int next;
+
+  public HeavyHitterSketchBenchmark() {
+    for (int i = 0; i < KEYS; i++) {
+      keys[i] = (i & 15) == 0 ? "203.0.113.7" : "10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+    }
+  }
+
+  @Benchmark
+  public void baseline() {
+    exact.computeIfAbsent(keys[next++ & (KEYS - 1)], k -> new LongAdder()).increment();
+  }
+
+  @Benchmark
+  public void optimized() {
+    sketch.add(keys[next++ & (KEYS - 1)], System.nanoTime());
+  }
+}
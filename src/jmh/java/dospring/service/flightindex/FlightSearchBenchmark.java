@@ -0,0 +1,169 @@
+package dospring.service.flightindex;
+
+import dospring.model.Auditable;
+import dospring.model.Flight;
+import dospring.payload.response.FlightResponse;
+import dospring.repository.FlightRepository;
+import dospring.service.FlightSearch;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * One page (20 rows) of a 7-day flight search over 40 routes x 365 days x 8 flights (116,800 flights).
+ *
+ * <p>Baseline: the {@link FlightRepository} JPQL through a Hibernate session on an in-memory H2
+ * database, with the V9 route index: the JPA query path minus the network round trip and the Spring
+ * Data proxy, so a lower bound of what PostgreSQL would cost. Optimized: {@link FlightIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlightSearchBenchmark {
+
+  private static final String[] CITIES = {"BOM", "DEL", "BLR", "MAA", "CCU", "HYD", "GOI"};
+  private static final LocalDate FIRST = LocalDate.of(2026, 1, 1);
+  private static final int DAYS = 365;
+  private static final int PER_DAY = 8;
+  private static final int PAGE = 20;
+
+  @Param({"DEPARTURE", "PRICE"})
+  public FlightSearch.Sort sort;
+
+  private Connection keepAlive;
+  private SessionFactory sessionFactory;
+  private FlightIndex index;
+  private FlightSearch[] searches;
+  private int next;
+
+  @Setup
+  public void setUp() throws Exception {
+    String url = "jdbc:h2:mem:flights;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+    keepAlive = DriverManager.getConnection(url);
+    try (Statement ddl = keepAlive.createStatement()) {
+      ddl.execute("""
+          CREATE TABLE flights (
+            id BIGINT PRIMARY KEY, departure_location VARCHAR(120), arrival_location VARCHAR(120),
+            departure_at TIMESTAMP WITH TIME ZONE, arrival_at TIMESTAMP WITH TIME ZONE,
+            total_seats INT, available_seats INT, price DOUBLE PRECISION,
+            created_at TIMESTAMP WITH TIME ZONE, updated_at TIMESTAMP WITH TIME ZONE,
+            created_by VARCHAR(100), updated_by VARCHAR(100))
+          """);
+    }
+
+    Random random = new Random(1);
+    List<FlightIndex.Row> rows = new ArrayList<>();
+    List<String[]> routes = new ArrayList<>();
+    for (String from : CITIES) {
+      for (String to : CITIES) {
+        if (!from.equals(to) && routes.size() < 40) {
+          routes.add(new String[] {from, to});
+        }
+      }
+    }
+    try (PreparedStatement insert = keepAlive.prepareStatement(
+        "INSERT INTO flights (id, departure_location, arrival_location, departure_at, arrival_at, total_seats, "
+            + "available_seats, price) VALUES (?, ?, ?, ?, ?, 180, ?, ?)")) {
+      long id = 0;
+      for (String[] route : routes) {
+        for (int day = 0; day < DAYS; day++) {
+          for (int f = 0; f < PER_DAY; f++) {
+            Instant departure = FIRST.plusDays(day).atStartOfDay(ZoneOffset.UTC).toInstant()
+                .plusSeconds(5 * 3600 + f * 7200 + random.nextInt(60) * 60L);
+            Instant arrival = departure.plusSeconds(3600 + random.nextInt(180) * 60L);
+            int seats = random.nextInt(10) == 0 ? 0 : random.nextInt(180);
+            double price = 2_500 + random.nextInt(400) * 25.0;
+            FlightIndex.Row row = new FlightIndex.Row(++id, route[0], route[1], departure, arrival, seats, price);
+            rows.add(row);
+            insert.setLong(1, id);
+            insert.setString(2, route[0]);
+            insert.setString(3, route[1]);
+            insert.setTimestamp(4, Timestamp.from(departure));
+            insert.setTimestamp(5, Timestamp.from(arrival));
+            insert.setInt(6, seats);
+            insert.setDouble(7, price);
+            insert.addBatch();
+          }
+        }
+        insert.executeBatch();
+      }
+    }
+    try (Statement ddl = keepAlive.createStatement()) {
+      ddl.execute("CREATE INDEX idx_flights_route_departure ON flights(departure_location, arrival_location, departure_at, id)");
+      ddl.execute("ANALYZE");
+    }
+
+    sessionFactory = new MetadataSources(new StandardServiceRegistryBuilder()
+        .applySetting("hibernate.connection.url", url)
+        .applySetting("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+        .applySetting("jakarta.persistence.validation.mode", "none")
+        .build())
+        .addAnnotatedClass(Auditable.class)
+        .addAnnotatedClass(Flight.class)
+        .buildMetadata()
+        .buildSessionFactory();
+
+    index = FlightIndex.build(rows, FIRST, FIRST.plusDays(DAYS - 1));
+
+    searches = new FlightSearch[1024];
+    for (int i = 0; i < searches.length; i++) {
+      String[] route = routes.get(random.nextInt(routes.size()));
+      LocalDate from = FIRST.plusDays(random.nextInt(DAYS - 7));
+      searches[i] = new FlightSearch(route[0], route[1], from, from.plusDays(6), 1 + random.nextInt(4), sort);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    sessionFactory.close();
+    keepAlive.close();
+  }
+
+  @Benchmark
+  public List<FlightResponse> baseline() {
+    FlightSearch search = searches[next++ & (searches.length - 1)];
+    String order = sort == FlightSearch.Sort.PRICE ? "and f.price is not null order by f.price, f.id" : "order by f.departureAt, f.id";
+    try (Session session = sessionFactory.openSession()) {
+      return session.createQuery(FlightRepository.SEARCH_SELECT + order, FlightResponse.class)
+          .setParameter("from", search.from())
+          .setParameter("to", search.to())
+          .setParameter("start", search.departStart())
+          .setParameter("end", search.departEnd())
+          .setParameter("seats", search.minSeats())
+          .setMaxResults(PAGE + 1)
+          .getResultList();
+    }
+  }
+
+  @Benchmark
+  public List<FlightResponse> optimized() {
+    FlightSearch search = searches[next++ & (searches.length - 1)];
+    return sort == FlightSearch.Sort.PRICE
+        ? index.searchByPrice(search, null, 0L, PAGE + 1)
+        : index.searchByDeparture(search, null, 0L, PAGE + 1);
+  }
+}
@@ -1,5 +1,7 @@
 package dospring;
 
+import dospring.security.PasswordHashingOverloadedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -25,4 +27,11 @@ public class GlobalExceptionHandler {
   public ResponseEntity<?> handleUnauthorized(BadCredentialsException ex) {
     return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", ex.getMessage()));
   }
+
+  @ExceptionHandler(PasswordHashingOverloadedException.class)
+  public ResponseEntity<?> handleOverloaded(PasswordHashingOverloadedException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(Map.of("message", ex.getMessage()));
+  }
 }
@@ -0,0 +1,44 @@
+package dospring.config;
+
+import dospring.security.LocalLoginAttemptStore;
+import dospring.security.LoginAttemptStore;
+import dospring.security.RedisLoginAttemptStore;
+import io.lettuce.core.RedisClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Failed-login counters: in Redis when {@code app.redis.enabled}, otherwise in memory.
+ * Counters expire after the lock window ({@code app.auth.lock-minutes}). The Redis store gets its own
+ * connection with a short command timeout, so a slow Redis cannot hold up logins.
+ */
+@Slf4j
+@Configuration
+public class LoginAttemptStoreConfig {
+
+  @Bean
+  public LoginAttemptStore loginAttemptStore(
+      ObjectProvider<RedisClient> redisClient,
+      @Value("${app.auth.lock-minutes}") int lockMinutes,
+      @Value("${app.auth.login-attempts.local-max-size:100000}") long localMaxSize,
+      @Value("${app.auth.login-attempts.redis.timeout-ms:50}") long timeoutMillis,
+      @Value("${app.auth.login-attempts.redis.failure-threshold:5}") int failureThreshold,
+      @Value("${app.auth.login-attempts.redis.open-ms:10000}") long openMillis) {
+
+    Duration window = Duration.ofMinutes(lockMinutes);
+    LoginAttemptStore local = new LocalLoginAttemptStore(window, localMaxSize);
+    RedisClient client = redisClient.getIfAvailable();
+    if (client == null) {
+      return local;
+    }
+    log.info("Failed-login counters: Redis");
+    return new RedisLoginAttemptStore(client.connect(), window, local, localMaxSize,
+        Duration.ofMillis(timeoutMillis), failureThreshold, Duration.ofMillis(openMillis));
+  }
+}
@@ -0,0 +1,52 @@
+package dospring.config;
+
+import dospring.security.heavyhitters.HeavyHitterProperties;
+import dospring.security.ratelimit.ConcurrencyLimitProperties;
+import dospring.security.ratelimit.LocalRateLimitBackend;
+import dospring.security.ratelimit.RateLimitBackend;
+import dospring.security.ratelimit.RateLimitProperties;
+import dospring.security.ratelimit.RedisRateLimitBackend;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Rate-limit buckets: in Redis when {@code app.redis.enabled}, spent locally in leased batches and
+ * falling back to node-local limits while Redis is slow or down; otherwise in memory.
+ *
+ * <p>The state held in this JVM is bounded by {@code app.ratelimit.max-entries}: per limit for the
+ * sliding-window tables, and in leases for Redis.
+ *
+ * <p>Also binds {@code app.concurrency} for the adaptive concurrency limits and {@code app.heavy-hitters}
+ * for the top-K tracking of rejected and failed auth traffic.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties({RateLimitProperties.class, ConcurrencyLimitProperties.class,
+    HeavyHitterProperties.class})
+public class RateLimitConfig {
+
+  @Bean
+  public RateLimitBackend rateLimitBackend(RateLimitProperties properties,
+                                           ObjectProvider<ProxyManager<byte[]>> proxyManager,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+
+    RateLimitBackend local = new LocalRateLimitBackend(properties.getMaxEntries());
+    ProxyManager<byte[]> redis = proxyManager.getIfAvailable();
+    if (redis == null) {
+      log.info("Rate limiting: in-memory buckets (per instance)");
+      return local;
+    }
+    RateLimitProperties.Redis settings = properties.getRedis();
+    log.info("Rate limiting: Redis buckets, leases of up to {} tokens, {} ms deadline",
+        settings.getLeaseTokens(), settings.getTimeout().toMillis());
+    return new RedisRateLimitBackend(redis, local, settings, properties.getMaxEntries(),
+        meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+  }
+}
@@ -1,33 +1,37 @@
 package dospring.config;
 
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.distributed.proxy.ProxyManager;
 import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
 import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
 import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.api.StatefulRedisConnection;
 import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * Redis client ({@code app.redis.*}) shared by the rate limiter, failed-login counters and the refresh
+ * token hot tier. Without {@code app.redis.enabled=true} none of these beans exist and every consumer
+ * falls back to its in-memory implementation.
+ */
 @Slf4j
 @Configuration
+@ConditionalOnProperty(name = "app.redis.enabled", havingValue = "true")
 public class RedisRateLimitConfig {
 
-  @Value("${app.redis.enabled:false}")
-  private boolean redisEnabled;
-
-  @Value("${spring.data.redis.url:redis://localhost:6379}")
-  private String redisUrl;
-
   @Bean(destroyMethod = "shutdown")
-  public RedisClient redisClient() {
-    if (!redisEnabled) {
-      log.info("Redis disabled - fallback to in-memory rate limiting");
-      return null;
-    }
-    log.info("Initializing Redis client at {}", redisUrl);
-    return RedisClient.create(redisUrl);
+  public RedisClient redisClient(@Value("${app.redis.host:localhost}") String host,
+                                 @Value("${app.redis.port:6379}") int port,
+                                 @Value("${app.redis.ssl:false}") boolean ssl) {
+    log.info("Initializing Redis client at {}:{}", host, port);
+    return RedisClient.create(RedisURI.builder().withHost(host).withPort(port).withSsl(ssl).build());
   }
 
   /**
@@ -35,15 +39,16 @@ public class RedisRateLimitConfig {
    */
   @Bean(destroyMethod = "close")
   public StatefulRedisConnection<byte[], byte[]> redisConnectionBytes(RedisClient redisClient) {
-    if (redisClient == null) return null;
     return redisClient.connect(new ByteArrayCodec());
   }
 
+  /**
+   * Bucket keys expire once their bucket would be full again, so idle clients do not accumulate in Redis.
+   */
   @Bean
   public ProxyManager<byte[]> proxyManager(StatefulRedisConnection<byte[], byte[]> connection) {
-    if (connection == null) return null;
-
-    // ✅ Cette surcharge correspond exactement à Bucket4j
-    return LettuceBasedProxyManager.builderFor(connection).build();
+    return LettuceBasedProxyManager.builderFor(connection)
+        .withExpirationStrategy(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(Duration.ofSeconds(10)))
+        .build();
   }
-}
\ No newline at end of file
+}
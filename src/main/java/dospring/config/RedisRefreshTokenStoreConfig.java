@@ -0,0 +1,46 @@
+package dospring.config;
+
+import dospring.service.impl.JpaRefreshTokenStore;
+import dospring.service.impl.RedisRefreshTokenStore;
+import io.lettuce.core.RedisClient;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Switches refresh tokens to the Redis hot tier ({@code app.auth.refresh-store.type=redis}).
+ *
+ * <p>The JPA store stays registered as the durable tier; this bean is {@code @Primary} so
+ * {@code AuthService} picks it up.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.auth.refresh-store.type", havingValue = "redis")
+public class RedisRefreshTokenStoreConfig {
+
+  @Bean(destroyMethod = "close")
+  @Primary
+  public RedisRefreshTokenStore redisRefreshTokenStore(
+      ObjectProvider<RedisClient> redisClient,
+      JpaRefreshTokenStore durable,
+      TransactionTemplate transactionTemplate,
+      @Value("${app.jwt.refresh-ttl-seconds}") long refreshTtlSeconds,
+      @Value("${app.auth.refresh-store.redis.tombstone-seconds:3600}") long tombstoneSeconds,
+      @Value("${app.auth.refresh-store.redis.flush-batch-size:500}") int flushBatchSize,
+      @Value("${app.auth.refresh-store.redis.lease-ms:30000}") long leaseMillis) {
+
+    RedisClient client = redisClient.getIfAvailable();
+    if (client == null) {
+      throw new IllegalStateException("app.auth.refresh-store.type=redis requires app.redis.enabled=true");
+    }
+    log.info("Refresh tokens: Redis hot tier with write-behind to refresh_tokens");
+    return new RedisRefreshTokenStore(client.connect(), durable, transactionTemplate,
+        refreshTtlSeconds, tombstoneSeconds, flushBatchSize, leaseMillis);
+  }
+}
@@ -0,0 +1,12 @@
+package dospring.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs (write-behind flushes, retention, ...).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,7 +2,10 @@ package dospring.config;
 
 import dospring.security.AuthEntryPointJwt;
 import dospring.security.AuthTokenFilter;
-import dospring.security_support.RateLimitFilter;
+import dospring.security.OffloadingPasswordEncoder;
+import dospring.security.PasswordHashingExecutor;
+import dospring.security.ratelimit.ConcurrencyLimitFilter;
+import dospring.security.ratelimit.RateLimitFilter;
 import dospring.service.impl.UserDetailsServiceImpl;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -48,16 +51,21 @@ public class SecurityConfig {
     return authConfig.getAuthenticationManager();
   }
 
+  /**
+   * BCrypt, executed on the bounded {@link PasswordHashingExecutor} (never on a request thread
+   * holding a DB connection).
+   */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor) {
+    return new OffloadingPasswordEncoder(new BCryptPasswordEncoder(), passwordHashingExecutor);
   }
 
   @Bean
   public SecurityFilterChain filterChain(HttpSecurity http,
                                         AuthEntryPointJwt unauthorizedHandler,
                                         DaoAuthenticationProvider authProvider,
-                                        RateLimitFilter rateLimitFilter) throws Exception {
+                                        RateLimitFilter rateLimitFilter,
+                                        ConcurrencyLimitFilter concurrencyLimitFilter) throws Exception {
 
     http
         .csrf(csrf -> csrf.disable())
@@ -92,8 +100,11 @@ public class SecurityConfig {
             .anyRequest().authenticated()
         );
 
-    http.addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);
     http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+    // After the JWT filter: per-subject policies key on the authenticated principal.
+    http.addFilterAfter(rateLimitFilter, AuthTokenFilter.class);
+    // Throttled clients are rejected before they take a concurrency slot.
+    http.addFilterAfter(concurrencyLimitFilter, RateLimitFilter.class);
 
     return http.build();
   }
@@ -21,6 +21,7 @@ public class WebConfig implements WebMvcConfigurer {
         .allowedOrigins(corsOrigins.split(","))
         .allowedMethods("GET","POST","PUT","PATCH","DELETE","OPTIONS")
         .allowedHeaders("*")
+        .exposedHeaders("X-Next-Cursor")
         .allowCredentials(true)
         .maxAge(3600);
   }
@@ -0,0 +1,29 @@
+package dospring.config;
+
+import dospring.service.impl.TimestampWriteBehind;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Write-behind coalescers for best-effort timestamps ({@code app.write-behind.*}).
+ */
+@Configuration
+public class WriteBehindConfig {
+
+  @Bean(destroyMethod = "close")
+  public TimestampWriteBehind lastLoginWriteBehind(
+      JdbcTemplate jdbcTemplate,
+      ObjectProvider<MeterRegistry> meterRegistry,
+      @Value("${app.write-behind.batch-size:500}") int batchSize,
+      @Value("${app.write-behind.interval-ms:5000}") long intervalMillis) {
+    return new TimestampWriteBehind("users.last_login_at",
+        "UPDATE users SET last_login_at = ? WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)",
+        jdbcTemplate, meterRegistry.getIfAvailable(SimpleMeterRegistry::new), batchSize, intervalMillis);
+  }
+}
@@ -4,6 +4,7 @@ import dospring.payload.request.*;
 import dospring.payload.response.AuthResponse;
 import dospring.payload.response.MessageResponse;
 import dospring.payload.response.SessionInfoResponse;
+import dospring.payload.response.SessionPage;
 import dospring.service.AuthService;
 import dospring.service.impl.UserDetailsImpl;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,7 +26,7 @@ import java.util.List;
  * - POST /api/auth/logout
  * - POST /api/auth/logout-all
  * - POST /api/auth/logout-device
- * - GET  /api/auth/sessions
+ * - GET  /api/auth/sessions (?limit=&cursor=, next page cursor in X-Next-Cursor)
  * - POST /api/auth/revoke-session
  * - POST /api/auth/change-password
  *
@@ -38,6 +39,8 @@ import java.util.List;
 @CrossOrigin(origins = "${app.security.cors-origins}", maxAge = 3600)
 public class AuthController {
 
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
   private final AuthService authService;
 
   public AuthController(AuthService authService) {
@@ -85,13 +88,23 @@ public class AuthController {
   }
 
   /**
-   * Lists active sessions for the current user.
+   * Lists active sessions for the current user, most recently used first.
+   *
+   * <p>Keyset-paginated: when more sessions exist, the {@code X-Next-Cursor} response header carries
+   * the value to pass as {@code cursor} for the next page.
    *
    * <p>Does not return refresh token values.
    */
   @GetMapping("/sessions")
-  public ResponseEntity<List<SessionInfoResponse>> sessions(@AuthenticationPrincipal UserDetailsImpl principal) {
-    return ResponseEntity.ok(authService.listActiveSessions(principal.getId()));
+  public ResponseEntity<List<SessionInfoResponse>> sessions(@AuthenticationPrincipal UserDetailsImpl principal,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(defaultValue = "20") int limit) {
+    SessionPage page = authService.listActiveSessions(principal.getId(), cursor, limit);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (page.nextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+    }
+    return response.body(page.items());
   }
 
   /**
@@ -0,0 +1,56 @@
+package dospring.controller;
+
+import dospring.payload.response.FlightPage;
+import dospring.payload.response.FlightResponse;
+import dospring.service.FlightSearch;
+import dospring.service.FlightService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Flight search API.
+ *
+ * - GET /api/flights/search?from=&to=&departFrom=&departTo=&seats=&sort=departure|price&limit=&cursor=
+ */
+@RestController
+@RequestMapping("/api/flights")
+@CrossOrigin(origins = "${app.security.cors-origins}", maxAge = 3600)
+public class FlightController {
+
+  private final FlightService flightService;
+
+  public FlightController(FlightService flightService) {
+    this.flightService = flightService;
+  }
+
+  /**
+   * Flights from {@code from} to {@code to} departing between {@code departFrom} and {@code departTo}
+   * (ISO dates, UTC, inclusive; at most {@value FlightSearch#MAX_RANGE_DAYS} days) with at least
+   * {@code seats} seats left, by departure time or price.
+   *
+   * <p>Keyset-paginated: when more flights match, the {@code X-Next-Cursor} response header carries the
+   * value to pass as {@code cursor} (with the same search parameters) for the next page.
+   */
+  @GetMapping("/search")
+  public ResponseEntity<List<FlightResponse>> search(@RequestParam String from,
+                                                     @RequestParam String to,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate departFrom,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate departTo,
+                                                     @RequestParam(defaultValue = "1") int seats,
+                                                     @RequestParam(required = false) String sort,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "20") int limit) {
+    FlightSearch search = new FlightSearch(from, to, departFrom, departTo, seats, FlightSearch.Sort.parse(sort));
+    FlightPage page = flightService.search(search, cursor, limit);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (page.nextCursor() != null) {
+      response.header(AuthController.NEXT_CURSOR_HEADER, page.nextCursor());
+    }
+    return response.body(page.items());
+  }
+}
@@ -0,0 +1,262 @@
+package dospring.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * AES-GCM of short column values, stored as {@code prefix + base64(IV || ciphertext+tag)}.
+ *
+ * <p>Runs on every load and save of an encrypted attribute, so all per-call setup lives in one
+ * {@link Worker} per thread:
+ * <ul>
+ *   <li>the {@link Cipher} is looked up once and re-initialised per value (the provider keeps the
+ *   expanded AES key while the key bytes do not change);</li>
+ *   <li>IVs come from a per-thread 96-bit counter that starts at a random point, not from a shared
+ *   {@link SecureRandom}: no lock, no entropy read per value;</li>
+ *   <li>UTF-8, {@code IV || ciphertext} and Base64 are written into per-thread scratch buffers, so the
+ *   result String is the only array allocated here. Plaintext scratch is zeroed after each call.</li>
+ * </ul>
+ *
+ * <p>IV uniqueness: a thread never repeats an IV (the counter would have to wrap 2^96); two threads
+ * collide only if their random starting points land within one sequence's length of each other,
+ * which is as unlikely as two random 96-bit IVs colliding.
+ *
+ * <p>See {@code EncryptedStringConverterBenchmark}.
+ */
+final class AesGcm {
+
+  static final int IV_LEN = 12;
+  static final int TAG_LEN = 16;
+  private static final int TAG_BITS = TAG_LEN * 8;
+
+  /** Scratch buffers grow up to this size; larger values get one-off arrays. */
+  private static final int MAX_SCRATCH = 16 * 1024;
+
+  private static final byte[] BASE64 =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+  private static final int[] BASE64_VALUES = new int[128];
+
+  static {
+    Arrays.fill(BASE64_VALUES, -1);
+    for (int i = 0; i < BASE64.length; i++) {
+      BASE64_VALUES[BASE64[i]] = i;
+    }
+  }
+
+  private static final SecureRandom SEED = new SecureRandom();
+  private static final ThreadLocal<Worker> WORKER = ThreadLocal.withInitial(Worker::new);
+
+  private AesGcm() {
+  }
+
+  /**
+   * Encrypts {@code plaintext} under a fresh IV and returns {@code prefix} followed by the Base64 of
+   * {@code IV || ciphertext+tag}. The prefix must be ASCII.
+   */
+  static String encrypt(String prefix, String plaintext, SecretKey key) throws GeneralSecurityException {
+    Worker w = WORKER.get();
+    byte[] plain = w.plain(plaintext.length() * 3);
+    int plainLen = encodeUtf8(plaintext, plain);
+    try {
+      int sealedLen = IV_LEN + plainLen + TAG_LEN;
+      byte[] sealed = w.sealed(sealedLen);
+      w.nextIv(sealed);
+      w.cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LEN));
+      w.cipher.doFinal(plain, 0, plainLen, sealed, IV_LEN);
+
+      int prefixLen = prefix.length();
+      byte[] text = w.text(prefixLen + (sealedLen + 2) / 3 * 4);
+      for (int i = 0; i < prefixLen; i++) {
+        text[i] = (byte) prefix.charAt(i);
+      }
+      int textLen = encodeBase64(sealed, sealedLen, text, prefixLen);
+      return new String(text, 0, textLen, StandardCharsets.ISO_8859_1);
+    } finally {
+      Arrays.fill(plain, 0, plainLen, (byte) 0);
+    }
+  }
+
+  /**
+   * Decrypts {@code stored}, whose Base64 payload starts at {@code offset} (after the prefix).
+   *
+   * @throws IllegalArgumentException if the payload is not valid Base64 or too short
+   * @throws GeneralSecurityException if authentication fails (wrong key, tampered value)
+   */
+  static String decrypt(String stored, int offset, SecretKey key) throws GeneralSecurityException {
+    Worker w = WORKER.get();
+    byte[] sealed = w.sealed((stored.length() - offset) / 4 * 3 + 3);
+    int sealedLen = decodeBase64(stored, offset, sealed);
+    if (sealedLen < IV_LEN + TAG_LEN) {
+      throw new IllegalArgumentException("Encrypted value too short");
+    }
+    int plainCapacity = sealedLen - IV_LEN - TAG_LEN;
+    byte[] plain = w.plain(plainCapacity);
+    try {
+      w.cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LEN));
+      int plainLen = w.cipher.doFinal(sealed, IV_LEN, sealedLen - IV_LEN, plain, 0);
+      return new String(plain, 0, plainLen, StandardCharsets.UTF_8);
+    } finally {
+      Arrays.fill(plain, 0, plainCapacity, (byte) 0);
+    }
+  }
+
+  /** Same bytes as {@code s.getBytes(UTF_8)}: unpaired surrogates become {@code '?'}. */
+  private static int encodeUtf8(String s, byte[] out) {
+    int n = 0;
+    for (int i = 0, len = s.length(); i < len; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        out[n++] = (byte) c;
+      } else if (c < 0x800) {
+        out[n++] = (byte) (0xc0 | c >> 6);
+        out[n++] = (byte) (0x80 | c & 0x3f);
+      } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+        int cp = Character.toCodePoint(c, s.charAt(++i));
+        out[n++] = (byte) (0xf0 | cp >> 18);
+        out[n++] = (byte) (0x80 | cp >> 12 & 0x3f);
+        out[n++] = (byte) (0x80 | cp >> 6 & 0x3f);
+        out[n++] = (byte) (0x80 | cp & 0x3f);
+      } else if (Character.isSurrogate(c)) {
+        out[n++] = '?';
+      } else {
+        out[n++] = (byte) (0xe0 | c >> 12);
+        out[n++] = (byte) (0x80 | c >> 6 & 0x3f);
+        out[n++] = (byte) (0x80 | c & 0x3f);
+      }
+    }
+    return n;
+  }
+
+  /** Standard alphabet with padding, as {@code Base64.getEncoder()}. */
+  private static int encodeBase64(byte[] src, int len, byte[] out, int at) {
+    int i = 0;
+    for (int full = len - len % 3; i < full; i += 3) {
+      int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | src[i + 2] & 0xff;
+      out[at++] = BASE64[bits >>> 18];
+      out[at++] = BASE64[bits >>> 12 & 0x3f];
+      out[at++] = BASE64[bits >>> 6 & 0x3f];
+      out[at++] = BASE64[bits & 0x3f];
+    }
+    int rest = len - i;
+    if (rest > 0) {
+      int bits = (src[i] & 0xff) << 16 | (rest == 2 ? (src[i + 1] & 0xff) << 8 : 0);
+      out[at++] = BASE64[bits >>> 18];
+      out[at++] = BASE64[bits >>> 12 & 0x3f];
+      out[at++] = rest == 2 ? BASE64[bits >>> 6 & 0x3f] : (byte) '=';
+      out[at++] = '=';
+    }
+    return at;
+  }
+
+  /** Accepts what {@code Base64.getDecoder()} accepts: standard alphabet, padding optional. */
+  private static int decodeBase64(String s, int from, byte[] out) {
+    int end = s.length();
+    if (end > from && s.charAt(end - 1) == '=') {
+      end--;
+      if (end > from && s.charAt(end - 1) == '=') {
+        end--;
+      }
+    }
+    if ((end - from) % 4 == 1) {
+      throw new IllegalArgumentException("Invalid Base64 length");
+    }
+    int n = 0;
+    int bits = 0;
+    int count = 0;
+    for (int i = from; i < end; i++) {
+      char c = s.charAt(i);
+      int v = c < 128 ? BASE64_VALUES[c] : -1;
+      if (v < 0) {
+        throw new IllegalArgumentException("Invalid Base64 character at " + i);
+      }
+      bits = bits << 6 | v;
+      if (++count == 4) {
+        out[n++] = (byte) (bits >> 16);
+        out[n++] = (byte) (bits >> 8);
+        out[n++] = (byte) bits;
+        bits = 0;
+        count = 0;
+      }
+    }
+    if (count == 3) {
+      out[n++] = (byte) (bits >> 10);
+      out[n++] = (byte) (bits >> 2);
+    } else if (count == 2) {
+      out[n++] = (byte) (bits >> 4);
+    }
+    return n;
+  }
+
+  /** Per-thread cipher, IV counter and scratch buffers. */
+  private static final class Worker {
+
+    private final Cipher cipher;
+    private int ivHigh;
+    private long ivLow;
+    private byte[] plain = new byte[256];
+    private byte[] sealed = new byte[256];
+    private byte[] text = new byte[512];
+
+    Worker() {
+      try {
+        cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException("AES/GCM not available", e);
+      }
+      synchronized (SEED) {
+        ivHigh = SEED.nextInt();
+        ivLow = SEED.nextLong();
+      }
+    }
+
+    /** Writes the next 96-bit IV, big-endian, into {@code out[0..12)}. */
+    void nextIv(byte[] out) {
+      if (++ivLow == 0) {
+        ivHigh++;
+      }
+      out[0] = (byte) (ivHigh >>> 24);
+      out[1] = (byte) (ivHigh >>> 16);
+      out[2] = (byte) (ivHigh >>> 8);
+      out[3] = (byte) ivHigh;
+      for (int i = 0; i < 8; i++) {
+        out[4 + i] = (byte) (ivLow >>> (56 - 8 * i));
+      }
+    }
+
+    byte[] plain(int size) {
+      if (size > plain.length) {
+        if (size > MAX_SCRATCH) {
+          return new byte[size];
+        }
+        plain = new byte[Math.max(size, plain.length * 2)];
+      }
+      return plain;
+    }
+
+    byte[] sealed(int size) {
+      if (size > sealed.length) {
+        if (size > MAX_SCRATCH) {
+          return new byte[size];
+        }
+        sealed = new byte[Math.max(size, sealed.length * 2)];
+      }
+      return sealed;
+    }
+
+    byte[] text(int size) {
+      if (size > text.length) {
+        if (size > MAX_SCRATCH * 2) {
+          return new byte[size];
+        }
+        text = new byte[Math.max(size, text.length * 2)];
+      }
+      return text;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package dospring.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Keyed blind index for encrypted columns: {@code hex(HMAC-SHA256(key, normalize(value)))}.
+ *
+ * <p>The random IV of {@link EncryptedStringConverter} makes equal plaintexts produce different
+ * ciphertexts, so equality lookups and unique constraints have to go through a deterministic
+ * companion column instead (e.g. {@code users.email_bidx}). Without the key the index reveals only
+ * equality, not the value.
+ *
+ * <p>Like the converter, the key is a static holder set once at startup by {@link CryptoKeyProvider},
+ * because entity callbacks are not Spring beans. Changing the key requires recomputing every index.
+ */
+public final class BlindIndex {
+
+  private static final String HMAC = "HmacSHA256";
+
+  /** Dev-only key used when no crypto key is configured (indexes still work, but are not secret). */
+  private static final SecretKey DEV_KEY =
+      new SecretKeySpec("dospring-dev-blind-index-key".getBytes(StandardCharsets.UTF_8), HMAC);
+
+  private static volatile SecretKey KEY = DEV_KEY;
+
+  private static final ThreadLocal<Mac> MAC = new ThreadLocal<>();
+  private static final ThreadLocal<SecretKey> MAC_KEY = new ThreadLocal<>();
+
+  private BlindIndex() {
+  }
+
+  static void setKey(SecretKey key) {
+    KEY = key != null ? key : DEV_KEY;
+  }
+
+  /**
+   * Blind index of an email address (trimmed, lower-cased), or null for null.
+   */
+  public static String email(String email) {
+    if (email == null) {
+      return null;
+    }
+    return compute(email.trim().toLowerCase(Locale.ROOT));
+  }
+
+  private static String compute(String normalized) {
+    try {
+      SecretKey key = KEY;
+      Mac mac = MAC.get();
+      if (mac == null || MAC_KEY.get() != key) {
+        mac = Mac.getInstance(HMAC);
+        mac.init(key);
+        MAC.set(mac);
+        MAC_KEY.set(key);
+      }
+      return HexFormat.of().formatHex(mac.doFinal(normalized.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to compute blind index", e);
+    }
+  }
+}
@@ -1,9 +1,16 @@
 package dospring.crypto;
 
 import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -11,13 +18,20 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
- * Provides the AES key used by {@link EncryptedStringConverter}.
+ * Provides the AES key ring used by {@link EncryptedStringConverter}.
  *
  * <p>Why a separate provider?
  * JPA {@code AttributeConverter}s are instantiated by JPA (not Spring), so we cannot
  * reliably {@code @Autowired} into the converter. We therefore initialize a static
  * key holder once at application startup.
+ *
+ * <p>Rotation: pin the blind index key ({@code app.crypto.blind-index-key-base64}, required from now
+ * on), add the new key under {@code app.crypto.keys} on every instance first (it becomes
+ * readable, and primary since it is the highest version), let {@link ReencryptionJob} move existing
+ * rows onto it, then drop the old key. Pin {@code app.crypto.primary-key-version} to the old version
+ * during a rolling deploy if old instances must keep reading what new ones write.
  */
+@Slf4j
 @Component
 public class CryptoKeyProvider {
 
@@ -32,21 +46,103 @@ public class CryptoKeyProvider {
   @Value("${app.crypto.key-base64:}")
   private String keyBase64;
 
+  /**
+   * Further keys as {@code version:base64} pairs separated by commas, e.g. {@code 2:...,3:...}.
+   * {@code key-base64}, when set, is version 1.
+   */
+  @Value("${app.crypto.keys:}")
+  private String keys;
+
+  /** Version new values are encrypted with; 0 (default) means the highest configured. */
+  @Value("${app.crypto.primary-key-version:0}")
+  private int primaryKeyVersion;
+
+  /**
+   * Base64-encoded HMAC key for {@link BlindIndex} (32 bytes recommended). Required once
+   * {@code app.crypto.keys} is set: the default, derived from {@code key-base64}, would change when
+   * that key is retired and leave every {@code email_bidx} unreadable. With no key at all, a fixed
+   * dev key is used.
+   */
+  @Value("${app.crypto.blind-index-key-base64:}")
+  private String blindIndexKeyBase64;
+
   @PostConstruct
   public void init() {
-    if (keyBase64 == null || keyBase64.isBlank()) {
+    Map<Integer, byte[]> raw = parseKeys();
+    boolean explicitIndexKey = blindIndexKeyBase64 != null && !blindIndexKeyBase64.isBlank();
+    if (!explicitIndexKey && keys != null && !keys.isBlank()) {
+      throw new IllegalStateException("app.crypto.blind-index-key-base64 is required with app.crypto.keys: "
+          + "the blind index key must not depend on an AES key that rotation will remove");
+    }
+    if (explicitIndexKey) {
+      BlindIndex.setKey(new SecretKeySpec(Base64.getDecoder().decode(blindIndexKeyBase64.trim()), "HmacSHA256"));
+    } else if (raw.containsKey(1)) {
+      // never use the AES key itself as the HMAC key: derive a separate one.
+      BlindIndex.setKey(new SecretKeySpec(deriveBlindIndexKey(raw.get(1)), "HmacSHA256"));
+    } else {
+      BlindIndex.setKey(null);
+    }
+
+    if (raw.isEmpty()) {
       // In production we want deterministic encryption.
       // For local dev, encryption can be disabled by leaving key empty.
       EncryptedStringConverter.disableEncryption();
       return;
     }
 
-    byte[] raw = Base64.getDecoder().decode(keyBase64.trim());
+    Map<Integer, SecretKey> ring = new HashMap<>();
+    raw.forEach((version, bytes) -> ring.put(version, new SecretKeySpec(bytes, "AES")));
+    int primary = primaryKeyVersion > 0 ? primaryKeyVersion : Collections.max(raw.keySet());
+    if (!raw.containsKey(primary)) {
+      throw new IllegalStateException("app.crypto.primary-key-version " + primary + " is not a configured key");
+    }
+    EncryptedStringConverter.enableEncryption(new KeyRing(ring, primary));
+    log.info("Column encryption enabled: key versions {}, primary {}", raw.keySet(), primary);
+  }
+
+  private Map<Integer, byte[]> parseKeys() {
+    Map<Integer, byte[]> raw = new HashMap<>();
+    if (keyBase64 != null && !keyBase64.isBlank()) {
+      raw.put(1, decodeKey("app.crypto.key-base64", keyBase64));
+    }
+    if (keys != null && !keys.isBlank()) {
+      for (String entry : keys.split(",")) {
+        int colon = entry.indexOf(':');
+        if (colon < 0) {
+          throw new IllegalStateException("app.crypto.keys entries must be version:base64");
+        }
+        int version;
+        try {
+          version = Integer.parseInt(entry.substring(0, colon).trim());
+        } catch (NumberFormatException e) {
+          throw new IllegalStateException("app.crypto.keys: invalid key version in '" + entry.substring(0, colon) + "'");
+        }
+        if (version < 1 || version > KeyRing.MAX_VERSION) {
+          throw new IllegalStateException("app.crypto.keys: key versions must be between 1 and " + KeyRing.MAX_VERSION);
+        }
+        if (raw.put(version, decodeKey("app.crypto.keys[" + version + "]", entry.substring(colon + 1))) != null) {
+          throw new IllegalStateException("Key version " + version + " is configured twice");
+        }
+      }
+    }
+    return raw;
+  }
+
+  private static byte[] decodeKey(String name, String base64) {
+    byte[] raw = Base64.getDecoder().decode(base64.trim());
     if (raw.length != 32) {
-      throw new IllegalStateException("app.crypto.key-base64 must decode to 32 bytes (AES-256)");
+      throw new IllegalStateException(name + " must decode to 32 bytes (AES-256)");
     }
+    return raw;
+  }
 
-    SecretKey key = new SecretKeySpec(raw, "AES");
-    EncryptedStringConverter.enableEncryption(key);
+  private static byte[] deriveBlindIndexKey(byte[] aesKey) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(aesKey, "HmacSHA256"));
+      return mac.doFinal("dospring/blind-index/v1".getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot derive blind index key", e);
+    }
   }
 }
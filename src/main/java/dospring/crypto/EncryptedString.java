@@ -0,0 +1,105 @@
+package dospring.crypto;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * An encrypted column value that is decrypted on first access, not on load.
+ *
+ * <p>Mapped with {@link LazyEncryptedStringConverter}: loading an entity only keeps the stored
+ * {@code enc:} text, and {@link #value()} decrypts it once and caches the plaintext for the lifetime
+ * of this instance. Most paths that load a {@code User} (login, principal cache, orders) never read
+ * the email, so they no longer pay an AES-GCM decrypt.
+ *
+ * <p>Writing back a value that was loaded and not reassigned reuses the stored text: a flush never
+ * re-encrypts it (a fresh IV would change the column on every UPDATE of the row). Equality is that of
+ * the column text, so neither the dirty check nor hashing ever decrypts; reassigning the same
+ * plaintext is therefore one (harmless) UPDATE. Instances are immutable from the outside; assign a
+ * new one with {@link #of(String)} to change the value.
+ */
+public final class EncryptedString implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  /** Column text: as loaded, or once encrypted for a new value. */
+  private volatile String stored;
+  /** Plaintext: as assigned, or once decrypted. */
+  private volatile String plain;
+  private final boolean loaded;
+
+  private EncryptedString(String stored, String plain, boolean loaded) {
+    this.stored = stored;
+    this.plain = plain;
+    this.loaded = loaded;
+  }
+
+  /**
+   * A new value to be encrypted when it is written, or null for null.
+   */
+  public static EncryptedString of(String plaintext) {
+    return plaintext == null ? null : new EncryptedString(null, plaintext, false);
+  }
+
+  static EncryptedString fromDatabase(String stored) {
+    return stored == null ? null : new EncryptedString(stored, null, true);
+  }
+
+  /**
+   * The plaintext, decrypted on the first call.
+   *
+   * @throws IllegalStateException if the stored text cannot be decrypted
+   */
+  public String value() {
+    String p = plain;
+    if (p == null) {
+      p = EncryptedStringConverter.decrypt(stored);
+      plain = p;
+    }
+    return p;
+  }
+
+  /**
+   * Whether this value was read from the database (rather than assigned by the application).
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Whether the plaintext is in hand (assigned, or already decrypted).
+   */
+  public boolean isDecrypted() {
+    return plain != null;
+  }
+
+  String toDatabase() {
+    String s = stored;
+    if (s == null) {
+      s = EncryptedStringConverter.encrypt(plain);
+      stored = s;
+    }
+    return s;
+  }
+
+  /**
+   * Equal column texts; a new value is encrypted once to get its text. Never decrypts.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    return o instanceof EncryptedString other && toDatabase().equals(other.toDatabase());
+  }
+
+  @Override
+  public int hashCode() {
+    return toDatabase().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "EncryptedString[***]";
+  }
+}
@@ -3,14 +3,7 @@ package dospring.crypto;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.security.SecureRandom;
-import java.util.Base64;
-
-import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
-import javax.crypto.spec.GCMParameterSpec;
 
 /**
  * JPA converter that encrypts/decrypts String values using AES-256-GCM.
@@ -18,84 +11,100 @@ import javax.crypto.spec.GCMParameterSpec;
  * <p>Design notes:
  * <ul>
  *   <li>AES-GCM provides confidentiality + integrity.</li>
- *   <li>We generate a random 12-byte IV per value (recommended for GCM).</li>
- *   <li>We store: base64( IV || ciphertext+tag ).</li>
+ *   <li>Every value gets its own 12-byte IV (recommended for GCM).</li>
+ *   <li>We store: {@code enc:v<N>:} + base64( IV || ciphertext+tag ), {@code N} being the key version
+ *   ({@code enc:} alone for version 1, see {@link KeyRing}). Reads accept any key in the ring, writes
+ *   use the primary one.</li>
  *   <li>If encryption key is not configured, the converter becomes a no-op (dev-friendly).</li>
+ *   <li>The cipher work is done by {@link AesGcm} (per-thread cipher, IV counter and buffers).</li>
  * </ul>
+ *
+ * <p>Decrypts on every load; entity attributes that are rarely read use {@link EncryptedString} with
+ * {@link LazyEncryptedStringConverter} instead.
  */
 @Converter
 public class EncryptedStringConverter implements AttributeConverter<String, String> {
 
-  private static final String PREFIX = "enc:";
-  private static final int IV_LEN = 12;
-  private static final int TAG_BITS = 128;
-
-  private static volatile SecretKey SECRET_KEY; // set by CryptoKeyProvider
-  private static volatile boolean ENABLED = false;
-
-  private static final SecureRandom RNG = new SecureRandom();
+  private static volatile KeyRing RING; // set by CryptoKeyProvider; null when encryption is disabled
 
-  static void enableEncryption(SecretKey key) {
-    SECRET_KEY = key;
-    ENABLED = true;
+  static void enableEncryption(KeyRing ring) {
+    RING = ring;
   }
 
   static void disableEncryption() {
-    SECRET_KEY = null;
-    ENABLED = false;
+    RING = null;
+  }
+
+  static boolean isEnabled() {
+    return RING != null;
   }
 
   @Override
   public String convertToDatabaseColumn(String attribute) {
-    if (!ENABLED || attribute == null || attribute.isBlank()) {
+    return encrypt(attribute);
+  }
+
+  @Override
+  public String convertToEntityAttribute(String dbData) {
+    return decrypt(dbData);
+  }
+
+  static String encrypt(String attribute) {
+    KeyRing ring = RING;
+    if (ring == null || attribute == null || attribute.isBlank()) {
       return attribute;
     }
 
     try {
-      byte[] iv = new byte[IV_LEN];
-      RNG.nextBytes(iv);
-
-      Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-      cipher.init(Cipher.ENCRYPT_MODE, SECRET_KEY, new GCMParameterSpec(TAG_BITS, iv));
-      byte[] ct = cipher.doFinal(attribute.getBytes(StandardCharsets.UTF_8));
-
-      ByteBuffer bb = ByteBuffer.allocate(iv.length + ct.length);
-      bb.put(iv);
-      bb.put(ct);
-
-      return PREFIX + Base64.getEncoder().encodeToString(bb.array());
+      return AesGcm.encrypt(ring.primaryPrefix(), attribute, ring.primaryKey());
     } catch (Exception e) {
       throw new IllegalStateException("Failed to encrypt value", e);
     }
   }
 
-  @Override
-  public String convertToEntityAttribute(String dbData) {
-    if (!ENABLED || dbData == null || dbData.isBlank()) {
+  static String decrypt(String dbData) {
+    KeyRing ring = RING;
+    if (ring == null || dbData == null || dbData.isBlank()) {
       return dbData;
     }
 
     // Backward compatibility: only decrypt values that we encrypted.
-    if (!dbData.startsWith(PREFIX)) {
+    if (!dbData.startsWith(KeyRing.PREFIX)) {
       return dbData;
     }
 
+    SecretKey key = ring.key(KeyRing.version(dbData));
+    if (key == null) {
+      throw new IllegalStateException("Encrypted value uses key version " + KeyRing.version(dbData)
+          + ", which is not in the key ring");
+    }
     try {
-      byte[] raw = Base64.getDecoder().decode(dbData.substring(PREFIX.length()));
-      ByteBuffer bb = ByteBuffer.wrap(raw);
-
-      byte[] iv = new byte[IV_LEN];
-      bb.get(iv);
-      byte[] ct = new byte[bb.remaining()];
-      bb.get(ct);
-
-      Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-      cipher.init(Cipher.DECRYPT_MODE, SECRET_KEY, new GCMParameterSpec(TAG_BITS, iv));
-      byte[] pt = cipher.doFinal(ct);
-
-      return new String(pt, StandardCharsets.UTF_8);
+      return AesGcm.decrypt(dbData, KeyRing.payloadOffset(dbData), key);
     } catch (Exception e) {
       throw new IllegalStateException("Failed to decrypt value", e);
     }
   }
+
+  /**
+   * The value re-encrypted under the primary key, or null if it already is (or is null/blank, or
+   * encryption is disabled). Plaintext left from before encryption was enabled is encrypted.
+   */
+  static String reencrypt(String dbData) {
+    KeyRing ring = RING;
+    if (ring == null || dbData == null || dbData.isBlank()) {
+      return null;
+    }
+    if (dbData.startsWith(KeyRing.PREFIX) && KeyRing.version(dbData) == ring.primaryVersion()) {
+      return null;
+    }
+    return encrypt(decrypt(dbData));
+  }
+
+  /**
+   * Prefix of values already under the primary key, or null when encryption is disabled.
+   */
+  static String primaryPrefix() {
+    KeyRing ring = RING;
+    return ring == null ? null : ring.primaryPrefix();
+  }
 }
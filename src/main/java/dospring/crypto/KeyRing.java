@@ -0,0 +1,107 @@
+package dospring.crypto;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.crypto.SecretKey;
+
+/**
+ * The AES keys a ciphertext may be under, by version, and the one new values are written with.
+ *
+ * <p>Stored format: {@code enc:v<N>:} + base64(IV || ciphertext+tag) for key version {@code N}.
+ * Version 1 is the original single key and keeps the original unversioned {@code enc:} prefix, so a
+ * deployment that has not added a second key writes exactly what it always did (and older instances
+ * can still read it during a rolling upgrade). The two forms cannot be confused: {@code ':'} is not a
+ * Base64 character.
+ */
+final class KeyRing {
+
+  static final String PREFIX = "enc:";
+  static final int MAX_VERSION = 999;
+
+  /** Indexed by version; null where no key is configured. */
+  private final SecretKey[] keys;
+  private final int primaryVersion;
+  private final String primaryPrefix;
+
+  /**
+   * @param keys           all readable keys by version (1..{@value #MAX_VERSION})
+   * @param primaryVersion version new values are encrypted with; must be one of {@code keys}
+   */
+  KeyRing(Map<Integer, SecretKey> keys, int primaryVersion) {
+    TreeMap<Integer, SecretKey> sorted = new TreeMap<>(keys);
+    if (sorted.isEmpty() || sorted.firstKey() < 1 || sorted.lastKey() > MAX_VERSION) {
+      throw new IllegalArgumentException("Key versions must be between 1 and " + MAX_VERSION);
+    }
+    if (!sorted.containsKey(primaryVersion)) {
+      throw new IllegalArgumentException("No key with primary version " + primaryVersion);
+    }
+    this.keys = new SecretKey[sorted.lastKey() + 1];
+    sorted.forEach((version, key) -> this.keys[version] = key);
+    this.primaryVersion = primaryVersion;
+    this.primaryPrefix = prefix(primaryVersion);
+  }
+
+  static String prefix(int version) {
+    return version == 1 ? PREFIX : PREFIX + "v" + version + ":";
+  }
+
+  int primaryVersion() {
+    return primaryVersion;
+  }
+
+  String primaryPrefix() {
+    return primaryPrefix;
+  }
+
+  SecretKey primaryKey() {
+    return keys[primaryVersion];
+  }
+
+  /**
+   * The key for {@code version}, or null if it is not (or no longer) in the ring.
+   */
+  SecretKey key(int version) {
+    return version > 0 && version < keys.length ? keys[version] : null;
+  }
+
+  /**
+   * Key version of a stored value that starts with {@link #PREFIX}; {@link #payloadOffset} gives where
+   * its Base64 starts.
+   */
+  static int version(String stored) {
+    int colon = versionColon(stored);
+    if (colon < 0) {
+      return 1;
+    }
+    int version = 0;
+    for (int i = PREFIX.length() + 1; i < colon; i++) {
+      version = version * 10 + (stored.charAt(i) - '0');
+    }
+    return version;
+  }
+
+  static int payloadOffset(String stored) {
+    int colon = versionColon(stored);
+    return colon < 0 ? PREFIX.length() : colon + 1;
+  }
+
+  /** Index of the ':' closing {@code v<N>}, or -1 for the unversioned (version 1) form. */
+  private static int versionColon(String stored) {
+    int at = PREFIX.length();
+    if (stored.length() <= at || stored.charAt(at) != 'v') {
+      return -1;
+    }
+    int end = Math.min(stored.length(), at + 5);
+    for (int i = at + 1; i < end; i++) {
+      char c = stored.charAt(i);
+      if (c == ':') {
+        return i > at + 1 ? i : -1;
+      }
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,29 @@
+package dospring.crypto;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import org.hibernate.annotations.Mutability;
+import org.hibernate.type.descriptor.java.Immutability;
+
+/**
+ * JPA converter for {@link EncryptedString} attributes: same column format as
+ * {@link EncryptedStringConverter}, but decryption is deferred to {@link EncryptedString#value()}.
+ *
+ * <p>Declared immutable so Hibernate snapshots the instance itself for dirty checking instead of
+ * deep-copying it through this converter (which would encrypt and decrypt on every load).
+ */
+@Converter
+@Mutability(Immutability.class)
+public class LazyEncryptedStringConverter implements AttributeConverter<EncryptedString, String> {
+
+  @Override
+  public String convertToDatabaseColumn(EncryptedString attribute) {
+    return attribute == null ? null : attribute.toDatabase();
+  }
+
+  @Override
+  public EncryptedString convertToEntityAttribute(String dbData) {
+    return EncryptedString.fromDatabase(dbData);
+  }
+}
@@ -0,0 +1,235 @@
+package dospring.crypto;
+
+import dospring.retention.JobLease;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background re-encryption of encrypted columns under the primary key of the {@link KeyRing}.
+ *
+ * <p>After a key is added, rows written under older keys stay readable (the ring keeps every
+ * configured key), and this job moves them onto the new one so the old key can be retired. It also
+ * encrypts plaintext left from before encryption was enabled.
+ *
+ * <p>Each column is walked in {@code id} order: a chunk selects the next rows not yet under the primary
+ * key, re-encrypts them in Java and writes them back in one short auto-committed batch. Every UPDATE is
+ * conditional on the column still holding the value that was read, so a concurrent application write
+ * always wins and nothing is locked beyond the row being updated. Chunks are paced to
+ * {@code app.crypto.reencrypt.rows-per-second}, so a rotation drains under production load instead of
+ * competing with it. A {@link JobLease} keeps the job on a single instance.
+ *
+ * <p>An entity loaded before its row was rewritten and flushed afterwards writes the old ciphertext
+ * back (still readable); the next run picks it up again. Retire a key only after a run rewrote nothing.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.crypto.reencrypt.enabled", havingValue = "true", matchIfMissing = true)
+public class ReencryptionJob {
+
+  static final String JOB = "reencrypt";
+
+  /** %1$s / %2$s are fixed table / column names, %3$s the stale-value filter; never user input. */
+  private static final String NEXT_STALE = """
+      SELECT id, %2$s FROM %1$s
+      WHERE id > ? AND %2$s IS NOT NULL AND %2$s <> '' AND (%3$s)
+      ORDER BY id
+      LIMIT ?
+      """;
+
+  private static final String REWRITE = "UPDATE %1$s SET %2$s = ? WHERE id = ? AND %2$s = ?";
+
+  private final JdbcTemplate jdbc;
+  private final JobLease lease;
+  private final long leaseMillis;
+  private final int chunkSize;
+  private final int rowsPerSecond;
+
+  private final List<Column> columns = new ArrayList<>();
+  private final Counter chunks;
+  private final Timer runTimer;
+
+  public ReencryptionJob(JdbcTemplate jdbc,
+                         JobLease lease,
+                         ObjectProvider<MeterRegistry> meterRegistry,
+                         @Value("${app.crypto.reencrypt.lease-ms:600000}") long leaseMillis,
+                         @Value("${app.crypto.reencrypt.chunk-size:200}") int chunkSize,
+                         @Value("${app.crypto.reencrypt.rows-per-second:500}") int rowsPerSecond) {
+    this.jdbc = jdbc;
+    this.lease = lease;
+    this.leaseMillis = leaseMillis;
+    this.rowsPerSecond = Math.max(rowsPerSecond, 1);
+    // A chunk larger than one second of budget would burst past the rate before the first pause.
+    this.chunkSize = Math.max(1, Math.min(chunkSize, this.rowsPerSecond));
+
+    MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    columns.add(new Column("users", "email", registry));
+    columns.add(new Column("user_order", "razorpay_payment_id", registry));
+    columns.add(new Column("user_order", "razorpay_signature", registry));
+    this.chunks = Counter.builder("crypto.reencrypt.chunks").register(registry);
+    this.runTimer = Timer.builder("crypto.reencrypt.run").register(registry);
+  }
+
+  @Scheduled(initialDelayString = "${app.crypto.reencrypt.initial-delay-ms:120000}",
+      fixedDelayString = "${app.crypto.reencrypt.interval-ms:3600000}")
+  public void run() {
+    String primaryPrefix = EncryptedStringConverter.primaryPrefix();
+    if (primaryPrefix == null) {
+      return;
+    }
+    if (!lease.tryAcquire(JOB, leaseMillis)) {
+      log.debug("Re-encryption: lease held by another instance, skipping");
+      return;
+    }
+    try {
+      runTimer.record(() -> {
+        Pacer pacer = new Pacer(System.nanoTime());
+        long rewritten = 0;
+        for (Column column : columns) {
+          if (pacer.stopped) {
+            break;
+          }
+          rewritten += reencrypt(column, staleFilter(column.column, primaryPrefix), pacer);
+        }
+        if (rewritten > 0 || pacer.stopped) {
+          log.info("Re-encryption: rewrote {} values under key prefix '{}'{}", rewritten, primaryPrefix,
+              pacer.stopped ? " (stopped early)" : "");
+        }
+      });
+    } finally {
+      lease.release(JOB);
+    }
+  }
+
+  private long reencrypt(Column column, String filter, Pacer pacer) {
+    String select = NEXT_STALE.formatted(column.table, column.column, filter);
+    String update = REWRITE.formatted(column.table, column.column);
+    long lastId = 0L;
+    long total = 0L;
+
+    while (true) {
+      List<Object[]> rows = jdbc.query(select,
+          (rs, i) -> new Object[] {rs.getLong(1), rs.getString(2)},
+          lastId, chunkSize);
+      if (rows.isEmpty()) {
+        break;
+      }
+      chunks.increment();
+
+      List<Object[]> batch = new ArrayList<>(rows.size());
+      for (Object[] row : rows) {
+        long id = (Long) row[0];
+        String stored = (String) row[1];
+        lastId = id;
+        try {
+          String fresh = EncryptedStringConverter.reencrypt(stored);
+          if (fresh != null) {
+            batch.add(new Object[] {fresh, id, stored});
+          }
+        } catch (IllegalStateException e) {
+          // Unknown key version or corrupt value: leave it for an operator, keep going.
+          column.failed.increment();
+          log.warn("Re-encryption: cannot decrypt {}.{} of id {}: {}", column.table, column.column, id, e.getMessage());
+        }
+      }
+      if (!batch.isEmpty()) {
+        int applied = 0;
+        for (int count : jdbc.batchUpdate(update, batch)) {
+          // 0: the value changed since it was read; SUCCESS_NO_INFO (-2) counts as applied.
+          applied += count != 0 ? 1 : 0;
+        }
+        column.rewritten.increment(applied);
+        column.conflicts.increment(batch.size() - applied);
+        total += applied;
+      }
+      // Pace the last chunk too: the next column must not start with a burst.
+      if (!pacer.pace(rows.size()) || rows.size() < chunkSize) {
+        break;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * SQL predicate matching values not written under the primary key. Values under version 1 use the
+   * bare {@code enc:} prefix, which every versioned value also starts with.
+   */
+  static String staleFilter(String column, String primaryPrefix) {
+    if (KeyRing.PREFIX.equals(primaryPrefix)) {
+      return column + " NOT LIKE '" + KeyRing.PREFIX + "%' OR " + column + " LIKE '" + KeyRing.PREFIX + "v%:%'";
+    }
+    return column + " NOT LIKE '" + primaryPrefix + "%'";
+  }
+
+  /** Holds the run to the rows/sec budget and renews the lease between chunks. */
+  private final class Pacer {
+    private final long startNanos;
+    private long rows;
+    private boolean stopped;
+
+    Pacer(long startNanos) {
+      this.startNanos = startNanos;
+    }
+
+    /**
+     * Sleeps until {@code rows} more rows fit the budget; false ends the run (interrupted or lease lost).
+     */
+    boolean pace(int chunkRows) {
+      rows += chunkRows;
+      long dueNanos = startNanos + rows * TimeUnit.SECONDS.toNanos(1) / rowsPerSecond;
+      long waitMillis = TimeUnit.NANOSECONDS.toMillis(dueNanos - System.nanoTime());
+      if (waitMillis > 0) {
+        try {
+          Thread.sleep(waitMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          stopped = true;
+          return false;
+        }
+      }
+      if (!lease.tryAcquire(JOB, leaseMillis)) {
+        log.warn("Re-encryption: lease lost, stopping run");
+        stopped = true;
+        return false;
+      }
+      return true;
+    }
+  }
+
+  private static final class Column {
+    final String table;
+    final String column;
+    final Counter rewritten;
+    final Counter conflicts;
+    final Counter failed;
+
+    Column(String table, String column, MeterRegistry registry) {
+      this.table = table;
+      this.column = column;
+      this.rewritten = rowsCounter(registry, table, column, "rewritten");
+      this.conflicts = rowsCounter(registry, table, column, "conflict");
+      this.failed = rowsCounter(registry, table, column, "failed");
+    }
+
+    private static Counter rowsCounter(MeterRegistry registry, String table, String column, String outcome) {
+      return Counter.builder("crypto.reencrypt.rows")
+          .tag("table", table)
+          .tag("column", column)
+          .tag("outcome", outcome)
+          .register(registry);
+    }
+  }
+}
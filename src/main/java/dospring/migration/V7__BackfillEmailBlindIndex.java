@@ -0,0 +1,83 @@
+package dospring.migration;
+
+import dospring.crypto.BlindIndex;
+import dospring.crypto.CryptoKeyProvider;
+import dospring.crypto.EncryptedStringConverter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills {@code users.email_bidx} for rows written before V6.
+ *
+ * <p>Registered as a Spring bean (Spring Boot hands {@code JavaMigration} beans to Flyway) so it runs
+ * after {@link CryptoKeyProvider} has installed the encryption and blind-index keys: each email is
+ * decrypted and indexed in Java, which SQL cannot do.
+ *
+ * <p>Walks {@code id} in keyset order, {@value #BATCH_SIZE} rows per batch, each batch committed on its
+ * own (non-transactional migration), so it never holds locks on the whole table. Idempotent: only
+ * rows whose index is still null are touched, so an interrupted run simply resumes.
+ */
+@Slf4j
+@Component
+public class V7__BackfillEmailBlindIndex extends BaseJavaMigration {
+
+  static final int BATCH_SIZE = 1000;
+
+  private static final String SELECT =
+      "SELECT id, email FROM users WHERE email_bidx IS NULL AND id > ? ORDER BY id LIMIT " + BATCH_SIZE;
+  private static final String UPDATE = "UPDATE users SET email_bidx = ? WHERE id = ?";
+
+  /** Depends on the key provider only to be created (and its keys installed) after it. */
+  public V7__BackfillEmailBlindIndex(CryptoKeyProvider keys) {
+  }
+
+  @Override
+  public boolean canExecuteInTransaction() {
+    return false;
+  }
+
+  @Override
+  public void migrate(Context context) throws SQLException {
+    Connection connection = context.getConnection();
+    EncryptedStringConverter converter = new EncryptedStringConverter();
+    long lastId = 0;
+    long total = 0;
+
+    while (true) {
+      int rows = 0;
+      try (PreparedStatement select = connection.prepareStatement(SELECT);
+           PreparedStatement update = connection.prepareStatement(UPDATE)) {
+        select.setLong(1, lastId);
+        try (ResultSet rs = select.executeQuery()) {
+          while (rs.next()) {
+            lastId = rs.getLong(1);
+            String email = converter.convertToEntityAttribute(rs.getString(2));
+            update.setString(1, BlindIndex.email(email));
+            update.setLong(2, lastId);
+            update.addBatch();
+            rows++;
+          }
+        }
+        if (rows > 0) {
+          update.executeBatch();
+          if (!connection.getAutoCommit()) {
+            connection.commit();
+          }
+        }
+      }
+      total += rows;
+      if (rows < BATCH_SIZE) {
+        break;
+      }
+    }
+    log.info("email_bidx backfilled for {} users", total);
+  }
+}
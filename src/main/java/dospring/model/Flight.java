@@ -1,11 +1,17 @@
 package dospring.model;
 
 import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import jakarta.persistence.*;
 import lombok.*;
 
 /**
  * Flight entity (example domain entity).
+ *
+ * <p>Searches are answered from the in-memory {@code FlightIndex}, which Hibernate events keep current.
+ * Schedule instants are stored to the microsecond, the precision of TIMESTAMPTZ, so the index and the
+ * database hold the same values.
  */
 @Getter
 @Setter
@@ -28,17 +34,12 @@ public class Flight extends Auditable implements Serializable {
   @Column(name = "arrival_location", length = 120)
   private String arrivalLocation;
 
-  @Column(name = "departure_date", length = 30)
-  private String departureDate;
+  /** Scheduled departure (UTC); search is by route and this instant (V9 index). */
+  @Column(name = "departure_at")
+  private Instant departureAt;
 
-  @Column(name = "arrival_date", length = 30)
-  private String arrivalDate;
-
-  @Column(name = "departure_time", length = 30)
-  private String departureTime;
-
-  @Column(name = "arrival_time", length = 30)
-  private String arrivalTime;
+  @Column(name = "arrival_at")
+  private Instant arrivalAt;
 
   @Column(name = "total_seats")
   private Integer totalSeats;
@@ -48,4 +49,11 @@ public class Flight extends Auditable implements Serializable {
 
   @Column(name = "price")
   private Double price;
+
+  @PrePersist
+  @PreUpdate
+  void truncateSchedule() {
+    departureAt = departureAt == null ? null : departureAt.truncatedTo(ChronoUnit.MICROS);
+    arrivalAt = arrivalAt == null ? null : arrivalAt.truncatedTo(ChronoUnit.MICROS);
+  }
 }
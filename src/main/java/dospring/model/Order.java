@@ -2,7 +2,8 @@ package dospring.model;
 
 import java.io.Serializable;
 
-import dospring.crypto.EncryptedStringConverter;
+import dospring.crypto.EncryptedString;
+import dospring.crypto.LazyEncryptedStringConverter;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -10,6 +11,7 @@ import lombok.*;
 /**
  * Payment order (Razorpay).
  * In production, consider storing only what is necessary and encrypting sensitive data at rest.
+ * The payment id and signature are encrypted and decrypted lazily ({@link EncryptedString}).
  */
 @Getter
 @Setter
@@ -32,14 +34,43 @@ public class Order extends Auditable implements Serializable {
   @JoinColumn(name = "user_id", foreignKey = @ForeignKey(name = "fk_order_user"))
   private User user;
 
-  @Convert(converter = EncryptedStringConverter.class)
+  @Convert(converter = LazyEncryptedStringConverter.class)
   @Column(name = "razorpay_payment_id", length = 512)
-  private String razorpayPaymentId;
+  private EncryptedString razorpayPaymentId;
 
   @Column(name = "razorpay_order_id", length = 120, nullable = false)
   private String razorpayOrderId;
 
-  @Convert(converter = EncryptedStringConverter.class)
+  @Convert(converter = LazyEncryptedStringConverter.class)
   @Column(name = "razorpay_signature", length = 512)
-  private String razorpaySignature;
+  private EncryptedString razorpaySignature;
+
+  public String getRazorpayPaymentId() {
+    return razorpayPaymentId == null ? null : razorpayPaymentId.value();
+  }
+
+  public void setRazorpayPaymentId(String razorpayPaymentId) {
+    this.razorpayPaymentId = EncryptedString.of(razorpayPaymentId);
+  }
+
+  public String getRazorpaySignature() {
+    return razorpaySignature == null ? null : razorpaySignature.value();
+  }
+
+  public void setRazorpaySignature(String razorpaySignature) {
+    this.razorpaySignature = EncryptedString.of(razorpaySignature);
+  }
+
+  public static class OrderBuilder {
+
+    public OrderBuilder razorpayPaymentId(String razorpayPaymentId) {
+      this.razorpayPaymentId = EncryptedString.of(razorpayPaymentId);
+      return this;
+    }
+
+    public OrderBuilder razorpaySignature(String razorpaySignature) {
+      this.razorpaySignature = EncryptedString.of(razorpaySignature);
+      return this;
+    }
+  }
 }
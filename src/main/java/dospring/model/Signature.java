@@ -1,8 +1,8 @@
 package dospring.model;
 
-import jakarta.xml.bind.DatatypeConverter;
-
+import java.nio.charset.StandardCharsets;
 import java.security.SignatureException;
+import java.util.HexFormat;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -14,37 +14,49 @@ import javax.crypto.spec.SecretKeySpec;
  */
 public class Signature {
     private static final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
+
+    /**
+     * One initialised Mac per thread, re-keyed only when the secret changes (in practice never:
+     * the webhook secret is fixed), so a signature costs one doFinal instead of a provider lookup
+     * plus key schedule.
+     */
+    private static final ThreadLocal<KeyedMac> MACS = new ThreadLocal<>();
+
     /**
      * Computes RFC 2104-compliant HMAC signature. * @param data The data to be
      * signed.
      * 
      * @param data
      *            The signing key.
-     * @return The Base64-encoded RFC 2104-compliant HMAC signature.
+     * @return The hex-encoded (lower case) RFC 2104-compliant HMAC signature.
      * @throws SignatureException
      *             when signature generation fails
      */
     public static String calculateRFC2104HMAC(String data, String secret) throws SignatureException {
-        String result;
         try {
- 
-            // get an hmac_sha256 key from the raw secret bytes
-            SecretKeySpec signingKey = new SecretKeySpec(secret.getBytes(), HMAC_SHA256_ALGORITHM);
- 
-            // get an hmac_sha256 Mac instance and initialize with the signing
-            // key
-            Mac mac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
-            mac.init(signingKey);
- 
+            Mac mac = mac(secret);
+
             // compute the hmac on input data bytes
-            byte[] rawHmac = mac.doFinal(data.getBytes());
- 
-            // base64-encode the hmac
-            result = DatatypeConverter.printHexBinary(rawHmac).toLowerCase();
- 
+            byte[] rawHmac = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(rawHmac);
         } catch (Exception e) {
             throw new SignatureException("Failed to generate HMAC : " + e.getMessage());
         }
-        return result;
+    }
+
+    private static Mac mac(String secret) throws Exception {
+        KeyedMac cached = MACS.get();
+        if (cached != null && cached.secret.equals(secret)) {
+            return cached.mac;
+        }
+        // get an hmac_sha256 Mac instance and initialize with the signing key
+        Mac mac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM));
+        MACS.set(new KeyedMac(secret, mac));
+        return mac;
+    }
+
+    private record KeyedMac(String secret, Mac mac) {
     }
 }
@@ -5,9 +5,11 @@ import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
-import dospring.crypto.EncryptedStringConverter;
+import dospring.crypto.BlindIndex;
+import dospring.crypto.EncryptedString;
+import dospring.crypto.LazyEncryptedStringConverter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
@@ -18,6 +20,9 @@ import lombok.*;
  * Security hardening:
  * - failedLoginAttempts + lockUntil for brute-force mitigation
  * - passwordChangedAt for future policies (e.g., rotate credentials)
+ * - tokensValidAfter: revocation watermark, tokens issued at or before it are rejected
+ * - email is encrypted with a random IV; lookups and uniqueness use the emailBidx blind index
+ * - email is decrypted lazily ({@link EncryptedString}): loading a User does no AES work
  */
 @Getter
 @Setter
@@ -27,7 +32,7 @@ import lombok.*;
 @Entity
 @Table(name = "users", uniqueConstraints = {
     @UniqueConstraint(name = "uk_users_username", columnNames = "username"),
-    @UniqueConstraint(name = "uk_users_email", columnNames = "email")
+    @UniqueConstraint(name = "uk_users_email_bidx", columnNames = "email_bidx")
 })
 public class User extends Auditable implements Serializable {
 
@@ -42,12 +47,16 @@ public class User extends Auditable implements Serializable {
   @Column(nullable = false, length = 50)
   private String username;
 
-  @NotBlank
-  @Size(max = 120)
-  @Email
-  @Convert(converter = EncryptedStringConverter.class)
+  /** Read and assigned as a plain String through {@link #getEmail()} and {@link #setEmail}. */
+  @Convert(converter = LazyEncryptedStringConverter.class)
   @Column(nullable = false, length = 512)
-  private String email;
+  private EncryptedString email;
+
+  /**
+   * HMAC blind index of the normalized email ({@link BlindIndex}), recomputed on every write.
+   */
+  @Column(name = "email_bidx", length = 64)
+  private String emailBidx;
 
   @NotBlank
   @Size(max = 200)
@@ -76,6 +85,13 @@ public class User extends Auditable implements Serializable {
   @Column(name = "last_login_at")
   private Instant lastLoginAt;
 
+  /**
+   * "Revoke everything" watermark: refresh tokens created and access tokens issued before this
+   * instant are invalid. Moving it is a single-row write, whatever the number of sessions.
+   */
+  @Column(name = "tokens_valid_after")
+  private Instant tokensValidAfter;
+
   @Column(nullable = false)
   @Builder.Default
   private boolean enabled = true;
@@ -83,4 +99,45 @@ public class User extends Auditable implements Serializable {
   public boolean isLockedNow(Instant now) {
     return lockUntil != null && lockUntil.isAfter(now);
   }
+
+  /**
+   * The email, decrypted on first access. Not constrained here (validated on input, see
+   * {@code SignUpRequest}): pre-update validation would otherwise decrypt it on every flush.
+   */
+  public String getEmail() {
+    return email == null ? null : email.value();
+  }
+
+  public void setEmail(String email) {
+    this.email = EncryptedString.of(email);
+  }
+
+  /**
+   * The email as stored, for copying without decrypting it.
+   */
+  @JsonIgnore
+  public EncryptedString getEncryptedEmail() {
+    return email;
+  }
+
+  /**
+   * Recomputed only when the email was assigned: a loaded, untouched email is not decrypted.
+   */
+  @PrePersist
+  @PreUpdate
+  void updateEmailBidx() {
+    if (email == null) {
+      this.emailBidx = null;
+    } else if (!email.isLoaded() || emailBidx == null) {
+      this.emailBidx = BlindIndex.email(email.value());
+    }
+  }
+
+  public static class UserBuilder {
+
+    public UserBuilder email(String email) {
+      this.email = EncryptedString.of(email);
+      return this;
+    }
+  }
 }
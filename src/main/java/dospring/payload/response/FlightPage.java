@@ -0,0 +1,11 @@
+package dospring.payload.response;
+
+import java.util.List;
+
+/**
+ * One page of flight search results, in the requested order.
+ *
+ * @param nextCursor opaque keyset cursor for the following page, null on the last page
+ */
+public record FlightPage(List<FlightResponse> items, String nextCursor) {
+}
@@ -0,0 +1,15 @@
+package dospring.payload.response;
+
+import java.time.Instant;
+
+/**
+ * One flight of a search result (constructor-expression projection, no entity hydration).
+ */
+public record FlightResponse(Long id,
+                             String departureLocation,
+                             String arrivalLocation,
+                             Instant departureAt,
+                             Instant arrivalAt,
+                             Integer availableSeats,
+                             Double price) {
+}
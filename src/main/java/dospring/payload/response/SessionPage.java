@@ -0,0 +1,11 @@
+package dospring.payload.response;
+
+import java.util.List;
+
+/**
+ * One page of active sessions, most recently used first.
+ *
+ * @param nextCursor opaque keyset cursor for the following page, null on the last page
+ */
+public record SessionPage(List<SessionInfoResponse> items, String nextCursor) {
+}
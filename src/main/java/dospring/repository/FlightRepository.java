@@ -0,0 +1,60 @@
+package dospring.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import dospring.model.Flight;
+import dospring.payload.response.FlightResponse;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * FlightRepository.
+ *
+ * <p>Search queries select only the listed columns and walk the V9 route index
+ * {@code (departure_location, arrival_location, departure_at, id)}; each order has a first-page query
+ * and a keyset "after" query, so page N costs the same as page one.
+ */
+public interface FlightRepository extends JpaRepository<Flight, Long> {
+
+  String SEARCH_SELECT = "select new dospring.payload.response.FlightResponse("
+      + "f.id, f.departureLocation, f.arrivalLocation, f.departureAt, f.arrivalAt, f.availableSeats, f.price) "
+      + "from Flight f where f.departureLocation = :from and f.arrivalLocation = :to "
+      + "and f.departureAt >= :start and f.departureAt < :end and f.availableSeats >= :seats ";
+
+  @Query(SEARCH_SELECT + "order by f.departureAt, f.id")
+  List<FlightResponse> searchByDeparture(@Param("from") String from, @Param("to") String to,
+                                         @Param("start") Instant start, @Param("end") Instant end,
+                                         @Param("seats") int seats, Limit limit);
+
+  /**
+   * Next page after the keyset {@code (departureAt, id)} of the previous page's last row.
+   */
+  @Query(SEARCH_SELECT
+      + "and (f.departureAt > :departureAt or (f.departureAt = :departureAt and f.id > :id)) "
+      + "order by f.departureAt, f.id")
+  List<FlightResponse> searchByDepartureAfter(@Param("from") String from, @Param("to") String to,
+                                              @Param("start") Instant start, @Param("end") Instant end,
+                                              @Param("seats") int seats,
+                                              @Param("departureAt") Instant departureAt, @Param("id") Long id,
+                                              Limit limit);
+
+  @Query(SEARCH_SELECT + "and f.price is not null order by f.price, f.id")
+  List<FlightResponse> searchByPrice(@Param("from") String from, @Param("to") String to,
+                                     @Param("start") Instant start, @Param("end") Instant end,
+                                     @Param("seats") int seats, Limit limit);
+
+  /**
+   * Next page after the keyset {@code (price, id)} of the previous page's last row.
+   */
+  @Query(SEARCH_SELECT
+      + "and f.price is not null and (f.price > :price or (f.price = :price and f.id > :id)) "
+      + "order by f.price, f.id")
+  List<FlightResponse> searchByPriceAfter(@Param("from") String from, @Param("to") String to,
+                                          @Param("start") Instant start, @Param("end") Instant end,
+                                          @Param("seats") int seats,
+                                          @Param("price") Double price, @Param("id") Long id,
+                                          Limit limit);
+}
@@ -3,7 +3,10 @@ package dospring.repository;
 import java.util.List;
 
 import dospring.model.PasswordHistory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 
 
@@ -13,5 +16,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * <p>Enterprise V4+ documentation block.
  */
 public interface PasswordHistoryRepository extends JpaRepository<PasswordHistory, Long> {
-  List<PasswordHistory> findTop5ByUserIdOrderByCreatedAtDesc(Long userId);
+
+  /**
+   * Newest-first password hashes of a user, as many as {@code limit} ({@code app.auth.password.history}).
+   */
+  @Query("select ph.passwordHash from PasswordHistory ph where ph.user.id = :userId "
+      + "order by ph.createdAt desc, ph.id desc")
+  List<String> findRecentHashes(@Param("userId") Long userId, Limit limit);
 }
@@ -6,7 +6,11 @@ import java.util.Optional;
 import java.time.Instant;
 
 import dospring.model.RefreshToken;
+import dospring.payload.response.SessionInfoResponse;
+import dospring.service.StoredRefreshToken;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -18,13 +22,59 @@ import org.springframework.data.repository.query.Param;
  * <p>Enterprise V4+ documentation block.
  */
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+  String SESSION_SELECT = "select new dospring.payload.response.SessionInfoResponse("
+      + "rt.id, rt.deviceId, rt.ipAddress, rt.userAgent, rt.createdAt, rt.lastUsedAt, rt.expiresAt) "
+      + "from RefreshToken rt join rt.user u where u.id = :userId and rt.revokedAt is null "
+      + "and rt.expiresAt > :now and (u.tokensValidAfter is null or rt.createdAt > u.tokensValidAfter) ";
+
   Optional<RefreshToken> findByTokenHash(String tokenHash);
-  List<RefreshToken> findAllByUserId(Long userId);
-  List<RefreshToken> findAllByUserIdAndDeviceId(Long userId, String deviceId);
 
   /**
-   * Lists non-revoked, non-expired refresh tokens (active sessions).
+   * First page of active sessions (non-revoked, non-expired, created after the user's revocation
+   * watermark), most recently used first. Selects only the listed columns (V5 covering index).
+   */
+  @Query(SESSION_SELECT + "order by rt.lastUsedAt desc, rt.id desc")
+  List<SessionInfoResponse> findActiveSessions(@Param("userId") Long userId, @Param("now") Instant now,
+                                               Limit limit);
+
+  /**
+   * Next page after the keyset {@code (lastUsedAt, id)} of the previous page's last row.
+   */
+  @Query(SESSION_SELECT
+      + "and (rt.lastUsedAt < :lastUsedAt or (rt.lastUsedAt = :lastUsedAt and rt.id < :id)) "
+      + "order by rt.lastUsedAt desc, rt.id desc")
+  List<SessionInfoResponse> findActiveSessionsAfter(@Param("userId") Long userId, @Param("now") Instant now,
+                                                    @Param("lastUsedAt") Instant lastUsedAt, @Param("id") Long id,
+                                                    Limit limit);
+
+  /**
+   * Loads a token with its owner's id/username only (no User entity, no roles join).
+   */
+  @Query("select new dospring.service.StoredRefreshToken(rt.id, rt.tokenHash, u.id, u.username, rt.deviceId, "
+      + "rt.userAgent, rt.ipAddress, rt.createdAt, rt.expiresAt, rt.revokedAt) "
+      + "from RefreshToken rt join rt.user u where rt.tokenHash = :tokenHash")
+  Optional<StoredRefreshToken> findStoredByTokenHash(@Param("tokenHash") String tokenHash);
+
+  /**
+   * Revokes a token being rotated; returns 0 if it was already revoked.
    */
-  @Query("select rt from RefreshToken rt where rt.user.id = :userId and rt.revokedAt is null and rt.expiresAt > :now")
-  List<RefreshToken> findActiveSessions(@Param("userId") Long userId, @Param("now") Instant now);
+  @Modifying
+  @Query("update RefreshToken rt set rt.revokedAt = :now, rt.lastUsedAt = :now "
+      + "where rt.tokenHash = :tokenHash and rt.revokedAt is null")
+  int revokeForRotation(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
+
+  @Modifying
+  @Query("update RefreshToken rt set rt.revokedAt = :now where rt.tokenHash = :tokenHash and rt.revokedAt is null")
+  int revokeByTokenHash(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
+
+  @Modifying
+  @Query("update RefreshToken rt set rt.revokedAt = :now where rt.user.id = :userId and rt.revokedAt is null")
+  int revokeAllByUserId(@Param("userId") Long userId, @Param("now") Instant now);
+
+  @Modifying
+  @Query("update RefreshToken rt set rt.revokedAt = :now "
+      + "where rt.user.id = :userId and rt.deviceId = :deviceId and rt.revokedAt is null")
+  int revokeAllByUserIdAndDeviceId(@Param("userId") Long userId, @Param("deviceId") String deviceId,
+                                   @Param("now") Instant now);
 }
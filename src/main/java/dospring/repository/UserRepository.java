@@ -1,9 +1,14 @@
 package dospring.repository;
 
+import java.time.Instant;
 import java.util.Optional;
 
+import dospring.crypto.BlindIndex;
 import dospring.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 
 /**
@@ -14,5 +19,49 @@ import org.springframework.data.jpa.repository.JpaRepository;
 public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByUsername(String username);
   Boolean existsByUsername(String username);
-  Boolean existsByEmail(String email);
+
+  /**
+   * Email lookups go through the blind index: {@code email} itself is encrypted with a random IV and
+   * can never match in SQL.
+   */
+  boolean existsByEmailBidx(String emailBidx);
+
+  Optional<User> findByEmailBidx(String emailBidx);
+
+  default boolean existsByEmail(String email) {
+    return existsByEmailBidx(BlindIndex.email(email));
+  }
+
+  default Optional<User> findByEmail(String email) {
+    return findByEmailBidx(BlindIndex.email(email));
+  }
+
+  /**
+   * Resets brute-force counters in one UPDATE (no entity load/merge). {@code lastLoginAt} is written
+   * behind, see {@code WriteBehindConfig}.
+   */
+  @Modifying
+  @Query("update User u set u.failedLoginAttempts = 0, u.lockUntil = null where u.id = :id")
+  int clearLoginFailures(@Param("id") Long id);
+
+  /**
+   * Stores the failed-attempt counter and (optionally) the lock deadline in one UPDATE.
+   */
+  @Modifying
+  @Query("update User u set u.failedLoginAttempts = :attempts, u.lockUntil = :lockUntil where u.id = :id")
+  int recordLoginFailure(@Param("id") Long id, @Param("attempts") int attempts,
+                         @Param("lockUntil") Instant lockUntil);
+
+  /**
+   * Moves the revocation watermark: every token issued up to {@code now} becomes invalid (one row).
+   */
+  @Modifying
+  @Query("update User u set u.tokensValidAfter = :now where u.id = :id")
+  int revokeTokensIssuedBefore(@Param("id") Long id, @Param("now") Instant now);
+
+  /**
+   * The revocation watermark alone, read from the row rather than a cached principal; empty when unset.
+   */
+  @Query("select u.tokensValidAfter from User u where u.id = :id")
+  Optional<Instant> findTokensValidAfter(@Param("id") Long id);
 }
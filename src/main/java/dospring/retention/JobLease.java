@@ -0,0 +1,48 @@
+package dospring.retention;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Database-backed lease on a named background job ({@code job_leases} table).
+ *
+ * <p>Acquiring is a single upsert that only wins when the lease is free, expired, or already ours,
+ * so at most one instance holds a given job at any time. Holders renew between units of work; a
+ * crashed holder is replaced once its lease expires.
+ */
+@Component
+public class JobLease {
+
+  private static final String ACQUIRE = """
+      INSERT INTO job_leases (name, owner, lease_until) VALUES (?, ?, ?)
+      ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, lease_until = EXCLUDED.lease_until
+      WHERE job_leases.lease_until < ? OR job_leases.owner = EXCLUDED.owner
+      """;
+
+  private static final String RELEASE = "UPDATE job_leases SET lease_until = ? WHERE name = ? AND owner = ?";
+
+  private final JdbcTemplate jdbc;
+  private final String owner = UUID.randomUUID().toString();
+
+  public JobLease(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  /**
+   * Acquires or renews the lease on {@code job} until {@code now + leaseMillis}.
+   *
+   * @return true if this instance holds the lease
+   */
+  public boolean tryAcquire(String job, long leaseMillis) {
+    Instant now = Instant.now();
+    return jdbc.update(ACQUIRE, job, owner, Timestamp.from(now.plusMillis(leaseMillis)), Timestamp.from(now)) == 1;
+  }
+
+  public void release(String job) {
+    jdbc.update(RELEASE, Timestamp.from(Instant.now()), job, owner);
+  }
+}
@@ -0,0 +1,243 @@
+package dospring.retention;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled purge of dead rows that nothing else ever deletes.
+ *
+ * <ul>
+ *   <li>{@code refresh_tokens}: rows expired, or revoked, for longer than the grace period. Rotation
+ *   inserts a row per refresh, so without this the table and its hash index grow forever.</li>
+ *   <li>{@code password_history}: everything beyond the newest {@code app.auth.password.history} hashes
+ *   per user, the only ones the history check reads.</li>
+ * </ul>
+ *
+ * <p>Work is done in bounded chunks, each its own short auto-committed statement, walked in keyset
+ * order on the V4 indexes, with a pause between chunks and a per-run chunk budget so a large backlog
+ * drains over several runs instead of one long lock-holding transaction. A {@link JobLease} keeps the
+ * job on a single instance; {@code FOR UPDATE SKIP LOCKED} makes even an overlapping run harmless.
+ * A token purge goes on until a chunk deletes nothing (or the budget runs out).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.retention.enabled", havingValue = "true", matchIfMissing = true)
+public class RetentionJob {
+
+  static final String JOB = "retention";
+
+  /** %1$s is a fixed column name (expires_at / revoked_at), never user input. */
+  private static final String PURGE_TOKENS = """
+      WITH doomed AS (
+        SELECT id FROM refresh_tokens
+        WHERE %1$s < ? AND (%1$s, id) > (?, ?)
+        ORDER BY %1$s, id
+        LIMIT ?
+        FOR UPDATE SKIP LOCKED)
+      DELETE FROM refresh_tokens rt USING doomed WHERE rt.id = doomed.id
+      RETURNING rt.%1$s, rt.id
+      """;
+
+  private static final String NEXT_HISTORY_USERS =
+      "SELECT DISTINCT user_id FROM password_history WHERE user_id > ? ORDER BY user_id LIMIT ?";
+
+  private static final String PURGE_HISTORY = """
+      DELETE FROM password_history WHERE id IN (
+        SELECT id FROM (
+          SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY created_at DESC, id DESC) AS rn
+          FROM password_history WHERE user_id BETWEEN ? AND ?) ranked
+        WHERE rn > ?)
+      """;
+
+  private final JdbcTemplate jdbc;
+  private final JobLease lease;
+  private final long leaseMillis;
+  private final int chunkSize;
+  private final int historyUsersPerChunk;
+  private final int maxChunksPerRun;
+  private final long pauseMillis;
+  private final long tokenGraceSeconds;
+  private final int historyKeep;
+
+  private final Counter expiredTokensDeleted;
+  private final Counter revokedTokensDeleted;
+  private final Counter historyDeleted;
+  private final Counter chunks;
+  private final Timer runTimer;
+
+  public RetentionJob(JdbcTemplate jdbc,
+                      JobLease lease,
+                      ObjectProvider<MeterRegistry> meterRegistry,
+                      @Value("${app.retention.lease-ms:600000}") long leaseMillis,
+                      @Value("${app.retention.chunk-size:1000}") int chunkSize,
+                      @Value("${app.retention.password-history.users-per-chunk:500}") int historyUsersPerChunk,
+                      @Value("${app.retention.max-chunks-per-run:500}") int maxChunksPerRun,
+                      @Value("${app.retention.pause-ms:50}") long pauseMillis,
+                      @Value("${app.retention.refresh-tokens.grace-seconds:86400}") long tokenGraceSeconds,
+                      @Value("${app.auth.password.history:5}") int pwdHistory) {
+    this.jdbc = jdbc;
+    this.lease = lease;
+    this.leaseMillis = leaseMillis;
+    this.chunkSize = chunkSize;
+    this.historyUsersPerChunk = historyUsersPerChunk;
+    this.maxChunksPerRun = maxChunksPerRun;
+    this.pauseMillis = pauseMillis;
+    this.tokenGraceSeconds = tokenGraceSeconds;
+    // The history check reads the newest pwdHistory rows; always keep at least the current one.
+    this.historyKeep = Math.max(pwdHistory, 1);
+
+    MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    this.expiredTokensDeleted = deletedCounter(registry, "refresh_tokens", "expired");
+    this.revokedTokensDeleted = deletedCounter(registry, "refresh_tokens", "revoked");
+    this.historyDeleted = deletedCounter(registry, "password_history", "superseded");
+    this.chunks = Counter.builder("retention.chunks").register(registry);
+    this.runTimer = Timer.builder("retention.run").register(registry);
+  }
+
+  @Scheduled(initialDelayString = "${app.retention.initial-delay-ms:60000}",
+      fixedDelayString = "${app.retention.interval-ms:3600000}")
+  public void run() {
+    if (!lease.tryAcquire(JOB, leaseMillis)) {
+      log.debug("Retention: lease held by another instance, skipping");
+      return;
+    }
+    Budget budget = new Budget(maxChunksPerRun);
+    try {
+      runTimer.record(() -> {
+        Instant cutoff = Instant.now().minusSeconds(tokenGraceSeconds);
+        long expired = purgeTokens("expires_at", cutoff, expiredTokensDeleted, budget);
+        long revoked = purgeTokens("revoked_at", cutoff, revokedTokensDeleted, budget);
+        long history = purgePasswordHistory(budget);
+        log.info("Retention: deleted {} expired and {} revoked refresh tokens, {} password history rows in {} chunks",
+            expired, revoked, history, budget.used);
+      });
+    } finally {
+      lease.release(JOB);
+    }
+  }
+
+  private long purgeTokens(String column, Instant cutoff, Counter counter, Budget budget) {
+    String sql = PURGE_TOKENS.formatted(column);
+    Timestamp cutoffTs = Timestamp.from(cutoff);
+    Timestamp lastTs = Timestamp.from(Instant.EPOCH);
+    long lastId = 0L;
+    long total = 0L;
+
+    while (budget.take()) {
+      List<Object[]> deleted = jdbc.query(sql,
+          (rs, i) -> new Object[] {rs.getTimestamp(1), rs.getLong(2)},
+          cutoffTs, lastTs, lastId, chunkSize);
+      counter.increment(deleted.size());
+      total += deleted.size();
+      // A short chunk is not the end: SKIP LOCKED may have passed over rows another run holds.
+      if (deleted.isEmpty()) {
+        break;
+      }
+      // RETURNING is unordered: advance the keyset cursor to the largest (timestamp, id) deleted.
+      for (Object[] row : deleted) {
+        Timestamp ts = (Timestamp) row[0];
+        long id = (Long) row[1];
+        int cmp = ts.compareTo(lastTs);
+        if (cmp > 0 || (cmp == 0 && id > lastId)) {
+          lastTs = ts;
+          lastId = id;
+        }
+      }
+      if (!pause(budget)) {
+        break;
+      }
+    }
+    return total;
+  }
+
+  private long purgePasswordHistory(Budget budget) {
+    long lastUserId = 0L;
+    long total = 0L;
+
+    while (budget.take()) {
+      List<Long> userIds = jdbc.queryForList(NEXT_HISTORY_USERS, Long.class, lastUserId, historyUsersPerChunk);
+      if (userIds.isEmpty()) {
+        break;
+      }
+      long from = userIds.get(0);
+      long to = userIds.get(userIds.size() - 1);
+      int deleted = jdbc.update(PURGE_HISTORY, from, to, historyKeep);
+      historyDeleted.increment(deleted);
+      total += deleted;
+      if (userIds.size() < historyUsersPerChunk) {
+        break;
+      }
+      lastUserId = to;
+      if (!pause(budget)) {
+        break;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Throttles between chunks and renews the lease; false ends the whole run (interrupted or lease lost).
+   */
+  private boolean pause(Budget budget) {
+    if (pauseMillis > 0) {
+      try {
+        Thread.sleep(pauseMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        budget.exhaust();
+        return false;
+      }
+    }
+    if (!lease.tryAcquire(JOB, leaseMillis)) {
+      log.warn("Retention: lease lost, stopping run");
+      budget.exhaust();
+      return false;
+    }
+    return true;
+  }
+
+  private static Counter deletedCounter(MeterRegistry registry, String table, String reason) {
+    return Counter.builder("retention.deleted")
+        .tag("table", table)
+        .tag("reason", reason)
+        .register(registry);
+  }
+
+  /** Chunk budget shared by all purges of one run. */
+  private final class Budget {
+    private final int max;
+    private int used;
+    private boolean stopped;
+
+    Budget(int max) {
+      this.max = max;
+    }
+
+    boolean take() {
+      if (stopped || used >= max) {
+        return false;
+      }
+      used++;
+      chunks.increment();
+      return true;
+    }
+
+    void exhaust() {
+      stopped = true;
+    }
+  }
+}
@@ -1,7 +1,12 @@
 package dospring.security;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
+import dospring.service.impl.UserDetailsImpl;
 import dospring.service.impl.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,15 +14,27 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
  * JWT Authentication filter: reads Authorization: Bearer <token>
+ *
+ * <p>Principal resolution ({@code app.auth.principal-source}):
+ * <ul>
+ *   <li>{@code claims} (default): authorities come from the token's {@code roles} claim and the
+ *   account snapshot from {@link UserPrincipalCache}, so no SQL runs on a cache hit.</li>
+ *   <li>{@code database}: the user and its roles are reloaded on every request.</li>
+ * </ul>
+ * In both modes a disabled or locked account gets no principal.
  */
 public class AuthTokenFilter extends OncePerRequestFilter {
 
@@ -27,6 +44,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private UserPrincipalCache principalCache;
+
+  @Value("${app.auth.principal-source:claims}")
+  private String principalSource;
+
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
@@ -35,10 +58,8 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
     if (header != null && header.startsWith("Bearer ")) {
       String token = header.substring(7);
-      if (jwtUtils.validateAccessToken(token)) {
-        String username = jwtUtils.getUsername(token);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
+      UserDetails userDetails = resolvePrincipal(token);
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -49,4 +70,52 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
     filterChain.doFilter(request, response);
   }
+
+  private UserDetails resolvePrincipal(String token) {
+    VerifiedToken verified = jwtUtils.verifyAccessToken(token).orElse(null);
+    if (verified == null) {
+      return null;
+    }
+
+    String username = verified.subject();
+    boolean claims = "claims".equalsIgnoreCase(principalSource);
+    UserDetailsImpl account;
+    try {
+      account = claims
+          ? principalCache.get(username)
+          : (UserDetailsImpl) userDetailsService.loadUserByUsername(username);
+    } catch (UsernameNotFoundException e) {
+      return null;
+    }
+    if (!usable(account, verified)) {
+      return null;
+    }
+    return claims ? account.withAuthorities(authorities(verified)) : account;
+  }
+
+  /**
+   * A disabled or locked account, or one whose sessions were revoked after the token was issued, gets no
+   * principal even while its access token is still unexpired.
+   */
+  private static boolean usable(UserDetailsImpl account, VerifiedToken verified) {
+    return account.isEnabled() && account.isAccountNonLocked() && !revokedByWatermark(account, verified);
+  }
+
+  /**
+   * JWT {@code iat} has second precision, so the watermark is compared at second precision too: an
+   * access token issued in the same second as a logout-all stays valid (it may be the re-login).
+   */
+  private static boolean revokedByWatermark(UserDetailsImpl account, VerifiedToken verified) {
+    Instant watermark = account.getTokensValidAfter();
+    return watermark != null && verified.issuedAt() != null
+        && verified.issuedAt().isBefore(watermark.truncatedTo(ChronoUnit.SECONDS));
+  }
+
+  private static List<GrantedAuthority> authorities(VerifiedToken verified) {
+    List<GrantedAuthority> out = new ArrayList<>(verified.roles().size());
+    for (String role : verified.roles()) {
+      out.add(new SimpleGrantedAuthority(role));
+    }
+    return out;
+  }
 }
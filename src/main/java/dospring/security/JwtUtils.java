@@ -1,14 +1,22 @@
 package dospring.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.security.Keys;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 import javax.crypto.SecretKey;
 
@@ -19,6 +27,10 @@ import org.springframework.stereotype.Component;
  * JWT helper (Access token only).
  *
  * Refresh tokens are handled via DB-backed opaque tokens (hashed) for revocation + rotation.
+ *
+ * <p>Verification uses one pre-built {@link JwtParser} (immutable and thread-safe). Successfully
+ * verified access tokens can be cached by SHA-256 digest for a short time
+ * ({@code app.jwt.verified-cache.*}); an entry never outlives the token's {@code exp}.
  */
 @Component
 public class JwtUtils {
@@ -26,10 +38,17 @@ public class JwtUtils {
   private final SecretKey key;
   private final String issuer;
   private final long accessTtlSeconds;
+  private final JwtParser parser;
+
+  /** Verified access tokens keyed by hex SHA-256 of the compact token; null when disabled. */
+  private final Cache<String, VerifiedToken> verifiedCache;
 
   public JwtUtils(@Value("${app.jwt.secret}") String secret,
                   @Value("${app.jwt.issuer}") String issuer,
-                  @Value("${app.jwt.access-ttl-seconds}") long accessTtlSeconds) {
+                  @Value("${app.jwt.access-ttl-seconds}") long accessTtlSeconds,
+                  @Value("${app.jwt.verified-cache.enabled:true}") boolean verifiedCacheEnabled,
+                  @Value("${app.jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize,
+                  @Value("${app.jwt.verified-cache.ttl-seconds:30}") long verifiedCacheTtlSeconds) {
 
     if (secret == null || secret.length() < 32) {
       throw new IllegalArgumentException("JWT_SECRET must be at least 32 characters.");
@@ -37,6 +56,13 @@ public class JwtUtils {
     this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
     this.issuer = issuer;
     this.accessTtlSeconds = accessTtlSeconds;
+    this.parser = Jwts.parser().verifyWith(key).build();
+    this.verifiedCache = verifiedCacheEnabled
+        ? Caffeine.newBuilder()
+            .maximumSize(verifiedCacheMaxSize)
+            .expireAfter(new ExpireAtTokenExp(Duration.ofSeconds(verifiedCacheTtlSeconds)))
+            .build()
+        : null;
   }
 
   public String generateAccessToken(String username, List<String> roles) {
@@ -55,19 +81,98 @@ public class JwtUtils {
   }
 
   public Claims parseClaims(String token) throws JwtException {
-    return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    return parser.parseSignedClaims(token).getPayload();
   }
 
-  public boolean validateAccessToken(String token) {
+  /**
+   * Verifies an access token once and returns its claims as an immutable {@link VerifiedToken}.
+   *
+   * @return empty if the signature, expiry or {@code typ} is invalid
+   */
+  public Optional<VerifiedToken> verifyAccessToken(String token) {
+    if (token == null || token.isEmpty()) {
+      return Optional.empty();
+    }
+
+    String digest = verifiedCache != null ? TokenDigests.sha256Hex(token) : null;
+    if (digest != null) {
+      VerifiedToken cached = verifiedCache.getIfPresent(digest);
+      if (cached != null && !cached.isExpired(Instant.now())) {
+        return Optional.of(cached);
+      }
+    }
+
+    VerifiedToken verified;
     try {
       Claims claims = parseClaims(token);
-      return "access".equals(claims.get("typ", String.class));
+      String typ = claims.get("typ", String.class);
+      if (!"access".equals(typ)) {
+        return Optional.empty();
+      }
+      verified = new VerifiedToken(
+          claims.getSubject(),
+          roles(claims),
+          claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+          claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+          typ);
     } catch (JwtException | IllegalArgumentException e) {
-      return false;
+      return Optional.empty();
+    }
+
+    if (digest != null) {
+      verifiedCache.put(digest, verified);
     }
+    return Optional.of(verified);
+  }
+
+  public boolean validateAccessToken(String token) {
+    return verifyAccessToken(token).isPresent();
   }
 
   public String getUsername(String token) {
     return parseClaims(token).getSubject();
   }
+
+  private static List<String> roles(Claims claims) {
+    Object raw = claims.get("roles");
+    if (!(raw instanceof List<?> list)) {
+      return List.of();
+    }
+    List<String> out = new ArrayList<>(list.size());
+    for (Object role : list) {
+      out.add(String.valueOf(role));
+    }
+    return out;
+  }
+
+  /**
+   * Expires a cached verification at the earlier of the configured TTL and the token's {@code exp}.
+   */
+  private static final class ExpireAtTokenExp implements Expiry<String, VerifiedToken> {
+
+    private final long maxTtlNanos;
+
+    ExpireAtTokenExp(Duration maxTtl) {
+      this.maxTtlNanos = maxTtl.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+      if (value.expiresAt() == null) {
+        return maxTtlNanos;
+      }
+      long untilExp = Duration.between(Instant.now(), value.expiresAt()).toNanos();
+      return Math.max(0, Math.min(maxTtlNanos, untilExp));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
 }
@@ -0,0 +1,35 @@
+package dospring.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * In-memory {@link LoginAttemptStore} (single instance, or fallback when Redis is unavailable).
+ *
+ * <p>Caffeine's map is striped, so concurrent failures on different accounts never contend and
+ * {@code merge} is atomic per key. The size bound keeps a spray of usernames from growing it without
+ * limit; each write restarts the entry's lock-window expiry.
+ */
+public class LocalLoginAttemptStore implements LoginAttemptStore {
+
+  private final Cache<Long, Integer> failures;
+
+  public LocalLoginAttemptStore(Duration window, long maxSize) {
+    this.failures = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(window)
+        .build();
+  }
+
+  @Override
+  public int recordFailure(Long userId) {
+    return failures.asMap().merge(userId, 1, Integer::sum);
+  }
+
+  @Override
+  public void reset(Long userId) {
+    failures.invalidate(userId);
+  }
+}
@@ -0,0 +1,23 @@
+package dospring.security;
+
+/**
+ * Failed-login counters kept outside the {@code users} row.
+ *
+ * <p>A bad password only bumps a counter here; the database is written when the lock engages
+ * (threshold reached) or clears (successful login after failures). Counters expire after the lock
+ * window without failures.
+ */
+public interface LoginAttemptStore {
+
+  /**
+   * Records one failed attempt for {@code userId}.
+   *
+   * @return failures within the current window, including this one
+   */
+  int recordFailure(Long userId);
+
+  /**
+   * Forgets the failures of {@code userId} (successful login, or lock engaged).
+   */
+  void reset(Long userId);
+}
@@ -0,0 +1,52 @@
+package dospring.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} that runs the delegate's expensive operations on the
+ * {@link PasswordHashingExecutor}.
+ *
+ * <p>Every caller (AuthService, DaoAuthenticationProvider) therefore shares the same bounded
+ * hashing capacity.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+  private final PasswordHashingExecutor executor;
+
+  public OffloadingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+    this.delegate = delegate;
+    this.executor = executor;
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return executor.execute(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  /**
+   * Whether {@code rawPassword} matches any of {@code encodedPasswords}: the comparisons run in
+   * parallel on the hashing pool and stop at the first match (password history check).
+   */
+  public boolean matchesAny(CharSequence rawPassword, List<String> encodedPasswords) {
+    List<Callable<Boolean>> tasks = new ArrayList<>(encodedPasswords.size());
+    for (String encoded : encodedPasswords) {
+      tasks.add(() -> delegate.matches(rawPassword, encoded));
+    }
+    return executor.anyTrue(tasks);
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+}
@@ -0,0 +1,238 @@
+package dospring.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dedicated, size-bounded executor for password hashing (BCrypt) work.
+ *
+ * <p>Why?
+ * <ul>
+ *   <li>BCrypt costs ~100 ms of CPU per call; running it on request threads inside a transaction
+ *   keeps a pooled DB connection idle for the whole hash.</li>
+ *   <li>A fixed pool caps hashing concurrency at the CPU count, and a bounded queue turns overload
+ *   into an immediate {@link PasswordHashingOverloadedException} (HTTP 503) rather than an ever
+ *   growing backlog.</li>
+ * </ul>
+ *
+ * <p>Metrics: {@code auth.hashing.queue.size}, {@code auth.hashing.active}, {@code auth.hashing.wait}
+ * (time spent queued), {@code auth.hashing.duration} and {@code auth.hashing.rejected}.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+  private final ThreadPoolExecutor executor;
+  private final long maxWaitMillis;
+  private final int maxFanOut;
+
+  private final Timer waitTimer;
+  private final Timer durationTimer;
+  private final Counter rejected;
+
+  public PasswordHashingExecutor(ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${app.auth.hashing.pool-size:0}") int poolSize,
+                                 @Value("${app.auth.hashing.queue-capacity:64}") int queueCapacity,
+                                 @Value("${app.auth.hashing.max-wait-ms:2000}") long maxWaitMillis,
+                                 @Value("${app.auth.hashing.max-fan-out:0}") int maxFanOut) {
+    int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    this.maxFanOut = maxFanOut > 0 ? Math.min(maxFanOut, threads) : threads;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    this.maxWaitMillis = maxWaitMillis;
+
+    MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    Gauge.builder("auth.hashing.queue.size", executor, e -> e.getQueue().size())
+        .description("Password hashing tasks waiting for a thread")
+        .register(registry);
+    Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Password hashing tasks currently running")
+        .register(registry);
+    this.waitTimer = Timer.builder("auth.hashing.wait")
+        .description("Time a password hashing task spent queued")
+        .publishPercentiles(0.5, 0.99)
+        .register(registry);
+    this.durationTimer = Timer.builder("auth.hashing.duration")
+        .description("Password hashing task execution time")
+        .publishPercentiles(0.5, 0.99)
+        .register(registry);
+    this.rejected = Counter.builder("auth.hashing.rejected")
+        .description("Password hashing tasks rejected or timed out (served as 503)")
+        .register(registry);
+  }
+
+  /**
+   * Runs {@code tasks} on the hashing pool, at most {@code app.auth.hashing.max-fan-out} at a time, and
+   * returns as soon as one of them returns true (remaining tasks are cancelled; queued ones never run).
+   *
+   * <p>The fan-out cap keeps one caller from occupying the whole pool. Each completion must arrive
+   * within {@code app.auth.hashing.max-wait-ms}.
+   *
+   * @throws PasswordHashingOverloadedException if the queue is full or a result is not ready in time
+   */
+  public boolean anyTrue(List<Callable<Boolean>> tasks) {
+    if (tasks.isEmpty()) {
+      return false;
+    }
+    BlockingQueue<Future<Boolean>> completion = new LinkedBlockingQueue<>();
+    List<FutureTask<Boolean>> futures = new ArrayList<>(tasks.size());
+    try {
+      int next = 0;
+      while (next < tasks.size() && futures.size() < maxFanOut) {
+        futures.add(submit(completion, tasks.get(next++)));
+      }
+      for (int done = 0; done < tasks.size(); done++) {
+        Future<Boolean> finished = completion.poll(maxWaitMillis, TimeUnit.MILLISECONDS);
+        if (finished == null) {
+          rejected.increment();
+          throw new PasswordHashingOverloadedException("Authentication service is busy. Retry later.", null);
+        }
+        if (Boolean.TRUE.equals(result(finished))) {
+          return true;
+        }
+        if (next < tasks.size()) {
+          futures.add(submit(completion, tasks.get(next++)));
+        }
+      }
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+    } finally {
+      for (FutureTask<Boolean> f : futures) {
+        cancel(f);
+      }
+    }
+  }
+
+  private FutureTask<Boolean> submit(BlockingQueue<Future<Boolean>> completion, Callable<Boolean> task) {
+    FutureTask<Boolean> future = new FutureTask<>(timed(task)) {
+      @Override
+      protected void done() {
+        completion.add(this);
+      }
+    };
+    try {
+      executor.execute(future);
+      return future;
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new PasswordHashingOverloadedException("Authentication service is busy. Retry later.", e);
+    }
+  }
+
+  /**
+   * Runs {@code task} on the hashing pool and waits for its result.
+   *
+   * @throws PasswordHashingOverloadedException if the queue is full or the result is not ready within
+   *                                            {@code app.auth.hashing.max-wait-ms}
+   */
+  public <T> T execute(Callable<T> task) {
+    Future<T> future;
+    try {
+      future = executor.submit(timed(task));
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new PasswordHashingOverloadedException("Authentication service is busy. Retry later.", e);
+    }
+
+    try {
+      return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      cancel(future);
+      rejected.increment();
+      throw new PasswordHashingOverloadedException("Authentication service is busy. Retry later.", e);
+    } catch (InterruptedException e) {
+      cancel(future);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+    } catch (ExecutionException e) {
+      throw unwrap(e);
+    }
+  }
+
+  /**
+   * Cancels a task and, if it was still queued, takes it out of the queue: a cancelled task would
+   * otherwise hold its slot (and get callers rejected) until a thread dequeues it.
+   */
+  private void cancel(Future<?> future) {
+    if (future.cancel(true) && future instanceof Runnable queued) {
+      executor.remove(queued);
+    }
+  }
+
+  private <T> Callable<T> timed(Callable<T> task) {
+    long enqueuedAt = System.nanoTime();
+    return () -> {
+      long startedAt = System.nanoTime();
+      waitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+      try {
+        return task.call();
+      } finally {
+        durationTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+      }
+    };
+  }
+
+  private static <T> T result(Future<T> done) {
+    try {
+      return done.get();
+    } catch (ExecutionException e) {
+      throw unwrap(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+    }
+  }
+
+  private static RuntimeException unwrap(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof RuntimeException re) {
+      return re;
+    }
+    if (cause instanceof Error err) {
+      throw err;
+    }
+    return new IllegalStateException("Password hashing failed", cause);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private static final class HashingThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger seq = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "pwd-hash-" + seq.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package dospring.security;
+
+/**
+ * Thrown when the password hashing executor cannot accept or finish work in time.
+ *
+ * <p>Mapped to HTTP 503 with {@code Retry-After} by the global exception handler, so login bursts
+ * fail fast instead of queueing without limit.
+ */
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public PasswordHashingOverloadedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,84 @@
+package dospring.security;
+
+import dospring.security.blocklist.BreachedPasswordFilter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Minimal password policy: length, no spaces, upper + lower + digit + special, small blocklist,
+ * and the breached-password corpus when {@link BreachedPasswordFilter} is configured.
+ *
+ * <p>Single pass over the characters and a case-insensitive in-place blocklist scan: no streams,
+ * no lower-cased copy of the password, no per-call list. See {@code PasswordPolicyBenchmark}.
+ */
+@Component
+public class PasswordPolicy {
+
+  /** Very small blocklist (extend in production). Entries must be lower case. */
+  private static final String[] COMMON = {"password", "12345678", "qwerty", "admin", "letmein"};
+
+  private final int minLength;
+  private final BreachedPasswordFilter breached;
+
+  public PasswordPolicy(int minLength) {
+    this(minLength, null);
+  }
+
+  @Autowired
+  public PasswordPolicy(@Value("${app.auth.password.min-length}") int minLength, BreachedPasswordFilter breached) {
+    this.minLength = minLength;
+    this.breached = breached;
+  }
+
+  /**
+   * @throws IllegalArgumentException describing the first rule the password breaks
+   */
+  public void validate(String password) {
+    if (password == null || password.length() < minLength) {
+      throw new IllegalArgumentException("Password must be at least " + minLength + " characters");
+    }
+
+    boolean upper = false;
+    boolean lower = false;
+    boolean digit = false;
+    boolean special = false;
+    for (int i = 0, n = password.length(); i < n; i++) {
+      char ch = password.charAt(i);
+      if (ch == ' ') {
+        throw new IllegalArgumentException("Password must not contain spaces");
+      }
+      if (Character.isUpperCase(ch)) {
+        upper = true;
+      } else if (Character.isLowerCase(ch)) {
+        lower = true;
+      } else if (Character.isDigit(ch)) {
+        digit = true;
+      } else if (!Character.isLetterOrDigit(ch)) {
+        special = true;
+      }
+    }
+    if (!(upper && lower && digit && special)) {
+      throw new IllegalArgumentException("Password must contain upper, lower, digit and special character");
+    }
+
+    if (containsCommon(password)) {
+      throw new IllegalArgumentException("Password too common");
+    }
+    if (breached != null && breached.mightContain(password)) {
+      throw new IllegalArgumentException("Password appears in a known data breach. Choose another one.");
+    }
+  }
+
+  private static boolean containsCommon(String password) {
+    for (String word : COMMON) {
+      for (int i = 0, last = password.length() - word.length(); i <= last; i++) {
+        if (password.regionMatches(true, i, word, 0, word.length())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,123 @@
+package dospring.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dospring.security.ratelimit.CircuitBreaker;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Redis-backed {@link LoginAttemptStore}: counters shared by every instance, so a stuffing run spread
+ * across nodes still trips the lock.
+ *
+ * <p>One {@code INCR} + {@code PEXPIRE} per failure in a single Lua round trip ({@code auth:fail:{userId}}).
+ * Each command has a short deadline ({@code app.auth.login-attempts.redis.timeout-ms}) on this store's own
+ * connection, and timeouts and errors feed a {@link CircuitBreaker}: while Redis is slow or down,
+ * counting falls back to the local store instead of holding up the login.
+ *
+ * <p>A successful login only deletes the counter of an account this instance saw fail within the
+ * window, so the common case (no failure) never calls Redis. Failures counted by other instances
+ * then expire with the window instead of being cleared, which errs on the strict side.
+ */
+@Slf4j
+public class RedisLoginAttemptStore implements LoginAttemptStore, AutoCloseable {
+
+  static final String KEY_PREFIX = "auth:fail:";
+
+  private static final String INCR = """
+      local n = redis.call('INCR', KEYS[1])
+      redis.call('PEXPIRE', KEYS[1], ARGV[1])
+      return n
+      """;
+
+  private final StatefulRedisConnection<String, String> connection;
+  private final RedisCommands<String, String> redis;
+  private final LoginAttemptStore fallback;
+  private final String windowMillis;
+  private final String incrSha;
+  private final CircuitBreaker breaker;
+  /** Accounts with a failure counted through this instance within the window. */
+  private final Cache<Long, Boolean> counted;
+
+  public RedisLoginAttemptStore(StatefulRedisConnection<String, String> connection, Duration window,
+                                LoginAttemptStore fallback, long maxTracked, Duration timeout,
+                                int failureThreshold, Duration openDuration) {
+    this.connection = connection;
+    this.connection.setTimeout(timeout);
+    this.redis = connection.sync();
+    this.fallback = fallback;
+    this.windowMillis = String.valueOf(window.toMillis());
+    this.incrSha = redis.digest(INCR);
+    this.breaker = new CircuitBreaker(failureThreshold, openDuration.toNanos());
+    this.counted = Caffeine.newBuilder()
+        .maximumSize(maxTracked)
+        .expireAfterWrite(window)
+        .build();
+  }
+
+  @Override
+  public int recordFailure(Long userId) {
+    counted.put(userId, Boolean.TRUE);
+    long now = System.nanoTime();
+    if (!breaker.tryAcquire(now)) {
+      return fallback.recordFailure(userId);
+    }
+    String[] keys = {KEY_PREFIX + userId};
+    try {
+      Long n;
+      try {
+        n = redis.evalsha(incrSha, ScriptOutputType.INTEGER, keys, windowMillis);
+      } catch (RedisNoScriptException e) {
+        n = redis.eval(INCR, ScriptOutputType.INTEGER, keys, windowMillis);
+      }
+      onSuccess();
+      return n.intValue();
+    } catch (RedisException e) {
+      onFailure(now, e, "counting locally");
+      return fallback.recordFailure(userId);
+    }
+  }
+
+  @Override
+  public void reset(Long userId) {
+    fallback.reset(userId);
+    if (counted.asMap().remove(userId) == null) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (!breaker.tryAcquire(now)) {
+      return;
+    }
+    try {
+      redis.del(KEY_PREFIX + userId);
+      onSuccess();
+    } catch (RedisException e) {
+      onFailure(now, e, "reset locally only");
+    }
+  }
+
+  private void onSuccess() {
+    if (breaker.onSuccess()) {
+      log.info("Login attempt counter: Redis reachable again, circuit closed");
+    }
+  }
+
+  private void onFailure(long now, RedisException e, String action) {
+    if (breaker.onFailure(now)) {
+      log.warn("Login attempt counter: Redis failing ({}), circuit open, {}", e.getMessage(), action);
+    } else {
+      log.debug("Login attempt counter: Redis call failed ({}), {}", e.getMessage(), action);
+    }
+  }
+
+  @Override
+  public void close() {
+    connection.close();
+  }
+}
@@ -0,0 +1,42 @@
+package dospring.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 hex digests of opaque tokens (refresh token hashes, verified-token cache keys).
+ *
+ * <p>Runs on every refresh / authenticated request, so it reuses one {@link MessageDigest} per thread
+ * ({@code digest()} resets it) and encodes hex straight into a {@code char[64]} instead of going
+ * through {@code String.format} per byte. See {@code TokenDigestsBenchmark}.
+ */
+public final class TokenDigests {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  });
+
+  private TokenDigests() {
+  }
+
+  /**
+   * Lower-case hex SHA-256 of the UTF-8 bytes of {@code value} (64 chars).
+   */
+  public static String sha256Hex(String value) {
+    byte[] digest = SHA256.get().digest(value.getBytes(StandardCharsets.UTF_8));
+    char[] out = new char[digest.length * 2];
+    for (int i = 0; i < digest.length; i++) {
+      int b = digest[i] & 0xff;
+      out[i * 2] = HEX[b >>> 4];
+      out[i * 2 + 1] = HEX[b & 0x0f];
+    }
+    return new String(out);
+  }
+}
@@ -0,0 +1,177 @@
+package dospring.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import dospring.service.impl.UserDetailsImpl;
+import dospring.service.impl.UserDetailsServiceImpl;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded cache of account snapshots used to resolve the principal of an access token.
+ *
+ * <p>Entries are loaded once from the database (id, email, enabled, lock state) and kept without the
+ * password hash. Authorities are taken from the verified token by {@link AuthTokenFilter}, so the
+ * steady-state request path does no SQL.
+ *
+ * <p>Entries must be invalidated whenever the account state they mirror changes
+ * (password change, logout-all, lock/unlock, disable). With {@code app.redis.enabled} every
+ * invalidation is also published on {@value #CHANNEL} once committed and applied by the other
+ * instances; without Redis they keep their entry until the TTL expires. The TTL also bounds staleness
+ * for writes made outside {@code AuthService}.
+ */
+@Slf4j
+@Component
+public class UserPrincipalCache implements AutoCloseable {
+
+  static final String CHANNEL = "auth:principal-invalidate";
+
+  private static final String BY_USERNAME = "u:";
+  private static final String BY_ID = "i:";
+
+  private final UserDetailsServiceImpl userDetailsService;
+  private final Cache<String, UserDetailsImpl> cache;
+  /** Null without Redis. */
+  private final StatefulRedisConnection<String, String> publisher;
+  private final StatefulRedisPubSubConnection<String, String> subscriber;
+
+  public UserPrincipalCache(UserDetailsServiceImpl userDetailsService,
+                            ObjectProvider<MeterRegistry> meterRegistry,
+                            ObjectProvider<RedisClient> redisClient,
+                            @Value("${app.auth.principal-cache.max-size:10000}") long maxSize,
+                            @Value("${app.auth.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+    this.userDetailsService = userDetailsService;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .recordStats()
+        .build();
+
+    meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "auth.principals"));
+
+    RedisClient client = redisClient.getIfAvailable();
+    if (client == null) {
+      this.publisher = null;
+      this.subscriber = null;
+      return;
+    }
+    this.publisher = client.connect();
+    this.subscriber = client.connectPubSub();
+    subscriber.addListener(new RedisPubSubAdapter<>() {
+      @Override
+      public void message(String channel, String message) {
+        applyRemote(message);
+      }
+    });
+    subscriber.sync().subscribe(CHANNEL);
+  }
+
+  /**
+   * Returns the account snapshot for {@code username}, hitting the database only on a miss.
+   *
+   * @throws UsernameNotFoundException if the user no longer exists
+   */
+  public UserDetailsImpl get(String username) {
+    return cache.get(username, this::load);
+  }
+
+  public void invalidate(String username) {
+    if (username != null) {
+      cache.invalidate(username);
+      afterCommit(() -> cache.invalidate(username));
+      publishAfterCommit(BY_USERNAME + username);
+    }
+  }
+
+  /**
+   * Invalidates by user id for callers that only know the id (e.g. logout-all).
+   *
+   * <p>Scans the bounded cache; this is a rare administrative path, never the request path.
+   */
+  public void invalidateUserId(Long userId) {
+    if (userId != null) {
+      removeUserId(userId);
+      afterCommit(() -> removeUserId(userId));
+      publishAfterCommit(BY_ID + userId);
+    }
+  }
+
+  private void removeUserId(Long userId) {
+    cache.asMap().values().removeIf(u -> userId.equals(u.getId()));
+  }
+
+  /**
+   * Tells the other instances, once committed (they would otherwise reload the old row). Best effort:
+   * a lost message leaves their entry until the TTL.
+   */
+  private void publishAfterCommit(String message) {
+    if (publisher == null) {
+      return;
+    }
+    Runnable publish = () -> publisher.async().publish(CHANNEL, message).exceptionally(e -> {
+      log.warn("Principal cache: invalidation not published: {}", e.toString());
+      return null;
+    });
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      afterCommit(publish);
+    } else {
+      publish.run();
+    }
+  }
+
+  /** Our own messages come back too; invalidating twice is harmless. */
+  private void applyRemote(String message) {
+    if (message.startsWith(BY_USERNAME)) {
+      cache.invalidate(message.substring(BY_USERNAME.length()));
+    } else if (message.startsWith(BY_ID)) {
+      try {
+        removeUserId(Long.valueOf(message.substring(BY_ID.length())));
+      } catch (NumberFormatException e) {
+        log.debug("Principal cache: ignoring malformed invalidation '{}'", message);
+      }
+    }
+  }
+
+  /**
+   * Repeats an invalidation once the surrounding transaction commits, so a concurrent request cannot
+   * re-cache the pre-commit state.
+   */
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    }
+  }
+
+  @Override
+  public void close() {
+    if (subscriber != null) {
+      subscriber.close();
+      publisher.close();
+    }
+  }
+
+  private UserDetailsImpl load(String username) {
+    UserDetailsImpl loaded = (UserDetailsImpl) userDetailsService.loadUserByUsername(username);
+    return loaded.withAuthorities(loaded.getAuthorities());
+  }
+}
@@ -0,0 +1,27 @@
+package dospring.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable result of a successful access-token verification.
+ *
+ * <p>Produced by {@link JwtUtils#verifyAccessToken(String)} in a single signature check + parse, so
+ * callers never need to re-parse the token to read its claims.
+ *
+ * @param subject   username ({@code sub})
+ * @param roles     role names from the {@code roles} claim (never null)
+ * @param issuedAt  {@code iat}, may be null for tokens minted without it
+ * @param expiresAt {@code exp}
+ * @param type      {@code typ} claim (always {@code access} for verified access tokens)
+ */
+public record VerifiedToken(String subject, List<String> roles, Instant issuedAt, Instant expiresAt, String type) {
+
+  public VerifiedToken {
+    roles = roles == null ? List.of() : List.copyOf(roles);
+  }
+
+  public boolean isExpired(Instant now) {
+    return expiresAt != null && !expiresAt.isAfter(now);
+  }
+}
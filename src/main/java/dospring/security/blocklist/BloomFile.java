@@ -0,0 +1,102 @@
+package dospring.security.blocklist;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * On-disk layout of the breached-password Bloom filter, shared by {@link BloomFilterBuilder} and
+ * {@link BreachedPasswordFilter}.
+ *
+ * <pre>
+ * offset  size  field (big-endian)
+ *      0     4  magic "DSBF"
+ *      4     4  version (1)
+ *      8     4  k, number of probes
+ *     12     4  reserved
+ *     16     8  m, number of bits (multiple of 64)
+ *     24     8  n, entries inserted
+ *     32   m/8  bit array, bit i = byte (i >>> 3), mask 1 << (i & 7)
+ * </pre>
+ *
+ * <p>Entries are SHA-1 digests of the UTF-8 password (the format of the usual breach corpora), and
+ * the k probes are derived by double hashing from the first 16 digest bytes, which are already
+ * uniformly distributed: no second hash function is needed.
+ *
+ * <p>The bit array is mapped in 1 GiB windows because a single {@link MappedByteBuffer} is limited
+ * to 2 GiB; a filter for hundreds of millions of entries is several hundred MB to a few GB.
+ */
+final class BloomFile {
+
+  static final int MAGIC = 0x44534246; // "DSBF"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 32;
+
+  private static final int WINDOW_SHIFT = 30;
+  private static final long WINDOW_BYTES = 1L << WINDOW_SHIFT;
+  private static final long WINDOW_MASK = WINDOW_BYTES - 1;
+
+  private BloomFile() {
+  }
+
+  /**
+   * Bit index of probe {@code i} (Kirsch-Mitzenmacher double hashing; {@code h2} is odd).
+   */
+  static long index(long h1, long h2, int i, long numBits) {
+    return Long.remainderUnsigned(h1 + i * h2, numBits);
+  }
+
+  static long h1(byte[] sha1) {
+    return ByteBuffer.wrap(sha1, 0, 8).getLong();
+  }
+
+  static long h2(byte[] sha1) {
+    return ByteBuffer.wrap(sha1, 8, 8).getLong() | 1L;
+  }
+
+  static MessageDigest newSha1() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 not available", e);
+    }
+  }
+
+  static byte[] sha1(MessageDigest md, String password) {
+    return md.digest(password.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Maps {@code bytes} of {@code channel} starting at {@code offset} as consecutive 1 GiB windows.
+   */
+  static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long offset, long bytes)
+      throws IOException {
+    int windows = (int) ((bytes + WINDOW_BYTES - 1) >>> WINDOW_SHIFT);
+    MappedByteBuffer[] out = new MappedByteBuffer[windows];
+    for (int w = 0; w < windows; w++) {
+      long start = (long) w << WINDOW_SHIFT;
+      out[w] = channel.map(mode, offset + start, Math.min(WINDOW_BYTES, bytes - start));
+    }
+    return out;
+  }
+
+  /**
+   * Absolute read: no buffer position is touched, so concurrent readers need no locking.
+   */
+  static boolean get(MappedByteBuffer[] windows, long bit) {
+    long byteIndex = bit >>> 3;
+    byte b = windows[(int) (byteIndex >>> WINDOW_SHIFT)].get((int) (byteIndex & WINDOW_MASK));
+    return (b & (1 << (bit & 7))) != 0;
+  }
+
+  static void set(MappedByteBuffer[] windows, long bit) {
+    long byteIndex = bit >>> 3;
+    MappedByteBuffer window = windows[(int) (byteIndex >>> WINDOW_SHIFT)];
+    int pos = (int) (byteIndex & WINDOW_MASK);
+    window.put(pos, (byte) (window.get(pos) | (1 << (bit & 7))));
+  }
+}
@@ -0,0 +1,122 @@
+package dospring.security.blocklist;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Offline tool compiling a breached-password corpus into the Bloom filter file mapped by
+ * {@link BreachedPasswordFilter}.
+ *
+ * <pre>
+ * java -cp target/classes dospring.security.blocklist.BloomFilterBuilder \
+ *     corpus.txt breached.bloom 850000000 0.001
+ * </pre>
+ *
+ * <p>Corpus: one entry per line, either a hex SHA-1 optionally followed by {@code :count}
+ * (HaveIBeenPwned range/dump format) or a plaintext password. Entries stream through; the filter is
+ * written through a read-write mapping of the output file, so the heap never holds the corpus or the
+ * bit array. About 14.4 bits per entry at 0.1% false positives (~1.5 GB for 850M entries).
+ */
+public final class BloomFilterBuilder {
+
+  private BloomFilterBuilder() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      System.err.println("usage: BloomFilterBuilder <corpus> <output> <expectedEntries> [falsePositiveRate=0.001]");
+      System.exit(2);
+    }
+    double fpp = args.length > 3 ? Double.parseDouble(args[3]) : 0.001;
+    long started = System.nanoTime();
+    long inserted = build(Path.of(args[0]), Path.of(args[1]), Long.parseLong(args[2]), fpp);
+    System.out.printf("%d entries written to %s in %d s%n", inserted, args[1],
+        (System.nanoTime() - started) / 1_000_000_000L);
+  }
+
+  /**
+   * Builds the filter sized for {@code expectedEntries} at {@code falsePositiveRate}.
+   *
+   * @return number of corpus lines inserted
+   */
+  public static long build(Path corpus, Path output, long expectedEntries, double falsePositiveRate)
+      throws IOException {
+    if (expectedEntries <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("expectedEntries must be > 0 and falsePositiveRate in (0, 1)");
+    }
+    long numBits = optimalBits(expectedEntries, falsePositiveRate);
+    int numHashes = optimalHashes(expectedEntries, numBits);
+
+    long inserted = 0;
+    try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+         BufferedReader reader = Files.newBufferedReader(corpus, StandardCharsets.UTF_8)) {
+
+      MappedByteBuffer[] bits = BloomFile.map(channel, FileChannel.MapMode.READ_WRITE, BloomFile.HEADER_BYTES,
+          numBits / 8);
+      MessageDigest md = BloomFile.newSha1();
+      HexFormat hex = HexFormat.of();
+
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        byte[] digest = isSha1(line) ? hex.parseHex(line, 0, 40) : BloomFile.sha1(md, line);
+        long h1 = BloomFile.h1(digest);
+        long h2 = BloomFile.h2(digest);
+        for (int i = 0; i < numHashes; i++) {
+          BloomFile.set(bits, BloomFile.index(h1, h2, i, numBits));
+        }
+        inserted++;
+      }
+      for (MappedByteBuffer window : bits) {
+        window.force();
+      }
+
+      ByteBuffer header = ByteBuffer.allocate(BloomFile.HEADER_BYTES)
+          .putInt(BloomFile.MAGIC)
+          .putInt(BloomFile.VERSION)
+          .putInt(numHashes)
+          .putInt(0)
+          .putLong(numBits)
+          .putLong(inserted)
+          .flip();
+      channel.write(header, 0);
+      channel.force(true);
+    }
+    return inserted;
+  }
+
+  /** m = -n ln p / (ln 2)^2, rounded up to a multiple of 64. */
+  static long optimalBits(long n, double p) {
+    double m = -n * Math.log(p) / (Math.log(2) * Math.log(2));
+    return ((long) Math.ceil(m) + 63) & ~63L;
+  }
+
+  /** k = m/n ln 2, at least 1. */
+  static int optimalHashes(long n, long m) {
+    return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+  }
+
+  private static boolean isSha1(String line) {
+    if (line.length() != 40 && (line.length() < 41 || line.charAt(40) != ':')) {
+      return false;
+    }
+    for (int i = 0; i < 40; i++) {
+      if (Character.digit(line.charAt(i), 16) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,96 @@
+package dospring.security.blocklist;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Breached-password check backed by a memory-mapped Bloom filter built offline by
+ * {@link BloomFilterBuilder} ({@code app.auth.password.breached-filter.path}).
+ *
+ * <p>Startup only reads the 32-byte header and maps the bit array read-only: nothing is parsed or
+ * copied onto the heap, the OS pages it in on demand and shares it between processes. A lookup is
+ * one SHA-1 plus k absolute reads on the mapping, lock-free and allocation-light.
+ *
+ * <p>False positives (a safe password reported as breached) happen at the rate chosen at build time;
+ * false negatives never happen. With no path configured the filter is disabled and reports nothing.
+ */
+@Slf4j
+@Component
+public class BreachedPasswordFilter {
+
+  private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(BloomFile::newSha1);
+
+  private final MappedByteBuffer[] bits;
+  private final long numBits;
+  private final int numHashes;
+
+  public BreachedPasswordFilter(@Value("${app.auth.password.breached-filter.path:}") String path) {
+    if (path == null || path.isBlank()) {
+      this.bits = null;
+      this.numBits = 0;
+      this.numHashes = 0;
+      return;
+    }
+
+    try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(BloomFile.HEADER_BYTES);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        // fill header
+      }
+      header.flip();
+      if (header.remaining() < BloomFile.HEADER_BYTES || header.getInt() != BloomFile.MAGIC) {
+        throw new IllegalStateException("Not a breached-password filter: " + path);
+      }
+      int version = header.getInt();
+      if (version != BloomFile.VERSION) {
+        throw new IllegalStateException("Unsupported breached-password filter version " + version + ": " + path);
+      }
+      this.numHashes = header.getInt();
+      header.getInt();
+      this.numBits = header.getLong();
+      long entries = header.getLong();
+      if (channel.size() < BloomFile.HEADER_BYTES + numBits / 8) {
+        throw new IllegalStateException("Truncated breached-password filter: " + path);
+      }
+      // the mapping stays valid after the channel is closed
+      this.bits = BloomFile.map(channel, FileChannel.MapMode.READ_ONLY, BloomFile.HEADER_BYTES, numBits / 8);
+      log.info("Breached-password filter mapped: {} entries, {} MB, k={}", entries, numBits / 8 / (1024 * 1024),
+          numHashes);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot map breached-password filter " + path, e);
+    }
+  }
+
+  public boolean isEnabled() {
+    return bits != null;
+  }
+
+  /**
+   * Whether {@code password} is (probably) in the breached corpus.
+   */
+  public boolean mightContain(String password) {
+    if (bits == null || password == null) {
+      return false;
+    }
+    byte[] digest = BloomFile.sha1(SHA1.get(), password);
+    long h1 = BloomFile.h1(digest);
+    long h2 = BloomFile.h2(digest);
+    for (int i = 0; i < numHashes; i++) {
+      if (!BloomFile.get(bits, BloomFile.index(h1, h2, i, numBits))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,26 @@
+package dospring.security.heavyhitters;
+
+import java.time.Duration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Heavy-hitter tracking ({@code app.heavy-hitters.*}). Each signal and dimension gets one
+ * {@link HeavyHitterSketch} of {@code 4 * depth * width * (slots + 1)} bytes of counters.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.heavy-hitters")
+public class HeavyHitterProperties {
+
+  private boolean enabled = true;
+  /** Keys reported per signal and dimension. */
+  private int topK = 20;
+  /** Count-min rows (independent hashes). */
+  private int depth = 4;
+  /** Count-min counters per row (rounded down to a power of two). */
+  private int width = 2048;
+  private Duration window = Duration.ofMinutes(5);
+  /** Steps the window slides in. */
+  private int slots = 5;
+}
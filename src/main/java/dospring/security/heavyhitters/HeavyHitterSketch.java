@@ -0,0 +1,314 @@
+package dospring.security.heavyhitters;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate top-K of a stream of keys over a sliding window, in memory fixed at construction: a
+ * count-min sketch per sub-window ("slot") plus their running sum, and a min-heap of at most
+ * {@code k} candidate keys. Each sketch cell keeps its sum and its per-slot counts side by side in
+ * one array, so an event touches {@code depth} cache lines, not {@code 2 * depth}.
+ *
+ * <p>{@link #add} costs one seeded 64-bit hash of the key, a multiply-shift per row (each row has its
+ * own random odd multiplier, so two keys colliding in one row are unlikely to collide in the others),
+ * {@code 2 * depth} atomic increments and a volatile read of the heap's admission threshold (the
+ * k-th count). Only a key whose estimate beats that threshold and that is not already tracked (a scan
+ * of the k member hashes) tries the heap lock, and never waits for it: neither light keys nor the
+ * heavy hitters themselves take a lock or allocate, and a heap update lost to contention is made up
+ * by the key's next hit. Member counts are refreshed when the slot turns, when read, and before a
+ * member is evicted.
+ *
+ * <p>The window slides one slot at a time: the expiring slot is subtracted from the sum and cleared,
+ * then the heap is re-scored against the new sum (k entries, once per slot). A reading covers between
+ * {@code window - window / slots} and {@code window} of history. Accuracy tradeoff:
+ * <ul>
+ *   <li>count-min never under-counts; the over-count is at most {@code e * N / width} (N = events in
+ *   the window) with probability {@code 1 - e^-depth};</li>
+ *   <li>keys longer than {@value #MAX_KEY_LENGTH} chars are cut, so only abusive input is merged.</li>
+ * </ul>
+ */
+public final class HeavyHitterSketch {
+
+  static final int MAX_KEY_LENGTH = 128;
+
+  private final int depth;
+  private final int width;
+  private final int shift;
+  private final long[] rowMultipliers;
+  private final int k;
+  private final long slotNanos;
+  private final int slotCount;
+  /** Per cell: the window sum, then one count per slot ({@code slotCount + 1} ints). */
+  private final int stride;
+  private final AtomicIntegerArray counters;
+  private final long seed = new SecureRandom().nextLong();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final String[] heapKeys;
+  private final long[] heapHashes;
+  private final int[] heapCounts;
+  private final Map<String, Integer> heapIndex;
+  private int heapSize;
+
+  private volatile int current;
+  private volatile long slotEnd;
+  /** Smallest estimate that can enter the heap: 0 until it is full, then its minimum. */
+  private volatile int admission;
+  /** Hashes of the keys in the heap, republished whenever membership changes. */
+  private volatile long[] members = new long[0];
+
+  public HeavyHitterSketch(int k, int depth, int width, Duration window, int slotCount, long nowNanos) {
+    if (k < 1 || depth < 1 || slotCount < 1 || window.isNegative() || window.isZero()) {
+      throw new IllegalArgumentException("Invalid heavy-hitter sketch: k=" + k + ", depth=" + depth
+          + ", window=" + window + ", slots=" + slotCount);
+    }
+    this.depth = depth;
+    this.width = Integer.highestOneBit(Math.max(16, width));
+    this.shift = 64 - Integer.numberOfTrailingZeros(this.width);
+    this.rowMultipliers = new long[depth];
+    SecureRandom random = new SecureRandom();
+    for (int row = 0; row < depth; row++) {
+      rowMultipliers[row] = random.nextLong() | 1L;
+    }
+    this.k = k;
+    this.slotNanos = Math.max(1L, window.toNanos() / slotCount);
+    this.slotCount = slotCount;
+    this.stride = slotCount + 1;
+    this.counters = new AtomicIntegerArray(depth * this.width * stride);
+    this.heapKeys = new String[k];
+    this.heapHashes = new long[k];
+    this.heapCounts = new int[k];
+    this.heapIndex = new HashMap<>(k * 2);
+    this.slotEnd = nowNanos + slotNanos;
+  }
+
+  /**
+   * Counts one occurrence of {@code key}.
+   */
+  public void add(String key, long nowNanos) {
+    if (nowNanos - slotEnd >= 0) {
+      advance(nowNanos);
+    }
+    long h = hash(key);
+    int slot = 1 + current;
+    int estimate = Integer.MAX_VALUE;
+    for (int row = 0, base = 0; row < depth; row++, base += width) {
+      int cell = (base + (int) ((h * rowMultipliers[row]) >>> shift)) * stride;
+      counters.incrementAndGet(cell + slot);
+      estimate = Math.min(estimate, counters.incrementAndGet(cell));
+    }
+    if (estimate > admission && !isMember(h) && lock.tryLock()) {
+      try {
+        offer(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key, h, estimate);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Estimated occurrences of {@code key} in the window (never below the true count).
+   */
+  public int estimate(String key) {
+    return estimate(hash(key));
+  }
+
+  private int estimate(long h) {
+    int estimate = Integer.MAX_VALUE;
+    for (int row = 0, base = 0; row < depth; row++, base += width) {
+      estimate = Math.min(estimate, counters.get((base + (int) ((h * rowMultipliers[row]) >>> shift)) * stride));
+    }
+    return estimate;
+  }
+
+  /**
+   * The tracked keys, heaviest first, with their current window estimates.
+   */
+  public List<Entry> top(long nowNanos) {
+    List<Entry> out;
+    lock.lock();
+    try {
+      if (nowNanos - slotEnd >= 0) {
+        rotate(nowNanos);
+      }
+      out = new ArrayList<>(heapSize);
+      for (int i = 0; i < heapSize; i++) {
+        // Heap counts are as of each key's last admission; report the current estimate.
+        out.add(new Entry(heapKeys[i], estimate(heapHashes[i])));
+      }
+    } finally {
+      lock.unlock();
+    }
+    out.sort(Comparator.comparingInt(Entry::count).reversed().thenComparing(Entry::key));
+    return out;
+  }
+
+  /** Bytes held by the counters (the heap adds at most {@code k} keys). */
+  public long counterBytes() {
+    return 4L * counters.length();
+  }
+
+  private void advance(long nowNanos) {
+    // Whoever holds the lock rotates; until then counts keep landing in the current slot.
+    if (lock.tryLock()) {
+      try {
+        if (nowNanos - slotEnd >= 0) {
+          rotate(nowNanos);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void rotate(long nowNanos) {
+    long expired = Math.min(slotCount, (nowNanos - slotEnd) / slotNanos + 1);
+    for (long n = 0; n < expired; n++) {
+      int next = (current + 1) % slotCount;
+      for (int cell = 0, cells = counters.length(); cell < cells; cell += stride) {
+        int count = counters.getAndSet(cell + 1 + next, 0);
+        if (count != 0) {
+          counters.addAndGet(cell, -count);
+        }
+      }
+      current = next;
+    }
+    long end = slotEnd + expired * slotNanos;
+    // Idle for longer than the window: every slot is cleared, start over from now.
+    slotEnd = nowNanos - end >= 0 ? nowNanos + slotNanos : end;
+    rescore();
+  }
+
+  /** Re-estimates every heap entry against the new window and drops the ones that left it. */
+  private void rescore() {
+    int kept = 0;
+    heapIndex.clear();
+    for (int i = 0; i < heapSize; i++) {
+      int count = estimate(heapHashes[i]);
+      if (count > 0) {
+        heapKeys[kept] = heapKeys[i];
+        heapHashes[kept] = heapHashes[i];
+        heapCounts[kept] = count;
+        heapIndex.put(heapKeys[kept], kept);
+        kept++;
+      }
+    }
+    for (int i = kept; i < heapSize; i++) {
+      heapKeys[i] = null;
+    }
+    heapSize = kept;
+    for (int i = heapSize / 2 - 1; i >= 0; i--) {
+      siftDown(i);
+    }
+    admission = heapSize < k ? 0 : heapCounts[0];
+    members = Arrays.copyOf(heapHashes, heapSize);
+  }
+
+  private boolean isMember(long h) {
+    for (long member : members) {
+      if (member == h) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void offer(String key, long h, int estimate) {
+    Integer at = heapIndex.get(key);
+    if (at != null) {
+      heapCounts[at] = estimate;
+      siftDown(siftUp(at));
+    } else if (heapSize < k) {
+      heapKeys[heapSize] = key;
+      heapHashes[heapSize] = h;
+      heapCounts[heapSize] = estimate;
+      heapIndex.put(key, heapSize);
+      siftUp(heapSize++);
+      members = Arrays.copyOf(heapHashes, heapSize);
+    } else {
+      // Member counts go stale between slots: refresh the minimum until it is current.
+      for (int i = 0; i < k; i++) {
+        int fresh = estimate(heapHashes[0]);
+        if (fresh == heapCounts[0]) {
+          break;
+        }
+        heapCounts[0] = fresh;
+        siftDown(0);
+      }
+      if (estimate > heapCounts[0]) {
+        heapIndex.remove(heapKeys[0]);
+        heapKeys[0] = key;
+        heapHashes[0] = h;
+        heapCounts[0] = estimate;
+        heapIndex.put(key, 0);
+        siftDown(0);
+        members = Arrays.copyOf(heapHashes, heapSize);
+      }
+    }
+    admission = heapSize < k ? 0 : heapCounts[0];
+  }
+
+  private int siftUp(int i) {
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (heapCounts[parent] <= heapCounts[i]) {
+        break;
+      }
+      swap(i, parent);
+      i = parent;
+    }
+    return i;
+  }
+
+  private void siftDown(int i) {
+    while (true) {
+      int left = 2 * i + 1;
+      if (left >= heapSize) {
+        return;
+      }
+      int smallest = left + 1 < heapSize && heapCounts[left + 1] < heapCounts[left] ? left + 1 : left;
+      if (heapCounts[i] <= heapCounts[smallest]) {
+        return;
+      }
+      swap(i, smallest);
+      i = smallest;
+    }
+  }
+
+  private void swap(int a, int b) {
+    String key = heapKeys[a];
+    heapKeys[a] = heapKeys[b];
+    heapKeys[b] = key;
+    long h = heapHashes[a];
+    heapHashes[a] = heapHashes[b];
+    heapHashes[b] = h;
+    int count = heapCounts[a];
+    heapCounts[a] = heapCounts[b];
+    heapCounts[b] = count;
+    heapIndex.put(heapKeys[a], a);
+    heapIndex.put(heapKeys[b], b);
+  }
+
+  private long hash(String key) {
+    long h = seed;
+    for (int i = 0, n = Math.min(key.length(), MAX_KEY_LENGTH); i < n; i++) {
+      h = (h ^ key.charAt(i)) * 0x9E3779B97F4A7C15L;
+    }
+    h ^= h >>> 32;
+    h *= 0xD6E8FEB86659FD93L;
+    h ^= h >>> 32;
+    return h;
+  }
+
+  /** One tracked key and its estimated count in the window. */
+  public record Entry(String key, int count) {
+  }
+}
@@ -0,0 +1,107 @@
+package dospring.security.heavyhitters;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Who is hammering the auth endpoints: approximate top-K client IPs, usernames and device ids among
+ * failed logins and rate-limit rejections, over a sliding window ({@code app.heavy-hitters.*}).
+ *
+ * <p>Fed by {@code AuthService.login} and {@code RateLimitFilter}. Recording only hashes keys the
+ * request already holds into a fixed-size {@link HeavyHitterSketch}, so it is safe on the request
+ * path during a credential-stuffing wave; read through {@code GET /actuator/heavyhitters}.
+ */
+@Component
+public class HeavyHitters {
+
+  /** What was observed. */
+  public enum Signal {
+    LOGIN_FAILURE,
+    RATE_LIMITED
+  }
+
+  /** What it is attributed to. */
+  public enum Dimension {
+    IP,
+    USERNAME,
+    DEVICE
+  }
+
+  static final String DEVICE_HEADER = "X-Device-Id";
+
+  private final boolean enabled;
+  private final Duration window;
+  private final HeavyHitterSketch[] sketches;
+
+  public HeavyHitters(HeavyHitterProperties properties) {
+    this.enabled = properties.isEnabled();
+    this.window = properties.getWindow();
+    this.sketches = new HeavyHitterSketch[enabled ? Signal.values().length * Dimension.values().length : 0];
+    long now = System.nanoTime();
+    for (int i = 0; i < sketches.length; i++) {
+      sketches[i] = new HeavyHitterSketch(properties.getTopK(), properties.getDepth(), properties.getWidth(),
+          window, properties.getSlots(), now);
+    }
+  }
+
+  /**
+   * A failed login (unknown user, bad password, disabled or locked account).
+   */
+  public void loginFailure(HttpServletRequest request, String username, String deviceId) {
+    if (!enabled) {
+      return;
+    }
+    long now = System.nanoTime();
+    record(Signal.LOGIN_FAILURE, Dimension.IP, request.getRemoteAddr(), now);
+    record(Signal.LOGIN_FAILURE, Dimension.USERNAME, username, now);
+    record(Signal.LOGIN_FAILURE, Dimension.DEVICE, deviceId, now);
+  }
+
+  /**
+   * A request rejected by the rate limiter. The username is the JWT subject, when there is one.
+   */
+  public void rateLimited(HttpServletRequest request) {
+    if (!enabled) {
+      return;
+    }
+    long now = System.nanoTime();
+    record(Signal.RATE_LIMITED, Dimension.IP, request.getRemoteAddr(), now);
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+      record(Signal.RATE_LIMITED, Dimension.USERNAME, auth.getName(), now);
+    }
+    record(Signal.RATE_LIMITED, Dimension.DEVICE, request.getHeader(DEVICE_HEADER), now);
+  }
+
+  public boolean enabled() {
+    return enabled;
+  }
+
+  public Duration window() {
+    return window;
+  }
+
+  /**
+   * Heaviest keys first; empty when tracking is disabled.
+   */
+  public List<HeavyHitterSketch.Entry> top(Signal signal, Dimension dimension) {
+    return enabled ? sketch(signal, dimension).top(System.nanoTime()) : List.of();
+  }
+
+  private void record(Signal signal, Dimension dimension, String key, long now) {
+    if (key != null && !key.isEmpty()) {
+      sketch(signal, dimension).add(key, now);
+    }
+  }
+
+  private HeavyHitterSketch sketch(Signal signal, Dimension dimension) {
+    return sketches[signal.ordinal() * Dimension.values().length + dimension.ordinal()];
+  }
+}
@@ -0,0 +1,39 @@
+package dospring.security.heavyhitters;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code GET /actuator/heavyhitters}: top client IPs, usernames and device ids among failed logins
+ * ({@code login_failure}) and rate-limit rejections ({@code rate_limited}) in the sliding window.
+ */
+@Component
+@Endpoint(id = "heavyhitters")
+public class HeavyHittersEndpoint {
+
+  private final HeavyHitters heavyHitters;
+
+  public HeavyHittersEndpoint(HeavyHitters heavyHitters) {
+    this.heavyHitters = heavyHitters;
+  }
+
+  @ReadOperation
+  public Map<String, Object> topK() {
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("enabled", heavyHitters.enabled());
+    out.put("window", heavyHitters.window().toString());
+    for (HeavyHitters.Signal signal : HeavyHitters.Signal.values()) {
+      Map<String, Object> dimensions = new LinkedHashMap<>();
+      for (HeavyHitters.Dimension dimension : HeavyHitters.Dimension.values()) {
+        dimensions.put(dimension.name().toLowerCase(Locale.ROOT), heavyHitters.top(signal, dimension));
+      }
+      out.put(signal.name().toLowerCase(Locale.ROOT), dimensions);
+    }
+    return out;
+  }
+}
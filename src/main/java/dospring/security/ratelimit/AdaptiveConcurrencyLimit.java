@@ -0,0 +1,164 @@
+package dospring.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient-style adaptive concurrency limit (after Netflix concurrency-limits' Gradient2), for one
+ * group of endpoints.
+ *
+ * <p>Requests past {@link #limit()} in flight are refused up front ({@link #tryAcquire}). Latencies are
+ * averaged over short windows and compared with a slow moving baseline (long-term average):
+ * <ul>
+ *   <li>{@code gradient = clamp(tolerance * baseline / current, 0.5, 1)}; while latency stays near the
+ *   baseline the gradient is 1 and the limit grows by {@code sqrt(limit)} (the allowed queue) per window;
+ *   once queueing inflates latency the limit shrinks proportionally;</li>
+ *   <li>an overloaded response (e.g. 503 from the hashing pool) cuts the limit multiplicatively (AIMD);</li>
+ *   <li>the limit only grows when the group actually used at least half of it (no growth while idle);</li>
+ *   <li>if latency drops far below the baseline, the baseline decays towards it (recovers from drift).</li>
+ * </ul>
+ *
+ * <p>Acquire/release are a CAS and a few adders; the limit is recomputed once per window by whichever
+ * thread closes it.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  /** Baseline EMA weight: follows a lasting latency shift over ~100 windows, not a burst. */
+  private static final double BASELINE_SMOOTHING = 0.01;
+  private static final double BACKOFF_RATIO = 0.9;
+
+  private final String name;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final double smoothing;
+  private final long windowNanos;
+  private final int minWindowSamples;
+
+  private final AtomicInteger inflight = new AtomicInteger();
+  private final AtomicInteger peakInflight = new AtomicInteger();
+  private final LongAdder rttSum = new LongAdder();
+  private final LongAdder samples = new LongAdder();
+  private final LongAdder drops = new LongAdder();
+  private final LongAdder shed = new LongAdder();
+
+  private volatile int limit;
+  private volatile long windowEnd;
+  private double estimatedLimit;
+  private double baselineNanos;
+  private double lastRttNanos;
+
+  public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit,
+                                  double tolerance, double smoothing, long windowNanos, int minWindowSamples) {
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException("Invalid concurrency limits for " + name + ": " + minLimit + ".." + maxLimit);
+    }
+    this.name = name;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.tolerance = tolerance;
+    this.smoothing = smoothing;
+    this.windowNanos = windowNanos;
+    this.minWindowSamples = Math.max(1, minWindowSamples);
+    this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    this.limit = (int) estimatedLimit;
+    this.windowEnd = System.nanoTime() + windowNanos;
+  }
+
+  /**
+   * Takes a slot if fewer than {@link #limit()} requests are in flight; every successful call must be
+   * paired with {@link #release}.
+   */
+  public boolean tryAcquire() {
+    int current;
+    do {
+      current = inflight.get();
+      if (current >= limit) {
+        shed.increment();
+        return false;
+      }
+    } while (!inflight.compareAndSet(current, current + 1));
+    peakInflight.accumulateAndGet(current + 1, Math::max);
+    return true;
+  }
+
+  /**
+   * Frees the slot and records the request's latency.
+   *
+   * @param dropped the request failed because of overload (it says nothing about latency)
+   */
+  public void release(long rttNanos, boolean dropped, long nowNanos) {
+    inflight.decrementAndGet();
+    if (dropped) {
+      drops.increment();
+    } else {
+      rttSum.add(rttNanos);
+      samples.increment();
+    }
+    if (nowNanos - windowEnd >= 0) {
+      closeWindow(nowNanos);
+    }
+  }
+
+  private synchronized void closeWindow(long nowNanos) {
+    if (nowNanos - windowEnd < 0) {
+      return;
+    }
+    long count = samples.sum();
+    long dropCount = drops.sum();
+    if (count < minWindowSamples && dropCount == 0) {
+      return;
+    }
+    windowEnd = nowNanos + windowNanos;
+    long sum = rttSum.sumThenReset();
+    samples.add(-count);
+    drops.add(-dropCount);
+    int peak = peakInflight.getAndSet(inflight.get());
+
+    double next;
+    if (dropCount > 0) {
+      next = estimatedLimit * BACKOFF_RATIO;
+    } else {
+      double rtt = (double) sum / count;
+      lastRttNanos = rtt;
+      baselineNanos = baselineNanos == 0 ? rtt : baselineNanos * (1 - BASELINE_SMOOTHING) + rtt * BASELINE_SMOOTHING;
+      if (baselineNanos / rtt > 2) {
+        baselineNanos *= 0.95;
+      }
+      double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / rtt));
+      double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+      next = estimatedLimit * (1 - smoothing) + target * smoothing;
+      if (next > estimatedLimit && peak < estimatedLimit / 2) {
+        return;
+      }
+    }
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+    limit = (int) estimatedLimit;
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public int limit() {
+    return limit;
+  }
+
+  public int inflight() {
+    return inflight.get();
+  }
+
+  public long shedCount() {
+    return shed.sum();
+  }
+
+  /** Long-term latency baseline in milliseconds (0 before the first window). */
+  public synchronized double baselineMillis() {
+    return baselineNanos / 1_000_000.0;
+  }
+
+  /** Average latency of the last closed window in milliseconds. */
+  public synchronized double lastRttMillis() {
+    return lastRttNanos / 1_000_000.0;
+  }
+}
@@ -0,0 +1,85 @@
+package dospring.security.ratelimit;
+
+/**
+ * Minimal consecutive-failure circuit breaker guarding Redis calls on the request path (rate-limit
+ * leases, failed-login counters).
+ *
+ * <ul>
+ *   <li>{@code CLOSED}: calls go through; {@code failureThreshold} failures in a row open it.</li>
+ *   <li>{@code OPEN}: calls are refused (caller falls back) for {@code openNanos}.</li>
+ *   <li>{@code HALF_OPEN}: a single probe call is let through; success closes, failure re-opens.</li>
+ * </ul>
+ *
+ * <p>Only consulted when Redis is actually called (a lease refill, a counted login failure), so a
+ * plain monitor is cheap enough.
+ */
+public final class CircuitBreaker {
+
+  public enum State { CLOSED, HALF_OPEN, OPEN }
+
+  private final int failureThreshold;
+  private final long openNanos;
+
+  private State state = State.CLOSED;
+  private int failures;
+  private long openedAt;
+  private boolean probing;
+
+  public CircuitBreaker(int failureThreshold, long openNanos) {
+    this.failureThreshold = Math.max(1, failureThreshold);
+    this.openNanos = openNanos;
+  }
+
+  /**
+   * @return true if the call may go to Redis
+   */
+  public synchronized boolean tryAcquire(long now) {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (now - openedAt < openNanos) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        probing = true;
+        return true;
+      default:
+        if (probing) {
+          return false;
+        }
+        probing = true;
+        return true;
+    }
+  }
+
+  /**
+   * @return true if this closed a previously open circuit
+   */
+  public synchronized boolean onSuccess() {
+    boolean recovered = state != State.CLOSED;
+    state = State.CLOSED;
+    failures = 0;
+    probing = false;
+    return recovered;
+  }
+
+  /**
+   * @return true if this opened the circuit
+   */
+  public synchronized boolean onFailure(long now) {
+    probing = false;
+    if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+      boolean opened = state != State.OPEN;
+      state = State.OPEN;
+      openedAt = now;
+      failures = 0;
+      return opened;
+    }
+    return false;
+  }
+
+  public synchronized State state() {
+    return state;
+  }
+}
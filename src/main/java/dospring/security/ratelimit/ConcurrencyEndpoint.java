@@ -0,0 +1,38 @@
+package dospring.security.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code GET /actuator/concurrency}: live adaptive limit, in-flight count, latency baseline and shed
+ * total of each {@code app.concurrency} group.
+ */
+@Component
+@Endpoint(id = "concurrency")
+public class ConcurrencyEndpoint {
+
+  private final ConcurrencyLimitFilter filter;
+
+  public ConcurrencyEndpoint(ConcurrencyLimitFilter filter) {
+    this.filter = filter;
+  }
+
+  @ReadOperation
+  public Map<String, Object> groups() {
+    Map<String, Object> out = new LinkedHashMap<>();
+    for (AdaptiveConcurrencyLimit limit : filter.limits()) {
+      Map<String, Object> group = new LinkedHashMap<>();
+      group.put("limit", limit.limit());
+      group.put("inflight", limit.inflight());
+      group.put("baselineMs", limit.baselineMillis());
+      group.put("lastRttMs", limit.lastRttMillis());
+      group.put("shed", limit.shedCount());
+      out.put(limit.name(), group);
+    }
+    return out;
+  }
+}
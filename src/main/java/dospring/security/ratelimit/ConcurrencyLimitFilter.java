@@ -0,0 +1,110 @@
+package dospring.security.ratelimit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Load shedding for expensive endpoints (BCrypt on login, register, change-password): each
+ * {@code app.concurrency.groups} entry gets an {@link AdaptiveConcurrencyLimit}, and a request that
+ * finds its group at the limit is answered 503 + {@code Retry-After} at once instead of queueing
+ * behind the others. Per-IP rate limits cannot do this: they bound each client, not the aggregate.
+ *
+ * <p>Runs after {@link RateLimitFilter}, so throttled clients never take a slot, and matches routes on
+ * the same decoded path. A 503 coming back from the application (hashing pool saturated) counts as
+ * an overload signal for the limiter.
+ *
+ * <p>Live state: {@code /actuator/concurrency} and the {@code concurrency.limit}, {@code concurrency.inflight}
+ * and {@code concurrency.shed} meters, tagged by group.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  private final boolean enabled;
+  private final RouteMatcher<AdaptiveConcurrencyLimit> routes;
+  private final List<AdaptiveConcurrencyLimit> limits = new ArrayList<>();
+
+  public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+    this.enabled = properties.isEnabled();
+
+    MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    Set<String> names = new HashSet<>();
+    List<RouteMatcher.Route<AdaptiveConcurrencyLimit>> routes = new ArrayList<>();
+    for (ConcurrencyLimitProperties.Group group : properties.getGroups()) {
+      if (!names.add(group.getName())) {
+        throw new IllegalArgumentException("Duplicate concurrency limit group: " + group.getName());
+      }
+      AdaptiveConcurrencyLimit limit = group.newLimit();
+      limits.add(limit);
+      register(registry, limit);
+      for (String path : group.getPaths()) {
+        routes.add(new RouteMatcher.Route<>(path, group.getMethods(), limit));
+      }
+    }
+    this.routes = RouteMatcher.compile(routes);
+  }
+
+  public Collection<AdaptiveConcurrencyLimit> limits() {
+    return limits;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+
+    AdaptiveConcurrencyLimit limit = enabled
+        ? routes.match(request.getMethod(), RateLimitFilter.routePath(request), 0)
+        : null;
+    if (limit == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    if (!limit.tryAcquire()) {
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setContentType("application/json");
+      response.setHeader("Retry-After", "1");
+      response.getWriter().write("{\"message\":\"Server busy. Retry later.\"}");
+      return;
+    }
+
+    long start = System.nanoTime();
+    boolean overloaded = false;
+    try {
+      filterChain.doFilter(request, response);
+      overloaded = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+    } finally {
+      long end = System.nanoTime();
+      limit.release(end - start, overloaded, end);
+    }
+  }
+
+  private static void register(MeterRegistry registry, AdaptiveConcurrencyLimit limit) {
+    Gauge.builder("concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+        .tag("group", limit.name())
+        .register(registry);
+    Gauge.builder("concurrency.inflight", limit, AdaptiveConcurrencyLimit::inflight)
+        .tag("group", limit.name())
+        .register(registry);
+    FunctionCounter.builder("concurrency.shed", limit, AdaptiveConcurrencyLimit::shedCount)
+        .tag("group", limit.name())
+        .register(registry);
+  }
+}
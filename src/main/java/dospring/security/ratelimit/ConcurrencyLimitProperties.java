@@ -0,0 +1,43 @@
+package dospring.security.ratelimit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Adaptive concurrency limits ({@code app.concurrency.*}): groups of expensive endpoints, each with
+ * its own {@link AdaptiveConcurrencyLimit}. Paths use the {@link RouteMatcher} pattern syntax.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.concurrency")
+public class ConcurrencyLimitProperties {
+
+  private boolean enabled = true;
+
+  private List<Group> groups = new ArrayList<>();
+
+  @Data
+  public static class Group {
+
+    AdaptiveConcurrencyLimit newLimit() {
+      return new AdaptiveConcurrencyLimit(name, initialLimit, minLimit, maxLimit, tolerance, smoothing,
+          window.toNanos(), minWindowSamples);
+    }
+
+    private String name;
+    private List<String> paths = new ArrayList<>();
+    private List<String> methods = new ArrayList<>();
+    private int initialLimit = 8;
+    private int minLimit = 1;
+    private int maxLimit = 100;
+    /** Latency inflation over the baseline tolerated before the limit shrinks. */
+    private double tolerance = 1.5;
+    /** Weight of each window's new estimate. */
+    private double smoothing = 0.2;
+    private Duration window = Duration.ofMillis(250);
+    private int minWindowSamples = 5;
+  }
+}
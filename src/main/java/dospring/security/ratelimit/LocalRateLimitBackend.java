@@ -0,0 +1,59 @@
+package dospring.security.ratelimit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory sliding-window limits (per instance), one fixed-size {@link SlidingWindowTable} per limit
+ * of each rule.
+ *
+ * <p>Memory is capped at about {@code 24 * maxEntriesPerRule} bytes per limit however many client
+ * addresses are seen, so an IP-spraying botnet cannot grow the heap; see the table for the accuracy
+ * tradeoff once more keys are active than it holds. With several limits, a request admitted by the
+ * first but rejected by a later one stays counted in the first (errs on the strict side).
+ */
+public class LocalRateLimitBackend implements RateLimitBackend {
+
+  private final int maxEntriesPerRule;
+  private final Map<String, SlidingWindowTable[]> tables = new ConcurrentHashMap<>();
+
+  public LocalRateLimitBackend(int maxEntriesPerRule) {
+    this.maxEntriesPerRule = maxEntriesPerRule;
+  }
+
+  @Override
+  public RateLimitDecision tryConsume(String key, RateLimitRule rule) {
+    SlidingWindowTable[] ruleTables = tables.computeIfAbsent(rule.name(), n -> newTables(rule.limits()));
+    long now = System.nanoTime();
+    List<RateLimitRule.Limit> limits = rule.limits();
+    for (int i = 0; i < ruleTables.length; i++) {
+      long wait = ruleTables[i].tryAcquire(key, limits.get(i).capacity(), now);
+      if (wait != 0L) {
+        return RateLimitDecision.rejected(wait);
+      }
+    }
+    return RateLimitDecision.ALLOWED;
+  }
+
+  /**
+   * Counter slots allocated so far, summed over every limit seen; fixed once each rule has been used.
+   */
+  public int slots() {
+    int slots = 0;
+    for (SlidingWindowTable[] ruleTables : tables.values()) {
+      for (SlidingWindowTable table : ruleTables) {
+        slots += table.slots();
+      }
+    }
+    return slots;
+  }
+
+  private SlidingWindowTable[] newTables(List<RateLimitRule.Limit> limits) {
+    SlidingWindowTable[] out = new SlidingWindowTable[limits.size()];
+    for (int i = 0; i < out.length; i++) {
+      out[i] = new SlidingWindowTable(maxEntriesPerRule, limits.get(i).period().toNanos());
+    }
+    return out;
+  }
+}
@@ -0,0 +1,17 @@
+package dospring.security.ratelimit;
+
+/**
+ * Token-bucket storage behind {@link RateLimitFilter}.
+ *
+ * <ul>
+ *   <li>{@link LocalRateLimitBackend}: per-instance buckets (dev, single node).</li>
+ *   <li>{@link RedisRateLimitBackend}: cluster-wide buckets in Redis, spent locally in leased batches.</li>
+ * </ul>
+ */
+public interface RateLimitBackend {
+
+  /**
+   * Takes one token for {@code key} under {@code rule}.
+   */
+  RateLimitDecision tryConsume(String key, RateLimitRule rule);
+}
@@ -0,0 +1,13 @@
+package dospring.security.ratelimit;
+
+/**
+ * Outcome of a {@link RateLimitBackend#tryConsume} call; {@code nanosToWait} is 0 when allowed.
+ */
+public record RateLimitDecision(boolean allowed, long nanosToWait) {
+
+  static final RateLimitDecision ALLOWED = new RateLimitDecision(true, 0L);
+
+  static RateLimitDecision rejected(long nanosToWait) {
+    return new RateLimitDecision(false, nanosToWait);
+  }
+}
@@ -0,0 +1,106 @@
+package dospring.security.ratelimit;
+
+import dospring.security.heavyhitters.HeavyHitters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Rate limiting driven by the {@code app.ratelimit.policies} routes (see {@link RateLimitProperties}).
+ *
+ * <p>Each request is matched once against the compiled {@link RouteMatcher}, on its decoded and
+ * normalized application path (see {@link #routePath}); unmatched requests pass straight through.
+ * A matched request is counted against its policy's key (IP, JWT subject or device)
+ * in the configured {@link RateLimitBackend}: Redis (shared by every instance) when
+ * {@code app.redis.enabled}, otherwise in memory. Runs after the JWT filter so the subject is known.
+ * Rejections get a 429 with {@code Retry-After} and are reported to {@link HeavyHitters}.
+ *
+ * <p>The {@code rate_limit.requests} counters (tagged by rule and outcome) are registered up front,
+ * so a request only increments one.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  private final RouteMatcher<RateLimitRule> routes;
+  private final RateLimitBackend backend;
+  private final Map<String, Outcomes> outcomes = new HashMap<>();
+  private final HeavyHitters heavyHitters;
+
+  public RateLimitFilter(RateLimitProperties properties, RateLimitBackend backend, HeavyHitters heavyHitters,
+                         ObjectProvider<MeterRegistry> meterRegistry) {
+    this.routes = properties.compile();
+    this.backend = backend;
+    this.heavyHitters = heavyHitters;
+
+    MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+      outcomes.put(policy.getName(), new Outcomes(
+          counter(registry, policy.getName(), "allowed"), counter(registry, policy.getName(), "rejected")));
+    }
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+
+    RateLimitRule rule = routes.match(request.getMethod(), routePath(request), 0);
+    if (rule == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    String key = rule.name() + ":" + rule.key().resolve(request);
+
+    RateLimitDecision decision = backend.tryConsume(key, rule);
+    Outcomes counters = outcomes.get(rule.name());
+    (decision.allowed() ? counters.allowed() : counters.rejected()).increment();
+    if (decision.allowed()) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    heavyHitters.rateLimited(request);
+    long retryAfterSeconds = Math.max(1, (decision.nanosToWait() + TimeUnit.SECONDS.toNanos(1) - 1)
+        / TimeUnit.SECONDS.toNanos(1));
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setContentType("application/json");
+    response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+    response.getWriter().write("{\"message\":\"Too many requests. Retry later.\",\"retryAfterSeconds\":" + retryAfterSeconds + "}");
+  }
+
+  /**
+   * Path matched against the routes: the URI within the application, percent-decoded, without
+   * {@code ;} parameters and with {@code .}/{@code ..} segments resolved, so {@code /api/auth/%6cogin}
+   * or {@code /api/x/../auth/login} cannot slip past a {@code /api/auth/login} route. The filters are
+   * also registered outside the security chain, so the firewall cannot be relied on to reject them.
+   */
+  static String routePath(HttpServletRequest request) {
+    return StringUtils.cleanPath(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+  }
+
+  private static Counter counter(MeterRegistry registry, String rule, String outcome) {
+    return Counter.builder("rate_limit.requests")
+        .tag("rule", rule)
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  private record Outcomes(Counter allowed, Counter rejected) {
+  }
+}
@@ -0,0 +1,44 @@
+package dospring.security.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * What a policy counts requests against. Subject and device fall back to the client IP when the
+ * request carries none, so anonymous traffic on a per-user route is still limited.
+ */
+public enum RateLimitKey {
+
+  /** Client IP (best-effort; behind a reverse proxy, resolve X-Forwarded-For upstream). */
+  IP,
+  /** JWT subject of the authenticated principal. */
+  SUBJECT,
+  /** {@code X-Device-Id} header. */
+  DEVICE;
+
+  static final String DEVICE_HEADER = "X-Device-Id";
+  private static final int MAX_DEVICE_ID_LENGTH = 128;
+
+  String resolve(HttpServletRequest request) {
+    switch (this) {
+      case SUBJECT -> {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+          return "sub:" + auth.getName();
+        }
+      }
+      case DEVICE -> {
+        String device = request.getHeader(DEVICE_HEADER);
+        if (device != null && !device.isBlank() && device.length() <= MAX_DEVICE_ID_LENGTH) {
+          return "dev:" + device;
+        }
+      }
+      default -> {
+      }
+    }
+    return "ip:" + request.getRemoteAddr();
+  }
+}
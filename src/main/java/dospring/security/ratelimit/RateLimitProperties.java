@@ -0,0 +1,93 @@
+package dospring.security.ratelimit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Rate limiting settings ({@code app.ratelimit.*}): backend sizing and the per-route policies.
+ *
+ * <pre>
+ * app.ratelimit.policies:
+ *   - name: login
+ *     paths: [/api/auth/login, /api/auth/signin]
+ *     methods: [POST]          # empty = all methods
+ *     key: ip                  # ip | subject | device
+ *     limits:
+ *       - { capacity: 5, period: 1m }
+ *       - { capacity: 20, period: 1h }
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "app.ratelimit")
+public class RateLimitProperties {
+
+  /** Keys tracked in memory per limit (fixed ~24 bytes each); also bounds Redis leases. */
+  private int maxEntries = 262_144;
+
+  private Redis redis = new Redis();
+
+  private List<Policy> policies = new ArrayList<>();
+
+  @Data
+  public static class Redis {
+    /** Most tokens leased from the shared bucket per round trip. */
+    private long leaseTokens = 20;
+    /** Lease at most this fraction of the policy's smallest capacity. */
+    private double leaseFraction = 0.1;
+    private Duration leaseTtl = Duration.ofSeconds(1);
+    /** Deadline of one Redis exchange (lease refill); past it the request is decided locally. */
+    private Duration timeout = Duration.ofMillis(50);
+    /** Consecutive Redis failures or timeouts that open the circuit (local limits only). */
+    private int failureThreshold = 5;
+    /** How long the circuit stays open before a probe call is tried. */
+    private Duration openDuration = Duration.ofSeconds(10);
+  }
+
+  @Data
+  public static class Policy {
+    private String name;
+    private List<String> paths = new ArrayList<>();
+    private List<String> methods = new ArrayList<>();
+    private RateLimitKey key = RateLimitKey.IP;
+    private List<Limit> limits = new ArrayList<>();
+  }
+
+  @Data
+  public static class Limit {
+    private long capacity;
+    private Duration period;
+  }
+
+  /**
+   * Validates the policies and compiles them into a {@link RouteMatcher}.
+   *
+   * @throws IllegalArgumentException on a duplicate name or an invalid path, method or limit
+   */
+  public RouteMatcher<RateLimitRule> compile() {
+    Set<String> names = new HashSet<>();
+    List<RouteMatcher.Route<RateLimitRule>> routes = new ArrayList<>();
+    for (Policy policy : policies) {
+      if (!names.add(policy.getName())) {
+        throw new IllegalArgumentException("Duplicate rate limit policy: " + policy.getName());
+      }
+      if (policy.getPaths().isEmpty()) {
+        throw new IllegalArgumentException("Rate limit policy without paths: " + policy.getName());
+      }
+      List<RateLimitRule.Limit> limits = new ArrayList<>(policy.getLimits().size());
+      for (Limit limit : policy.getLimits()) {
+        limits.add(new RateLimitRule.Limit(limit.getCapacity(), limit.getPeriod()));
+      }
+      RateLimitRule rule = new RateLimitRule(policy.getName(), policy.getKey(), limits);
+      for (String path : policy.getPaths()) {
+        routes.add(new RouteMatcher.Route<>(path, policy.getMethods(), rule));
+      }
+    }
+    return RouteMatcher.compile(routes);
+  }
+}
@@ -0,0 +1,58 @@
+package dospring.security.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A named policy: how requests are keyed, and one or more limits that must all allow a request
+ * (e.g. 5/min and 20/h).
+ */
+public record RateLimitRule(String name, RateLimitKey key, List<Limit> limits) {
+
+  public RateLimitRule {
+    if (name == null || name.isBlank() || limits == null || limits.isEmpty()) {
+      throw new IllegalArgumentException("Rate limit policy needs a name and at least one limit: " + name);
+    }
+    limits = List.copyOf(limits);
+  }
+
+  public RateLimitRule(String name, long capacity, Duration period) {
+    this(name, RateLimitKey.IP, List.of(new Limit(capacity, period)));
+  }
+
+  /** Smallest capacity across the limits. */
+  public long minCapacity() {
+    long min = Long.MAX_VALUE;
+    for (Limit limit : limits) {
+      min = Math.min(min, limit.capacity());
+    }
+    return min;
+  }
+
+  public BucketConfiguration toBucketConfiguration() {
+    var builder = BucketConfiguration.builder();
+    for (Limit limit : limits) {
+      builder.addLimit(limit.bandwidth());
+    }
+    return builder.build();
+  }
+
+  /**
+   * At most {@code capacity} requests per {@code period}.
+   */
+  public record Limit(long capacity, Duration period) {
+
+    public Limit {
+      if (capacity <= 0 || period == null || period.isNegative() || period.isZero()) {
+        throw new IllegalArgumentException("Invalid rate limit: " + capacity + "/" + period);
+      }
+    }
+
+    Bandwidth bandwidth() {
+      return Bandwidth.builder().capacity(capacity).refillIntervally(capacity, period).build();
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package dospring.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.proxy.AsyncProxyManager;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cluster-wide buckets in Redis (Bucket4j compare-and-swap), spent locally in leased batches.
+ *
+ * <p>Instead of one Redis round trip per request, a node takes up to {@code leaseTokens} tokens from
+ * the shared bucket at once ({@code tryConsumeAsMuchAsPossible}) and serves the following requests for
+ * that key from memory until the batch is spent or {@code leaseTtl} elapses. Tokens are taken from
+ * Redis before they are spent, so the cluster never admits more than the limit; the approximation is
+ * the other way round: tokens leased by one node are unavailable to the others until spent, and an
+ * expired lease forfeits what is left. The batch is therefore capped at {@code leaseFraction} of the
+ * rule's smallest capacity: a 5/min login limit leases 1 token (exact, one round trip per request), a
+ * 1000/s limit leases up to {@code leaseTokens}. Rejections are remembered the same way (until the
+ * refill, at most {@code leaseTtl}), so a flood against an exhausted bucket does not reach Redis either.
+ *
+ * <p>Leases are held in a size-bounded cache ({@code maxLeases}); evicting one only forfeits its
+ * unspent tokens, so the bound costs accuracy (stricter limits), never safety.
+ *
+ * <p>Redis is reached through Bucket4j's async proxy manager and the request thread waits at most
+ * {@code timeout} for a whole refill; Redis latency can no longer become login latency. The per-key
+ * lock is never held across that wait: concurrent requests for a key share the refill in flight. Timeouts and
+ * errors feed a {@link CircuitBreaker}: while it is open, requests are decided by the local fallback
+ * backend (fail open to node-local limits, not to no limits) and a probe call closes it again once
+ * Redis answers. A timed-out call may still complete in Redis; its tokens are then lost, which again
+ * errs on the strict side.
+ */
+@Slf4j
+public class RedisRateLimitBackend implements RateLimitBackend {
+
+  static final String KEY_PREFIX = "dospring:rl:";
+
+  private final AsyncProxyManager<byte[]> proxyManager;
+  private final RateLimitBackend fallback;
+  private final long leaseTokens;
+  private final double leaseFraction;
+  private final long leaseTtlNanos;
+  private final long timeoutNanos;
+  private final Cache<String, Lease> leases;
+  private final CircuitBreaker breaker;
+
+  private final Counter redisCalls;
+  private final Timer redisLatency;
+  private final Counter fallbackOpen;
+  private final Counter fallbackTimeout;
+  private final Counter fallbackError;
+
+  public RedisRateLimitBackend(ProxyManager<byte[]> proxyManager, RateLimitBackend fallback,
+                               RateLimitProperties.Redis settings, long maxLeases, MeterRegistry registry) {
+    this.proxyManager = proxyManager.asAsync();
+    this.fallback = fallback;
+    this.leaseTokens = Math.max(1, settings.getLeaseTokens());
+    this.leaseFraction = settings.getLeaseFraction();
+    this.leaseTtlNanos = settings.getLeaseTtl().toNanos();
+    this.timeoutNanos = settings.getTimeout().toNanos();
+    // A lease is worthless after its TTL, so idle keys can go; the size bound caps an address spray.
+    this.leases = Caffeine.newBuilder()
+        .maximumSize(maxLeases)
+        .expireAfterAccess(settings.getLeaseTtl())
+        .build();
+    this.breaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getOpenDuration().toNanos());
+
+    this.redisCalls = Counter.builder("rate_limit.redis.calls").register(registry);
+    this.redisLatency = Timer.builder("rate_limit.redis.latency").publishPercentiles(0.5, 0.99).register(registry);
+    this.fallbackOpen = fallbackCounter(registry, "circuit_open");
+    this.fallbackTimeout = fallbackCounter(registry, "timeout");
+    this.fallbackError = fallbackCounter(registry, "error");
+    Gauge.builder("rate_limit.redis.circuit", breaker, b -> b.state().ordinal())
+        .description("0 = closed, 1 = half-open, 2 = open")
+        .register(registry);
+  }
+
+  @Override
+  public RateLimitDecision tryConsume(String key, RateLimitRule rule) {
+    Lease lease = leases.get(key, k -> new Lease());
+    while (true) {
+      long now;
+      boolean owner;
+      CompletableFuture<RateLimitDecision> refill;
+      long deadline;
+      // Per-key lock around the lease bookkeeping only: Redis is awaited outside it, and requests for
+      // the same key arriving during a refill wait for that refill instead of each calling Redis.
+      synchronized (lease) {
+        now = System.nanoTime();
+        if (now - lease.expiresAt < 0) {
+          if (lease.tokens > 0) {
+            lease.tokens--;
+            return RateLimitDecision.ALLOWED;
+          }
+          if (lease.blocked) {
+            return RateLimitDecision.rejected(lease.retryAt - now);
+          }
+        }
+        owner = lease.refill == null || lease.refill.isDone();
+        if (owner) {
+          lease.tokens = 0;
+          lease.blocked = false;
+          if (!breaker.tryAcquire(now)) {
+            fallbackOpen.increment();
+            return fallback.tryConsume(key, rule);
+          }
+          lease.refill = refill(key, rule, lease, now);
+          lease.refillDeadline = now + timeoutNanos;
+        }
+        refill = lease.refill;
+        deadline = lease.refillDeadline;
+      }
+
+      try {
+        RateLimitDecision decision = refill.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        if (!owner) {
+          // The refill stocked the lease (or marked it blocked): take from it like any other request.
+          continue;
+        }
+        if (breaker.onSuccess()) {
+          log.info("Rate limit: Redis reachable again, circuit closed");
+        }
+        return decision;
+      } catch (TimeoutException e) {
+        fallbackTimeout.increment();
+        if (owner) {
+          refill.cancel(false);
+          onFailure(now, "timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        fallbackError.increment();
+        if (owner) {
+          onFailure(now, "interrupted");
+        }
+      } catch (ExecutionException | RuntimeException e) {
+        fallbackError.increment();
+        if (owner) {
+          Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+          onFailure(now, cause.toString());
+        }
+      }
+      return fallback.tryConsume(key, rule);
+    }
+  }
+
+  /**
+   * Starts a lease refill; the lease is updated under its lock when Redis answers, and the result is
+   * the decision for the request that started it (which takes the first granted token).
+   */
+  private CompletableFuture<RateLimitDecision> refill(String key, RateLimitRule rule, Lease lease, long now) {
+    AsyncBucketProxy bucket = proxyManager.builder()
+        .build((KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8),
+            () -> CompletableFuture.completedFuture(rule.toBucketConfiguration()));
+
+    return timed(bucket.tryConsumeAsMuchAsPossible(leaseSize(rule))).thenCompose(granted -> {
+      if (granted > 0) {
+        synchronized (lease) {
+          lease.tokens = granted - 1;
+          lease.expiresAt = now + leaseTtlNanos;
+        }
+        return CompletableFuture.completedFuture(RateLimitDecision.ALLOWED);
+      }
+      return timed(bucket.estimateAbilityToConsume(1)).thenApply(probe -> {
+        long wait = probe.getNanosToWaitForRefill();
+        // Remember the rejection (up to one lease TTL) so a flood on an empty bucket stays local.
+        synchronized (lease) {
+          lease.blocked = true;
+          lease.retryAt = now + wait;
+          lease.expiresAt = now + Math.min(wait, leaseTtlNanos);
+        }
+        return RateLimitDecision.rejected(wait);
+      });
+    });
+  }
+
+  private <T> CompletableFuture<T> timed(CompletableFuture<T> future) {
+    redisCalls.increment();
+    long start = System.nanoTime();
+    return future.whenComplete((value, error) -> {
+      if (error == null) {
+        redisLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    });
+  }
+
+  private void onFailure(long now, String reason) {
+    if (breaker.onFailure(now)) {
+      log.warn("Rate limit: Redis failing ({}), circuit open, using node-local limits", reason);
+    } else {
+      log.debug("Rate limit: Redis call failed ({}), deciding locally", reason);
+    }
+  }
+
+  long leaseSize(RateLimitRule rule) {
+    return Math.max(1, Math.min(leaseTokens, (long) (rule.minCapacity() * leaseFraction)));
+  }
+
+  private static Counter fallbackCounter(MeterRegistry registry, String reason) {
+    return Counter.builder("rate_limit.redis.fallback").tag("reason", reason).register(registry);
+  }
+
+  private static final class Lease {
+    long tokens;
+    long expiresAt;
+    boolean blocked;
+    long retryAt;
+    /** Refill in flight (or last one), shared by the requests waiting for it. */
+    CompletableFuture<RateLimitDecision> refill;
+    long refillDeadline;
+  }
+}
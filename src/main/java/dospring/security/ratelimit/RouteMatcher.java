@@ -0,0 +1,216 @@
+package dospring.security.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Route patterns compiled into a segment trie, built once at startup.
+ *
+ * <p>Patterns are {@code /}-separated literals plus {@code *} (exactly one segment) and a trailing
+ * {@code **} (any remaining segments, including none): {@code /api/bookings/*}, {@code /api/bookings/**}.
+ * A lookup walks the request path in place: children are sorted labels searched by binary search
+ * against the path region, and the method is a bit test, so {@link #match} allocates nothing and
+ * costs one step per path segment regardless of how many routes are declared.
+ *
+ * <p>Precedence: a literal segment beats {@code *}, which beats {@code **}; among routes on the same
+ * pattern, the first declared whose methods match wins. Empty segments (double or trailing slashes)
+ * are ignored.
+ */
+public final class RouteMatcher<T> {
+
+  private static final int ANY_METHOD = -1;
+  private static final String[] METHODS = {"GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE"};
+
+  private final Node<T> root;
+
+  private RouteMatcher(Node<T> root) {
+    this.root = root;
+  }
+
+  /**
+   * A pattern, the HTTP methods it applies to (empty = all) and what it maps to.
+   */
+  public record Route<T>(String pattern, List<String> methods, T value) {
+  }
+
+  public static <T> RouteMatcher<T> compile(List<Route<T>> routes) {
+    Builder<T> root = new Builder<>();
+    for (Route<T> route : routes) {
+      root.add(route);
+    }
+    return new RouteMatcher<>(root.freeze());
+  }
+
+  /**
+   * @param from index where the application path starts in {@code path} (context path length)
+   * @return the value of the route matching this request, or null if none does
+   */
+  public T match(String method, String path, int from) {
+    return match(root, path, from, methodBit(method));
+  }
+
+  private static <T> T match(Node<T> node, String path, int pos, int methodBit) {
+    int len = path.length();
+    while (pos < len && path.charAt(pos) == '/') {
+      pos++;
+    }
+    if (pos >= len) {
+      T value = pick(node.exact, methodBit);
+      return value != null ? value : pick(node.tail, methodBit);
+    }
+    int end = path.indexOf('/', pos);
+    if (end < 0) {
+      end = len;
+    }
+
+    int child = find(node.labels, path, pos, end);
+    if (child >= 0) {
+      T value = match(node.children[child], path, end, methodBit);
+      if (value != null) {
+        return value;
+      }
+    }
+    if (node.star != null) {
+      T value = match(node.star, path, end, methodBit);
+      if (value != null) {
+        return value;
+      }
+    }
+    return pick(node.tail, methodBit);
+  }
+
+  private static <T> T pick(Entry<T>[] entries, int methodBit) {
+    for (Entry<T> entry : entries) {
+      if ((entry.methods & methodBit) != 0) {
+        return entry.value;
+      }
+    }
+    return null;
+  }
+
+  /** Binary search of the segment {@code path[from, to)} among sorted labels. */
+  private static int find(String[] labels, String path, int from, int to) {
+    int lo = 0;
+    int hi = labels.length - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int cmp = compare(labels[mid], path, from, to);
+      if (cmp < 0) {
+        lo = mid + 1;
+      } else if (cmp > 0) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /** Same order as {@link String#compareTo}, without extracting the segment. */
+  private static int compare(String label, String path, int from, int to) {
+    int n = Math.min(label.length(), to - from);
+    for (int i = 0; i < n; i++) {
+      int diff = label.charAt(i) - path.charAt(from + i);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return label.length() - (to - from);
+  }
+
+  private static int methodBit(String method) {
+    for (int i = 0; i < METHODS.length; i++) {
+      if (METHODS[i].equals(method)) {
+        return 1 << i;
+      }
+    }
+    return 1 << METHODS.length;
+  }
+
+  private static int methodMask(List<String> methods) {
+    if (methods == null || methods.isEmpty()) {
+      return ANY_METHOD;
+    }
+    int mask = 0;
+    for (String method : methods) {
+      int bit = methodBit(method.trim().toUpperCase(Locale.ROOT));
+      if (bit == 1 << METHODS.length) {
+        throw new IllegalArgumentException("Unknown HTTP method in rate limit route: " + method);
+      }
+      mask |= bit;
+    }
+    return mask;
+  }
+
+  private record Entry<T>(int methods, T value) {
+  }
+
+  private static final class Node<T> {
+    final String[] labels;
+    final Node<T>[] children;
+    final Node<T> star;
+    final Entry<T>[] exact;
+    final Entry<T>[] tail;
+
+    Node(String[] labels, Node<T>[] children, Node<T> star, Entry<T>[] exact, Entry<T>[] tail) {
+      this.labels = labels;
+      this.children = children;
+      this.star = star;
+      this.exact = exact;
+      this.tail = tail;
+    }
+  }
+
+  /** Mutable trie used while compiling; frozen into arrays of {@link Node}. */
+  private static final class Builder<T> {
+    final Map<String, Builder<T>> children = new TreeMap<>();
+    Builder<T> star;
+    final List<Entry<T>> exact = new ArrayList<>();
+    final List<Entry<T>> tail = new ArrayList<>();
+
+    void add(Route<T> route) {
+      String pattern = route.pattern();
+      if (pattern == null || !pattern.startsWith("/")) {
+        throw new IllegalArgumentException("Rate limit route must start with '/': " + pattern);
+      }
+      Entry<T> entry = new Entry<>(methodMask(route.methods()), route.value());
+      String[] segments = pattern.split("/");
+      Builder<T> node = this;
+      for (int i = 0; i < segments.length; i++) {
+        String segment = segments[i];
+        if (segment.isEmpty()) {
+          continue;
+        }
+        if (segment.equals("**")) {
+          if (i != segments.length - 1) {
+            throw new IllegalArgumentException("'**' is only allowed as the last segment: " + pattern);
+          }
+          node.tail.add(entry);
+          return;
+        }
+        if (segment.equals("*")) {
+          node = node.star != null ? node.star : (node.star = new Builder<>());
+        } else if (segment.indexOf('*') >= 0) {
+          throw new IllegalArgumentException("Partial wildcards are not supported: " + pattern);
+        } else {
+          node = node.children.computeIfAbsent(segment, s -> new Builder<>());
+        }
+      }
+      node.exact.add(entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    Node<T> freeze() {
+      String[] labels = children.keySet().toArray(String[]::new);
+      Node<T>[] frozen = new Node[labels.length];
+      for (int i = 0; i < labels.length; i++) {
+        frozen[i] = children.get(labels[i]).freeze();
+      }
+      return new Node<>(labels, frozen, star != null ? star.freeze() : null,
+          exact.toArray(Entry[]::new), tail.toArray(Entry[]::new));
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package dospring.security.ratelimit;
+
+import java.security.SecureRandom;
+
+/**
+ * Fixed-size sliding-window counters for one window length, in four primitive arrays (24 bytes per
+ * slot, allocated once): memory does not depend on how many distinct keys are seen.
+ *
+ * <p>Each key keeps the request count of the current and the previous fixed window; the sliding count
+ * is {@code previous * (1 - elapsed / window) + current}, the usual approximation that assumes the
+ * previous window's requests were evenly spread.
+ *
+ * <p>Keys are reduced to a 64-bit fingerprint (seeded per process, so clients cannot aim collisions)
+ * and placed in a 4-way set. When a set is full, the entry with the lowest sliding count is evicted:
+ * stale and one-off keys go first, while a key close to its limit survives a spray of new addresses.
+ * Accuracy tradeoff, documented rather than hidden:
+ * <ul>
+ *   <li>an evicted key starts again from zero, so under more than {@code slots} concurrently active
+ *   keys the lightest ones may get a few extra requests (never the heaviest in their set);</li>
+ *   <li>two keys sharing a fingerprint share a counter (probability ~ n / 2^64, negligible).</li>
+ * </ul>
+ */
+final class SlidingWindowTable {
+
+  private static final int WAYS = 4;
+  private static final int MAX_LOCKS = 1024;
+
+  private final long windowNanos;
+  private final int setMask;
+  private final long[] fingerprints;
+  private final long[] windows;
+  private final int[] current;
+  private final int[] previous;
+  private final Object[] locks;
+  private final long seed = new SecureRandom().nextLong();
+
+  SlidingWindowTable(int maxEntries, long windowNanos) {
+    int sets = Integer.highestOneBit(Math.max(1, (maxEntries + WAYS - 1) / WAYS));
+    this.windowNanos = windowNanos;
+    this.setMask = sets - 1;
+    this.fingerprints = new long[sets * WAYS];
+    this.windows = new long[sets * WAYS];
+    this.current = new int[sets * WAYS];
+    this.previous = new int[sets * WAYS];
+    this.locks = new Object[Math.min(sets, MAX_LOCKS)];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  int slots() {
+    return fingerprints.length;
+  }
+
+  /**
+   * Counts one request for {@code key} if its sliding count stays within {@code limit}.
+   *
+   * @return 0 if admitted, otherwise the nanoseconds until a request would be admitted
+   */
+  long tryAcquire(String key, long limit, long nowNanos) {
+    long fp = fingerprint(key);
+    int set = (int) fp & setMask;
+    long window = Math.floorDiv(nowNanos, windowNanos);
+    long elapsed = Math.floorMod(nowNanos, windowNanos);
+
+    synchronized (locks[set & (locks.length - 1)]) {
+      int slot = slotFor(set * WAYS, fp, window, elapsed);
+      roll(slot, window);
+      int cur = current[slot];
+      int prev = previous[slot];
+      if (estimate(cur, prev, elapsed) + 1 <= limit) {
+        if (cur < Integer.MAX_VALUE) {
+          current[slot] = cur + 1;
+        }
+        return 0L;
+      }
+      return nanosToWait(cur, prev, limit, elapsed);
+    }
+  }
+
+  private int slotFor(int base, long fp, long window, long elapsed) {
+    int victim = base;
+    double lightest = Double.MAX_VALUE;
+    for (int i = base; i < base + WAYS; i++) {
+      if (fingerprints[i] == fp) {
+        return i;
+      }
+      double load = fingerprints[i] == 0L ? -1 : slidingCount(i, window, elapsed);
+      if (load < lightest) {
+        lightest = load;
+        victim = i;
+      }
+    }
+    fingerprints[victim] = fp;
+    windows[victim] = window;
+    current[victim] = 0;
+    previous[victim] = 0;
+    return victim;
+  }
+
+  private double slidingCount(int slot, long window, long elapsed) {
+    long age = window - windows[slot];
+    if (age == 0) {
+      return estimate(current[slot], previous[slot], elapsed);
+    }
+    return age == 1 ? estimate(0, current[slot], elapsed) : 0;
+  }
+
+  private void roll(int slot, long window) {
+    long age = window - windows[slot];
+    if (age == 0) {
+      return;
+    }
+    previous[slot] = age == 1 ? current[slot] : 0;
+    current[slot] = 0;
+    windows[slot] = window;
+  }
+
+  private double estimate(int cur, int prev, long elapsed) {
+    return prev * (1.0 - (double) elapsed / windowNanos) + cur;
+  }
+
+  private long nanosToWait(int cur, int prev, long limit, long elapsed) {
+    if (cur + 1 > limit) {
+      // Wait for the next window, then for the carried-over weight of this one to decay.
+      long decay = (long) Math.ceil(windowNanos * (1.0 - (double) (limit - 1) / cur));
+      return windowNanos - elapsed + decay;
+    }
+    long until = (long) Math.ceil(windowNanos * (1.0 - (double) (limit - 1 - cur) / prev));
+    return Math.max(1L, until - elapsed);
+  }
+
+  private long fingerprint(String key) {
+    long h = seed;
+    for (int i = 0, n = key.length(); i < n; i++) {
+      h = (h ^ key.charAt(i)) * 0x9E3779B97F4A7C15L;
+    }
+    h ^= h >>> 32;
+    h *= 0xD6E8FEB86659FD93L;
+    h ^= h >>> 32;
+    return h == 0L ? 1L : h;
+  }
+}
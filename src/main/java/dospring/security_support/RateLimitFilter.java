@@ -1,57 +0,0 @@
-package dospring.security_support;
-
-import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.http.HttpStatus;
-import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
-
-/**
- * Simple in-memory rate limit for auth endpoints.
- *
- * NOTE: For multi-instance deployments, replace this with Redis-backed bucket4j extension.
- */
-@Component
-public class RateLimitFilter extends OncePerRequestFilter {
-
-  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
-
-  private Bucket resolveBucket(String key) {
-    // 10 requests / minute (login + refresh)
-    Bandwidth limit = Bandwidth.classic(10, Refill.intervally(10, Duration.ofMinutes(1)));
-    return buckets.computeIfAbsent(key, k -> Bucket.builder().addLimit(limit).build());
-  }
-
-  @Override
-  protected boolean shouldNotFilter(HttpServletRequest request) {
-    String path = request.getRequestURI();
-    return !(path.startsWith("/api/auth/login") || path.startsWith("/api/auth/refresh"));
-  }
-
-  @Override
-  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
-      throws ServletException, IOException {
-
-    String key = request.getRemoteAddr() + ":" + request.getRequestURI();
-    Bucket bucket = resolveBucket(key);
-
-    if (bucket.tryConsume(1)) {
-      filterChain.doFilter(request, response);
-      return;
-    }
-
-    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-    response.setContentType("application/json");
-    response.getWriter().write("{\"message\":\"Too many requests. Please retry later.\"}");
-  }
-}
@@ -10,91 +10,120 @@ import dospring.payload.request.RefreshRequest;
 import dospring.payload.request.SignUpRequest;
 import dospring.payload.response.AuthResponse;
 import dospring.payload.response.SessionInfoResponse;
+import dospring.payload.response.SessionPage;
 import dospring.repository.PasswordHistoryRepository;
 import dospring.repository.RefreshTokenRepository;
 import dospring.repository.RoleRepository;
 import dospring.repository.UserRepository;
 import dospring.security.JwtUtils;
+import dospring.security.LoginAttemptStore;
+import dospring.security.OffloadingPasswordEncoder;
+import dospring.security.PasswordPolicy;
+import dospring.security.TokenDigests;
+import dospring.security.UserPrincipalCache;
+import dospring.security.heavyhitters.HeavyHitters;
+import dospring.service.impl.TimestampWriteBehind;
 import dospring.service.impl.UserDetailsImpl;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
-import java.util.ArrayList;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Enterprise auth service:
  * - Access JWT + DB-backed refresh tokens (hashed) with rotation/revocation
- * - Brute-force mitigation (lock account after N failures)
+ * - Brute-force mitigation (lock account after N failures, counted in {@link LoginAttemptStore})
  * - Password policy + password reuse prevention (last N)
  */
 @Service
 public class AuthService {
 
-  private final AuthenticationManager authenticationManager;
   private final UserRepository userRepository;
   private final RoleRepository roleRepository;
   private final PasswordEncoder passwordEncoder;
   private final JwtUtils jwtUtils;
   private final RefreshTokenRepository refreshTokenRepository;
+  private final RefreshTokenStore refreshTokenStore;
   private final PasswordHistoryRepository passwordHistoryRepository;
+  private final UserPrincipalCache principalCache;
+  private final LoginAttemptStore loginAttempts;
+  private final TimestampWriteBehind lastLoginWriteBehind;
+  private final HeavyHitters heavyHitters;
+  private final TransactionTemplate transactionTemplate;
 
   private final long accessTtlSeconds;
   private final long refreshTtlSeconds;
   private final int maxFailedAttempts;
   private final int lockMinutes;
-  private final int pwdMinLength;
+  private final PasswordPolicy passwordPolicy;
   private final int pwdHistory;
 
+  static final int MAX_SESSION_PAGE = 100;
+
   private final SecureRandom secureRandom = new SecureRandom();
 
-  public AuthService(AuthenticationManager authenticationManager,
-                     UserRepository userRepository,
+  public AuthService(UserRepository userRepository,
                      RoleRepository roleRepository,
                      PasswordEncoder passwordEncoder,
                      JwtUtils jwtUtils,
                      RefreshTokenRepository refreshTokenRepository,
+                     RefreshTokenStore refreshTokenStore,
                      PasswordHistoryRepository passwordHistoryRepository,
+                     UserPrincipalCache principalCache,
+                     LoginAttemptStore loginAttempts,
+                     PasswordPolicy passwordPolicy,
+                     TimestampWriteBehind lastLoginWriteBehind,
+                     HeavyHitters heavyHitters,
+                     PlatformTransactionManager transactionManager,
                      @Value("${app.jwt.access-ttl-seconds}") long accessTtlSeconds,
                      @Value("${app.jwt.refresh-ttl-seconds}") long refreshTtlSeconds,
                      @Value("${app.auth.max-failed-attempts}") int maxFailedAttempts,
                      @Value("${app.auth.lock-minutes}") int lockMinutes,
-                     @Value("${app.auth.password.min-length}") int pwdMinLength,
                      @Value("${app.auth.password.history}") int pwdHistory) {
 
-    this.authenticationManager = authenticationManager;
     this.userRepository = userRepository;
     this.roleRepository = roleRepository;
     this.passwordEncoder = passwordEncoder;
     this.jwtUtils = jwtUtils;
     this.refreshTokenRepository = refreshTokenRepository;
+    this.refreshTokenStore = refreshTokenStore;
     this.passwordHistoryRepository = passwordHistoryRepository;
+    this.principalCache = principalCache;
+    this.loginAttempts = loginAttempts;
+    this.lastLoginWriteBehind = lastLoginWriteBehind;
+    this.heavyHitters = heavyHitters;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
 
     this.accessTtlSeconds = accessTtlSeconds;
     this.refreshTtlSeconds = refreshTtlSeconds;
     this.maxFailedAttempts = maxFailedAttempts;
     this.lockMinutes = lockMinutes;
-    this.pwdMinLength = pwdMinLength;
+    this.passwordPolicy = passwordPolicy;
     this.pwdHistory = pwdHistory;
   }
 
-  @Transactional
+  /**
+   * Registers a user.
+   *
+   * <p>The BCrypt hash is computed before the write transaction opens, so no DB connection is held
+   * while hashing.
+   */
   public void register(SignUpRequest req) {
     if (userRepository.existsByUsername(req.getUsername())) {
       throw new IllegalArgumentException("Username is already taken");
@@ -104,43 +133,62 @@ public class AuthService {
     }
 
     validatePassword(req.getPassword());
-
-    User user = User.builder()
-        .username(req.getUsername())
-        .email(req.getEmail())
-        .password(passwordEncoder.encode(req.getPassword()))
-        .passwordChangedAt(Instant.now())
-        .build();
-
-    Set<String> strRoles = req.getRoles();
-    if (strRoles == null || strRoles.isEmpty()) {
-      Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-          .orElseGet(() -> roleRepository.save(Role.builder().name(ERole.ROLE_USER).build()));
-      user.getRoles().add(userRole);
-    } else {
-      for (String role : strRoles) {
-        ERole er = switch (role.toLowerCase()) {
-          case "admin" -> ERole.ROLE_ADMIN;
-          case "attendee" -> ERole.ROLE_ATTENDEE;
-          default -> ERole.ROLE_USER;
-        };
-        Role r = roleRepository.findByName(er)
-            .orElseGet(() -> roleRepository.save(Role.builder().name(er).build()));
-        user.getRoles().add(r);
+    String passwordHash = passwordEncoder.encode(req.getPassword());
+
+    transactionTemplate.executeWithoutResult(status -> {
+      User user = User.builder()
+          .username(req.getUsername())
+          .email(req.getEmail())
+          .password(passwordHash)
+          .passwordChangedAt(Instant.now())
+          .build();
+
+      Set<String> strRoles = req.getRoles();
+      if (strRoles == null || strRoles.isEmpty()) {
+        Role userRole = roleRepository.findByName(ERole.ROLE_USER)
+            .orElseGet(() -> roleRepository.save(Role.builder().name(ERole.ROLE_USER).build()));
+        user.getRoles().add(userRole);
+      } else {
+        for (String role : strRoles) {
+          ERole er = switch (role.toLowerCase()) {
+            case "admin" -> ERole.ROLE_ADMIN;
+            case "attendee" -> ERole.ROLE_ATTENDEE;
+            default -> ERole.ROLE_USER;
+          };
+          Role r = roleRepository.findByName(er)
+              .orElseGet(() -> roleRepository.save(Role.builder().name(er).build()));
+          user.getRoles().add(r);
+        }
       }
-    }
 
-    userRepository.save(user);
+      userRepository.save(user);
 
-    // save password history entry
-    passwordHistoryRepository.save(PasswordHistory.builder()
-        .user(user)
-        .passwordHash(user.getPassword())
-        .build());
+      // save password history entry
+      passwordHistoryRepository.save(PasswordHistory.builder()
+          .user(user)
+          .passwordHash(user.getPassword())
+          .build());
+    });
   }
 
-  @Transactional
+  /**
+   * Authenticates and issues tokens.
+   *
+   * <p>Not transactional: the user is read once up-front, the password is verified on the hashing
+   * executor, and the outcome is written in a short transaction afterwards. A plain successful login
+   * only inserts the refresh token; {@code lastLoginAt} goes through the write-behind coalescer.
+   * Every rejected attempt is reported to {@link HeavyHitters} (IP, username, device).
+   */
   public AuthResponse login(LoginRequest loginRequest, String deviceId, HttpServletRequest httpRequest) {
+    try {
+      return authenticate(loginRequest, deviceId, httpRequest);
+    } catch (BadCredentialsException e) {
+      heavyHitters.loginFailure(httpRequest, loginRequest.getUsername(), deviceId);
+      throw e;
+    }
+  }
+
+  private AuthResponse authenticate(LoginRequest loginRequest, String deviceId, HttpServletRequest httpRequest) {
     User user = userRepository.findByUsername(loginRequest.getUsername())
         .orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
 
@@ -152,132 +200,147 @@ public class AuthService {
       throw new BadCredentialsException("Account locked until " + user.getLockUntil());
     }
 
-    try {
-      Authentication authentication = authenticationManager.authenticate(
-          new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
-      );
-
-      // success: reset lock counters
-      user.setFailedLoginAttempts(0);
-      user.setLockUntil(null);
-      user.setLastLoginAt(now);
-      userRepository.save(user);
-
-      UserDetailsImpl principal = (UserDetailsImpl) authentication.getPrincipal();
-      List<String> roles = principal.getAuthorities().stream()
-          .map(a -> a.getAuthority())
-          .sorted(Comparator.naturalOrder())
-          .collect(Collectors.toList());
-
-      String accessToken = jwtUtils.generateAccessToken(principal.getUsername(), roles);
-      String refreshToken = mintRefreshToken(user, deviceId, httpRequest);
-
-      return new AuthResponse(accessToken, accessTtlSeconds, refreshToken, principal.getUsername(), roles);
-
-    } catch (Exception ex) {
-      // failed: increment attempts
-      int attempts = user.getFailedLoginAttempts() + 1;
-      user.setFailedLoginAttempts(attempts);
+    // Single lookup: the password is verified against the User loaded above and the principal is
+    // built from the same instance (no second findByUsername through DaoAuthenticationProvider).
+    if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+      // failed: count outside the users row; only the lock itself is written
+      int attempts = loginAttempts.recordFailure(user.getId());
       if (attempts >= maxFailedAttempts) {
-        user.setLockUntil(now.plusSeconds(lockMinutes * 60L));
+        Instant lockUntil = now.plusSeconds(lockMinutes * 60L);
+        transactionTemplate.executeWithoutResult(status ->
+            userRepository.recordLoginFailure(user.getId(), attempts, lockUntil));
+        loginAttempts.reset(user.getId());
+        principalCache.invalidate(user.getUsername());
       }
-      userRepository.save(user);
       throw new BadCredentialsException("Invalid credentials");
     }
+
+    UserDetailsImpl principal = UserDetailsImpl.build(user);
+    List<String> roles = principal.getAuthorities().stream()
+        .map(a -> a.getAuthority())
+        .sorted(Comparator.naturalOrder())
+        .collect(Collectors.toList());
+
+    // success: reset lock counters
+    loginAttempts.reset(user.getId());
+    // (only written when a lock / failure count actually has to clear)
+    if (user.getFailedLoginAttempts() != 0 || user.getLockUntil() != null) {
+      transactionTemplate.executeWithoutResult(status -> userRepository.clearLoginFailures(user.getId()));
+      principalCache.invalidate(user.getUsername());
+    }
+    String refreshToken = mintRefreshToken(user, deviceId, httpRequest);
+    lastLoginWriteBehind.record(user.getId(), now);
+
+    String accessToken = jwtUtils.generateAccessToken(principal.getUsername(), roles);
+    return new AuthResponse(accessToken, accessTtlSeconds, refreshToken, principal.getUsername(), roles);
   }
 
-  @Transactional
+  /**
+   * Rotates a refresh token.
+   *
+   * <p>The token is resolved through {@link RefreshTokenStore} and the account (roles, enabled) through
+   * the principal cache, so the steady-state path loads no User entity; only the revocation watermark
+   * is read from {@code users}.
+   */
   public AuthResponse refresh(RefreshRequest request, HttpServletRequest httpRequest) {
     String tokenHash = sha256Hex(request.getRefreshToken());
-    RefreshToken existing = refreshTokenRepository.findByTokenHash(tokenHash)
+    StoredRefreshToken existing = refreshTokenStore.findByHash(tokenHash)
         .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
 
-    User user = existing.getUser();
-
     Instant now = Instant.now();
     if (existing.isRevoked() || existing.isExpired(now)) {
       throw new BadCredentialsException("Refresh token expired/revoked");
     }
 
     // device binding best-effort (optional)
-    if (request.getDeviceId() != null && existing.getDeviceId() != null &&
-        !request.getDeviceId().equals(existing.getDeviceId())) {
+    if (request.getDeviceId() != null && existing.deviceId() != null &&
+        !request.getDeviceId().equals(existing.deviceId())) {
       throw new BadCredentialsException("Device mismatch");
     }
 
-    // rotation: revoke old
-    existing.setRevokedAt(now);
-    existing.setLastUsedAt(now);
-    refreshTokenRepository.save(existing);
+    UserDetailsImpl account;
+    try {
+      account = principalCache.get(existing.username());
+    } catch (UsernameNotFoundException e) {
+      throw new BadCredentialsException("Invalid refresh token");
+    }
+    if (!account.isEnabled()) {
+      throw new BadCredentialsException("Account disabled");
+    }
+    // The watermark is read from the row: a logout-all on another instance is not in this node's cache.
+    Instant watermark = userRepository.findTokensValidAfter(account.getId()).orElse(null);
+    if (watermark != null && existing.issuedAt() != null && !existing.issuedAt().isAfter(watermark)) {
+      throw new BadCredentialsException("Refresh token expired/revoked");
+    }
 
-    List<String> roles = user.getRoles().stream()
-        .map(r -> r.getName().name())
+    // rotation: revoke old + store new atomically
+    String newRefresh = randomToken();
+    StoredRefreshToken next = newRefreshToken(account.getId(), account.getUsername(), newRefresh,
+        request.getDeviceId(), httpRequest, now);
+    if (!refreshTokenStore.rotate(existing, next, now)) {
+      throw new BadCredentialsException("Refresh token expired/revoked");
+    }
+
+    List<String> roles = account.getAuthorities().stream()
+        .map(a -> a.getAuthority())
         .sorted(Comparator.naturalOrder())
         .collect(Collectors.toList());
 
-    String accessToken = jwtUtils.generateAccessToken(user.getUsername(), roles);
-    String newRefresh = mintRefreshToken(user, request.getDeviceId(), httpRequest);
-
-    return new AuthResponse(accessToken, accessTtlSeconds, newRefresh, user.getUsername(), roles);
+    String accessToken = jwtUtils.generateAccessToken(account.getUsername(), roles);
+    return new AuthResponse(accessToken, accessTtlSeconds, newRefresh, account.getUsername(), roles);
   }
 
-  @Transactional
   public void logout(String refreshToken) {
-    String tokenHash = sha256Hex(refreshToken);
-    refreshTokenRepository.findByTokenHash(tokenHash).ifPresent(rt -> {
-      if (rt.getRevokedAt() == null) {
-        rt.setRevokedAt(Instant.now());
-        refreshTokenRepository.save(rt);
-      }
-    });
+    refreshTokenStore.revoke(sha256Hex(refreshToken), Instant.now());
   }
 
+  /**
+   * Revokes every session by moving the user's {@code tokensValidAfter} watermark: a single-row
+   * UPDATE regardless of how many refresh tokens exist. Refresh and access tokens issued before it are
+   * rejected from then on. The refresh tokens themselves are also revoked in one set-based statement
+   * (or one script in the Redis tier), so the store agrees with the watermark.
+   */
   @Transactional
   public void logoutAll(Long userId) {
     Instant now = Instant.now();
-    List<RefreshToken> tokens = refreshTokenRepository.findAllByUserId(userId);
-    for (RefreshToken t : tokens) {
-      if (t.getRevokedAt() == null) {
-        t.setRevokedAt(now);
-      }
-    }
-    refreshTokenRepository.saveAll(tokens);
+    userRepository.revokeTokensIssuedBefore(userId, now);
+    refreshTokenStore.revokeAll(userId, now);
+    principalCache.invalidateUserId(userId);
   }
 
-  @Transactional
   public void logoutDevice(Long userId, String deviceId) {
-    Instant now = Instant.now();
-    List<RefreshToken> tokens = refreshTokenRepository.findAllByUserIdAndDeviceId(userId, deviceId);
-    for (RefreshToken t : tokens) {
-      if (t.getRevokedAt() == null) {
-        t.setRevokedAt(now);
-      }
-    }
-    refreshTokenRepository.saveAll(tokens);
+    refreshTokenStore.revokeDevice(userId, deviceId, Instant.now());
   }
 
   /**
-   * Lists active refresh-token sessions for the current user.
+   * Lists active refresh-token sessions for the current user, most recently used first, one keyset
+   * page at a time (constructor-expression projection, no entity hydration).
    *
    * <p>Never returns refresh token values.
+   *
+   * @param cursor {@link SessionPage#nextCursor()} of the previous page, or null for the first page
+   * @param limit  page size, clamped to [1, {@value #MAX_SESSION_PAGE}]
    */
   @Transactional(readOnly = true)
-  public List<SessionInfoResponse> listActiveSessions(Long userId) {
+  public SessionPage listActiveSessions(Long userId, String cursor, int limit) {
+    int size = Math.max(1, Math.min(limit, MAX_SESSION_PAGE));
     Instant now = Instant.now();
-    List<RefreshToken> sessions = refreshTokenRepository.findActiveSessions(userId, now);
-    List<SessionInfoResponse> out = new ArrayList<>(sessions.size());
-    for (RefreshToken rt : sessions) {
-      out.add(new SessionInfoResponse(
-          rt.getId(),
-          rt.getDeviceId(),
-          rt.getIpAddress(),
-          rt.getUserAgent(),
-          rt.getCreatedAt(),
-          rt.getLastUsedAt(),
-          rt.getExpiresAt()
-      ));
+    Limit fetch = Limit.of(size + 1);
+
+    List<SessionInfoResponse> rows;
+    if (cursor == null || cursor.isBlank()) {
+      rows = refreshTokenRepository.findActiveSessions(userId, now, fetch);
+    } else {
+      SessionCursor after = SessionCursor.decode(cursor);
+      rows = refreshTokenRepository.findActiveSessionsAfter(userId, now, after.lastUsedAt(), after.id(), fetch);
     }
-    return out;
+
+    if (rows.size() <= size) {
+      return new SessionPage(rows, null);
+    }
+    List<SessionInfoResponse> page = rows.subList(0, size);
+    SessionInfoResponse last = page.get(size - 1);
+    return new SessionPage(List.copyOf(page), new SessionCursor(last.getLastUsedAt(), last.getId()).encode());
   }
 
   /**
@@ -291,8 +354,7 @@ public class AuthService {
       throw new IllegalArgumentException("Session does not belong to current user");
     }
     if (rt.getRevokedAt() == null) {
-      rt.setRevokedAt(Instant.now());
-      refreshTokenRepository.save(rt);
+      refreshTokenStore.revoke(rt.getTokenHash(), Instant.now());
     }
   }
 
@@ -300,8 +362,10 @@ public class AuthService {
    * Changes the user's password with policy + history enforcement.
    *
    * <p>Security: revokes all refresh tokens after successful change.
+   *
+   * <p>All BCrypt work (current password check, history check, new hash) runs before the write
+   * transaction opens.
    */
-  @Transactional
   public void changePassword(Long userId, String currentPassword, String newPassword) {
     User user = userRepository.findById(userId)
         .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -312,35 +376,47 @@ public class AuthService {
 
     validatePassword(newPassword);
     enforcePasswordHistory(userId, newPassword);
-
-    user.setPassword(passwordEncoder.encode(newPassword));
-    user.setPasswordChangedAt(Instant.now());
-    userRepository.save(user);
-
-    passwordHistoryRepository.save(PasswordHistory.builder()
-        .user(user)
-        .passwordHash(user.getPassword())
-        .build());
-
-    // Force re-login on all devices.
-    logoutAll(userId);
+    String newHash = passwordEncoder.encode(newPassword);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      User managed = userRepository.findById(userId)
+          .orElseThrow(() -> new IllegalArgumentException("User not found"));
+      managed.setPassword(newHash);
+      managed.setPasswordChangedAt(Instant.now());
+      userRepository.save(managed);
+
+      passwordHistoryRepository.save(PasswordHistory.builder()
+          .user(managed)
+          .passwordHash(newHash)
+          .build());
+
+      // Force re-login on all devices.
+      logoutAll(userId);
+    });
+    principalCache.invalidate(user.getUsername());
   }
 
   private String mintRefreshToken(User user, String deviceId, HttpServletRequest request) {
     String token = randomToken();
-    RefreshToken rt = RefreshToken.builder()
-        .user(user)
-        .tokenHash(sha256Hex(token))
-        .deviceId(deviceId)
-        .userAgent(trim(request.getHeader("User-Agent"), 300))
-        .ipAddress(trim(request.getRemoteAddr(), 60))
-        .expiresAt(Instant.now().plusSeconds(refreshTtlSeconds))
-        .lastUsedAt(Instant.now())
-        .build();
-    refreshTokenRepository.save(rt);
+    refreshTokenStore.save(newRefreshToken(user.getId(), user.getUsername(), token, deviceId, request, Instant.now()));
     return token;
   }
 
+  private StoredRefreshToken newRefreshToken(Long userId, String username, String token, String deviceId,
+                                             HttpServletRequest request, Instant now) {
+    return new StoredRefreshToken(
+        null,
+        sha256Hex(token),
+        userId,
+        username,
+        deviceId,
+        trim(request.getHeader("User-Agent"), 300),
+        trim(request.getRemoteAddr(), 60),
+        now,
+        now.plusSeconds(refreshTtlSeconds),
+        null);
+  }
+
   private String randomToken() {
     byte[] bytes = new byte[64];
     secureRandom.nextBytes(bytes);
@@ -348,17 +424,7 @@ public class AuthService {
   }
 
   private String sha256Hex(String value) {
-    try {
-      MessageDigest md = MessageDigest.getInstance("SHA-256");
-      byte[] digest = md.digest(value.getBytes(StandardCharsets.UTF_8));
-      StringBuilder sb = new StringBuilder();
-      for (byte b : digest) {
-        sb.append(String.format("%02x", b));
-      }
-      return sb.toString();
-    } catch (Exception e) {
-      throw new IllegalStateException("SHA-256 not available", e);
-    }
+    return TokenDigests.sha256Hex(value);
   }
 
   private String trim(String s, int max) {
@@ -367,37 +433,53 @@ public class AuthService {
   }
 
   private void validatePassword(String password) {
-    if (password == null || password.length() < pwdMinLength) {
-      throw new IllegalArgumentException("Password must be at least " + pwdMinLength + " characters");
-    }
-    if (password.contains(" ")) {
-      throw new IllegalArgumentException("Password must not contain spaces");
+    passwordPolicy.validate(password);
+  }
+
+  /**
+   * Prevents re-using the last {@code app.auth.password.history} password hashes.
+   *
+   * <p>The BCrypt comparisons run in parallel on the hashing pool and stop at the first match.
+   */
+  private void enforcePasswordHistory(Long userId, String newPasswordRaw) {
+    if (pwdHistory <= 0) {
+      return;
     }
-    boolean upper = password.chars().anyMatch(Character::isUpperCase);
-    boolean lower = password.chars().anyMatch(Character::isLowerCase);
-    boolean digit = password.chars().anyMatch(Character::isDigit);
-    boolean special = password.chars().anyMatch(ch -> !Character.isLetterOrDigit(ch));
-    if (!(upper && lower && digit && special)) {
-      throw new IllegalArgumentException("Password must contain upper, lower, digit and special character");
+    List<String> hashes = passwordHistoryRepository.findRecentHashes(userId, Limit.of(pwdHistory));
+    if (matchesAny(newPasswordRaw, hashes)) {
+      throw new IllegalArgumentException("Password was used recently. Choose a new one.");
     }
+  }
 
-    // very small blocklist (extend in production)
-    List<String> common = List.of("password", "12345678", "qwerty", "admin", "letmein");
-    String low = password.toLowerCase();
-    if (common.stream().anyMatch(low::contains)) {
-      throw new IllegalArgumentException("Password too common");
+  private boolean matchesAny(String raw, List<String> hashes) {
+    if (passwordEncoder instanceof OffloadingPasswordEncoder offloading) {
+      return offloading.matchesAny(raw, hashes);
+    }
+    for (String hash : hashes) {
+      if (passwordEncoder.matches(raw, hash)) {
+        return true;
+      }
     }
+    return false;
   }
 
   /**
-   * Prevents re-using the last N password hashes.
+   * Keyset position {@code (lastUsedAt, id)}, exchanged as opaque base64url text.
    */
-  private void enforcePasswordHistory(Long userId, String newPasswordRaw) {
-    // Repository returns last 5; property pwdHistory kept for future extension.
-    List<PasswordHistory> history = passwordHistoryRepository.findTop5ByUserIdOrderByCreatedAtDesc(userId);
-    for (PasswordHistory h : history) {
-      if (passwordEncoder.matches(newPasswordRaw, h.getPasswordHash())) {
-        throw new IllegalArgumentException("Password was used recently. Choose a new one.");
+  private record SessionCursor(Instant lastUsedAt, Long id) {
+
+    String encode() {
+      String raw = lastUsedAt + "|" + id;
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static SessionCursor decode(String cursor) {
+      try {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int sep = raw.indexOf('|');
+        return new SessionCursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException("Invalid cursor", e);
       }
     }
   }
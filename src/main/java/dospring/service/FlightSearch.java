@@ -0,0 +1,78 @@
+package dospring.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * A flight search: route, inclusive range of departure dates (UTC), minimum seats left, order.
+ *
+ * <p>The date range is capped at {@value #MAX_RANGE_DAYS} days: a price-ordered page sorts every flight
+ * of the route in the range, so the range bounds its cost.
+ *
+ * @param departTo last departure date, defaults to {@code departFrom}
+ */
+public record FlightSearch(String from,
+                           String to,
+                           LocalDate departFrom,
+                           LocalDate departTo,
+                           int minSeats,
+                           Sort sort) {
+
+  public static final int MAX_RANGE_DAYS = 31;
+
+  public FlightSearch {
+    if (from == null || from.isBlank() || to == null || to.isBlank()) {
+      throw new IllegalArgumentException("from and to are required");
+    }
+    if (departFrom == null) {
+      throw new IllegalArgumentException("departFrom is required");
+    }
+    if (departTo == null) {
+      departTo = departFrom;
+    }
+    if (departTo.isBefore(departFrom)) {
+      throw new IllegalArgumentException("departTo is before departFrom");
+    }
+    if (ChronoUnit.DAYS.between(departFrom, departTo) >= MAX_RANGE_DAYS) {
+      throw new IllegalArgumentException("Date range is limited to " + MAX_RANGE_DAYS + " days");
+    }
+    from = from.trim();
+    to = to.trim();
+    minSeats = Math.max(minSeats, 1);
+    sort = sort == null ? Sort.DEPARTURE : sort;
+  }
+
+  /** First instant of the range. */
+  public Instant departStart() {
+    return departFrom.atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  /** Instant after the range (exclusive). */
+  public Instant departEnd() {
+    return departTo.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  /**
+   * Result order; ties broken by flight id.
+   */
+  public enum Sort {
+    /** Earliest departure first. */
+    DEPARTURE,
+    /** Cheapest first; flights without a price are not listed. */
+    PRICE;
+
+    /**
+     * Case-insensitive parse of a request parameter.
+     */
+    public static Sort parse(String value) {
+      try {
+        return value == null || value.isBlank() ? DEPARTURE : valueOf(value.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("sort must be departure or price");
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package dospring.service;
+
+import dospring.payload.response.FlightPage;
+import dospring.payload.response.FlightResponse;
+import dospring.repository.FlightRepository;
+import dospring.service.flightindex.FlightAvailability;
+import dospring.service.flightindex.FlightIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+/**
+ * Flight search by route and departure date range, one keyset page at a time.
+ *
+ * <p>Answered from the in-memory {@link FlightIndex} when it is loaded and covers the requested dates,
+ * otherwise by {@link FlightRepository}. Both give the same rows in the same order and share the
+ * cursor format, so a client can page across the two. Neither path opens a transaction: the
+ * database path is a single read-only statement.
+ */
+@Service
+public class FlightService {
+
+  static final int MAX_PAGE = 100;
+
+  private final FlightRepository flightRepository;
+  private final FlightAvailability availability;
+
+  public FlightService(FlightRepository flightRepository, ObjectProvider<FlightAvailability> availability) {
+    this.flightRepository = flightRepository;
+    this.availability = availability.getIfAvailable();
+  }
+
+  /**
+   * Flights matching {@code search}, in its order.
+   *
+   * @param cursor {@link FlightPage#nextCursor()} of the previous page (same search), or null for the
+   *               first page
+   * @param limit  page size, clamped to [1, {@value #MAX_PAGE}]
+   */
+  public FlightPage search(FlightSearch search, String cursor, int limit) {
+    int size = Math.max(1, Math.min(limit, MAX_PAGE));
+    FlightCursor after = cursor == null || cursor.isBlank() ? null : FlightCursor.decode(cursor, search.sort());
+
+    FlightIndex index = availability == null ? null : availability.index();
+    List<FlightResponse> rows = index != null && index.covers(search.departFrom(), search.departTo())
+        ? fromIndex(index, search, after, size + 1)
+        : fromDatabase(search, after, size + 1);
+
+    if (rows.size() <= size) {
+      return new FlightPage(rows, null);
+    }
+    List<FlightResponse> page = rows.subList(0, size);
+    FlightResponse last = page.get(size - 1);
+    String key = search.sort() == FlightSearch.Sort.PRICE ? last.price().toString() : last.departureAt().toString();
+    return new FlightPage(List.copyOf(page), new FlightCursor(search.sort(), key, last.id()).encode());
+  }
+
+  private static List<FlightResponse> fromIndex(FlightIndex index, FlightSearch search, FlightCursor after, int max) {
+    return switch (search.sort()) {
+      case DEPARTURE -> index.searchByDeparture(search, after == null ? null : Instant.parse(after.key()),
+          after == null ? 0L : after.id(), max);
+      case PRICE -> index.searchByPrice(search, after == null ? null : Double.valueOf(after.key()),
+          after == null ? 0L : after.id(), max);
+    };
+  }
+
+  private List<FlightResponse> fromDatabase(FlightSearch search, FlightCursor after, int max) {
+    Limit fetch = Limit.of(max);
+    return switch (search.sort()) {
+      case DEPARTURE -> after == null
+          ? flightRepository.searchByDeparture(search.from(), search.to(), search.departStart(), search.departEnd(),
+              search.minSeats(), fetch)
+          : flightRepository.searchByDepartureAfter(search.from(), search.to(), search.departStart(),
+              search.departEnd(), search.minSeats(), Instant.parse(after.key()), after.id(), fetch);
+      case PRICE -> after == null
+          ? flightRepository.searchByPrice(search.from(), search.to(), search.departStart(), search.departEnd(),
+              search.minSeats(), fetch)
+          : flightRepository.searchByPriceAfter(search.from(), search.to(), search.departStart(),
+              search.departEnd(), search.minSeats(), Double.valueOf(after.key()), after.id(), fetch);
+    };
+  }
+
+  /**
+   * Keyset position {@code (departureAt or price, id)} of one order, exchanged as opaque base64url text.
+   */
+  private record FlightCursor(FlightSearch.Sort sort, String key, Long id) {
+
+    String encode() {
+      String raw = sort.name() + "|" + key + "|" + id;
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static FlightCursor decode(String cursor, FlightSearch.Sort expected) {
+      try {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = raw.split("\\|", 3);
+        FlightSearch.Sort sort = FlightSearch.Sort.valueOf(parts[0]);
+        if (sort != expected) {
+          throw new IllegalArgumentException("Cursor sorted by " + sort + ", search by " + expected);
+        }
+        // Validate the key now rather than inside the query.
+        if (sort == FlightSearch.Sort.PRICE) {
+          Double.parseDouble(parts[1]);
+        } else {
+          Instant.parse(parts[1]);
+        }
+        return new FlightCursor(sort, parts[1], Long.parseLong(parts[2]));
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException("Invalid cursor", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package dospring.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Storage for hashed refresh tokens (rotation + revocation).
+ *
+ * <p>Implementations:
+ * <ul>
+ *   <li>{@code JpaRefreshTokenStore} (default): the {@code refresh_tokens} table.</li>
+ *   <li>{@code RedisRefreshTokenStore} ({@code app.auth.refresh-store=redis}): Redis hot tier with
+ *   native TTL and write-behind persistence to {@code refresh_tokens}.</li>
+ * </ul>
+ *
+ * <p>Session listing and revocation by session id stay on the {@code refresh_tokens} table.
+ */
+public interface RefreshTokenStore {
+
+  Optional<StoredRefreshToken> findByHash(String tokenHash);
+
+  /**
+   * Stores a newly minted token.
+   */
+  void save(StoredRefreshToken token);
+
+  /**
+   * Revokes {@code current} and stores {@code next} as one atomic step.
+   *
+   * @return false if {@code current} was already revoked (concurrent refresh or token replay)
+   */
+  boolean rotate(StoredRefreshToken current, StoredRefreshToken next, Instant now);
+
+  void revoke(String tokenHash, Instant now);
+
+  void revokeAll(Long userId, Instant now);
+
+  void revokeDevice(Long userId, String deviceId, Instant now);
+}
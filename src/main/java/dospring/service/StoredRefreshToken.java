@@ -0,0 +1,31 @@
+package dospring.service;
+
+import java.time.Instant;
+
+/**
+ * Storage-neutral view of a refresh token session, as returned by {@link RefreshTokenStore}.
+ *
+ * <p>Never carries the token value itself, only its SHA-256 hash.
+ *
+ * @param id        database id, or null when the record only exists in the hot tier
+ * @param revokedAt revocation time, null while active
+ */
+public record StoredRefreshToken(Long id,
+                                 String tokenHash,
+                                 Long userId,
+                                 String username,
+                                 String deviceId,
+                                 String userAgent,
+                                 String ipAddress,
+                                 Instant issuedAt,
+                                 Instant expiresAt,
+                                 Instant revokedAt) {
+
+  public boolean isExpired(Instant now) {
+    return expiresAt != null && expiresAt.isBefore(now);
+  }
+
+  public boolean isRevoked() {
+    return revokedAt != null;
+  }
+}
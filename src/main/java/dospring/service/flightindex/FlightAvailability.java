@@ -0,0 +1,193 @@
+package dospring.service.flightindex;
+
+import dospring.model.Flight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Owns the live {@link FlightIndex} that {@code FlightService} answers searches from.
+ *
+ * <ul>
+ *   <li>Loaded once the application is ready (until then searches go to the database), covering
+ *   departures from yesterday to {@code app.flight-index.horizon-days} ahead, UTC.</li>
+ *   <li>Kept current by {@link FlightIndexListener}, registered here with Hibernate: every insert,
+ *   update or delete of a {@link Flight} through JPA on this instance is applied after its transaction
+ *   commits.</li>
+ *   <li>Rebuilt from the database every {@code app.flight-index.reconcile-interval-ms}, which picks up
+ *   writes that bypass JPA (SQL, other services, other instances), slides the coverage window and
+ *   repairs any drift. Until then such writes are not visible to searches served from the index.
+ *   Changes committed while a rebuild reads the table are replayed onto the new index before it is
+ *   swapped in, so none is lost.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.flight-index.enabled", havingValue = "true", matchIfMissing = true)
+public class FlightAvailability {
+
+  private static final String LOAD = """
+      SELECT id, departure_location, arrival_location, departure_at, arrival_at, available_seats, price
+      FROM flights WHERE departure_at >= ? AND departure_at < ?
+      """;
+
+  private final JdbcTemplate jdbc;
+  private final int horizonDays;
+
+  private volatile FlightIndex index;
+  private final Object lock = new Object();
+  /** Changes applied while a rebuild is reading, replayed onto the rebuilt index. Guarded by lock. */
+  private List<Consumer<FlightIndex>> replay;
+
+  private final Counter updates;
+  private final Timer reconcileTimer;
+
+  public FlightAvailability(JdbcTemplate jdbc,
+                            EntityManagerFactory entityManagerFactory,
+                            ObjectProvider<MeterRegistry> meterRegistry,
+                            @Value("${app.flight-index.horizon-days:365}") int horizonDays) {
+    this.jdbc = jdbc;
+    this.horizonDays = Math.max(horizonDays, 1);
+
+    MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    this.updates = Counter.builder("flight_index.updates").register(registry);
+    this.reconcileTimer = Timer.builder("flight_index.reconcile").register(registry);
+    Gauge.builder("flight_index.flights", this, a -> {
+      FlightIndex current = a.index;
+      return current == null ? 0 : current.size();
+    }).register(registry);
+
+    FlightIndexListener listener = new FlightIndexListener(this);
+    EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry().requireService(EventListenerRegistry.class);
+    listeners.appendListeners(EventType.POST_INSERT, listener);
+    listeners.appendListeners(EventType.POST_UPDATE, listener);
+    listeners.appendListeners(EventType.POST_DELETE, listener);
+  }
+
+  /**
+   * The live index, or null while it has not been loaded yet.
+   */
+  public FlightIndex index() {
+    return index;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    reconcile();
+  }
+
+  @Scheduled(initialDelayString = "${app.flight-index.reconcile-interval-ms:300000}",
+      fixedDelayString = "${app.flight-index.reconcile-interval-ms:300000}")
+  public void reconcile() {
+    reconcileTimer.record(() -> {
+      synchronized (lock) {
+        replay = new ArrayList<>();
+      }
+      FlightIndex rebuilt;
+      try {
+        rebuilt = read();
+      } catch (RuntimeException e) {
+        synchronized (lock) {
+          replay = null;
+        }
+        log.warn("Flight index: reload failed, keeping the current index", e);
+        return;
+      }
+      synchronized (lock) {
+        replay.forEach(change -> change.accept(rebuilt));
+        replay = null;
+        index = rebuilt;
+      }
+      log.debug("Flight index: {} flights loaded", rebuilt.size());
+    });
+  }
+
+  private FlightIndex read() {
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    LocalDate first = today.minusDays(1);
+    LocalDate last = today.plusDays(horizonDays);
+    List<FlightIndex.Row> rows = new ArrayList<>();
+    jdbc.query(LOAD, rs -> {
+      Timestamp arrival = rs.getTimestamp(5);
+      int seats = rs.getInt(6);
+      boolean noSeats = rs.wasNull();
+      double price = rs.getDouble(7);
+      boolean noPrice = rs.wasNull();
+      rows.add(new FlightIndex.Row(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getTimestamp(4).toInstant(),
+          arrival == null ? null : arrival.toInstant(), noSeats ? null : seats, noPrice ? null : price));
+    }, Timestamp.from(first.atStartOfDay(ZoneOffset.UTC).toInstant()),
+        Timestamp.from(last.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant()));
+    return FlightIndex.build(rows, first, last);
+  }
+
+  /**
+   * Applies a saved flight once the current transaction commits (immediately without one).
+   */
+  void saved(Flight flight) {
+    if (flight.getId() == null) {
+      return;
+    }
+    FlightIndex.Row row = new FlightIndex.Row(flight.getId(), flight.getDepartureLocation(),
+        flight.getArrivalLocation(), flight.getDepartureAt(), flight.getArrivalAt(), flight.getAvailableSeats(),
+        flight.getPrice());
+    afterCommit(index -> index.upsert(row));
+  }
+
+  void removed(Long id) {
+    if (id != null) {
+      afterCommit(index -> index.remove(id));
+    }
+  }
+
+  private void afterCommit(Consumer<FlightIndex> change) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          apply(change);
+        }
+      });
+    } else {
+      apply(change);
+    }
+  }
+
+  private void apply(Consumer<FlightIndex> change) {
+    synchronized (lock) {
+      FlightIndex current = index;
+      if (current != null) {
+        change.accept(current);
+      }
+      if (replay != null) {
+        replay.add(change);
+      }
+    }
+    updates.increment();
+  }
+}
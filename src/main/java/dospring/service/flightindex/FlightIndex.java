@@ -0,0 +1,572 @@
+package dospring.service.flightindex;
+
+import dospring.payload.response.FlightResponse;
+import dospring.service.FlightSearch;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the searchable part of {@code flights}: departure location → arrival location →
+ * UTC day → the day's flights in compact primitive arrays, sorted like the search results.
+ *
+ * <p>Answers the same searches as {@code FlightRepository} (same filters, same order, same keyset
+ * semantics) with no SQL: a lookup walks at most {@value FlightSearch#MAX_RANGE_DAYS} day buckets and
+ * allocates only the returned rows. Only flights departing within {@link #covers coverage} are held.
+ *
+ * <p>Reads are lock-free: every bucket is immutable and replaced whole (copy-on-write) when one of its
+ * flights changes, which is cheap because a route has few flights a day. Writers serialise on this
+ * object; a bucket change copies its columns array to array, and flights are found by id through a
+ * primitive open-addressing table, so the index holds no object per flight. Times are kept to the
+ * microsecond, the precision of the {@code TIMESTAMPTZ} columns, so results and cursors are the same
+ * as from SQL.
+ */
+public final class FlightIndex {
+
+  private static final int SECONDS_PER_DAY = 86_400;
+  private static final long MICROS_PER_SECOND = 1_000_000L;
+  private static final long NO_ARRIVAL = Long.MIN_VALUE;
+
+  /**
+   * One {@code flights} row as indexed; a null {@code departureAt} is never searchable. Times are
+   * truncated to the microsecond.
+   */
+  public record Row(long id,
+                    String from,
+                    String to,
+                    Instant departureAt,
+                    Instant arrivalAt,
+                    Integer availableSeats,
+                    Double price) {
+
+    public Row {
+      departureAt = departureAt == null ? null : departureAt.truncatedTo(ChronoUnit.MICROS);
+      arrivalAt = arrivalAt == null ? null : arrivalAt.truncatedTo(ChronoUnit.MICROS);
+    }
+  }
+
+  private final long firstDay;
+  private final long lastDay;
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, Route>> routes = new ConcurrentHashMap<>();
+  /** Route and day of every indexed flight, to find its bucket when it changes. Guarded by {@code this}. */
+  private final Locations locations = new Locations();
+  private volatile int size;
+
+  private FlightIndex(LocalDate firstDay, LocalDate lastDay) {
+    this.firstDay = firstDay.toEpochDay();
+    this.lastDay = lastDay.toEpochDay();
+  }
+
+  /**
+   * Index of {@code source} restricted to flights departing from {@code firstDay} to {@code lastDay}
+   * (UTC, inclusive).
+   */
+  public static FlightIndex build(Iterable<Row> source, LocalDate firstDay, LocalDate lastDay) {
+    FlightIndex index = new FlightIndex(firstDay, lastDay);
+    Map<Route, Map<Long, List<Row>>> grouped = new HashMap<>();
+    for (Row row : source) {
+      if (index.inCoverage(row)) {
+        Route route = index.route(row.from(), row.to());
+        long day = epochDay(row.departureAt());
+        index.locations.put(row.id(), route, day);
+        grouped.computeIfAbsent(route, r -> new HashMap<>())
+            .computeIfAbsent(day, d -> new ArrayList<>())
+            .add(row);
+      }
+    }
+    grouped.forEach((route, days) -> {
+      long[] epochDays = days.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+      Day[] buckets = new Day[epochDays.length];
+      for (int i = 0; i < epochDays.length; i++) {
+        buckets[i] = Day.of(days.get(epochDays[i]), epochDays[i]);
+      }
+      route.days = new Days(epochDays, buckets);
+    });
+    index.size = index.locations.size();
+    return index;
+  }
+
+  /**
+   * Whether every departure day from {@code from} to {@code to} is held by this index.
+   */
+  public boolean covers(LocalDate from, LocalDate to) {
+    return from.toEpochDay() >= firstDay && to.toEpochDay() <= lastDay;
+  }
+
+  /** Number of flights held. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Adds or replaces a flight; a flight moved out of coverage (or without a departure) is removed.
+   */
+  public synchronized void upsert(Row row) {
+    removeRow(row.id());
+    if (inCoverage(row)) {
+      Route route = route(row.from(), row.to());
+      long day = epochDay(row.departureAt());
+      locations.put(row.id(), route, day);
+      Days days = route.days;
+      int at = Arrays.binarySearch(days.epochDays, day);
+      route.days = at >= 0
+          ? days.replace(at, days.buckets[at].with(row, day))
+          : days.insert(-at - 1, day, Day.of(List.of(row), day));
+    }
+    size = locations.size();
+  }
+
+  public synchronized void remove(long id) {
+    removeRow(id);
+    size = locations.size();
+  }
+
+  private void removeRow(long id) {
+    int slot = locations.find(id);
+    if (slot < 0) {
+      return;
+    }
+    Route route = locations.routes[slot];
+    long day = locations.days[slot];
+    locations.delete(slot);
+    Days days = route.days;
+    int at = Arrays.binarySearch(days.epochDays, day);
+    Day left = days.buckets[at].without(id);
+    route.days = left == null ? days.delete(at) : days.replace(at, left);
+  }
+
+  /**
+   * {@code FlightRepository.searchByDeparture[After]}: earliest departure first, ties by id.
+   *
+   * @param afterDeparture keyset of the previous page's last row, or null for the first page
+   * @param max            rows to return at most
+   */
+  public List<FlightResponse> searchByDeparture(FlightSearch search, Instant afterDeparture, long afterId, int max) {
+    Route route = find(search);
+    if (route == null) {
+      return Collections.emptyList();
+    }
+    Days days = route.days;
+    long startDay = search.departFrom().toEpochDay();
+    long endDay = search.departTo().toEpochDay();
+    long afterDay = Long.MIN_VALUE;
+    long afterMicro = 0;
+    if (afterDeparture != null) {
+      afterDay = epochDay(afterDeparture);
+      afterMicro = microOfDay(afterDeparture, afterDay);
+      startDay = Math.max(startDay, afterDay);
+    }
+
+    List<FlightResponse> out = new ArrayList<>(Math.min(max, 64));
+    for (int i = lowerBound(days.epochDays, startDay); i < days.epochDays.length && days.epochDays[i] <= endDay; i++) {
+      long day = days.epochDays[i];
+      Day bucket = days.buckets[i];
+      int j = day == afterDay ? bucket.firstAfter(afterMicro, afterId) : 0;
+      for (; j < bucket.ids.length; j++) {
+        if (bucket.seats[j] >= search.minSeats()) {
+          out.add(bucket.response(route, day, j));
+          if (out.size() == max) {
+            return out;
+          }
+        }
+      }
+    }
+    return out;
+  }
+
+  /**
+   * {@code FlightRepository.searchByPrice[After]}: cheapest first, ties by id, unpriced flights left
+   * out. Merges the days' price orders.
+   *
+   * @param afterPrice keyset of the previous page's last row, or null for the first page
+   * @param max        rows to return at most
+   */
+  public List<FlightResponse> searchByPrice(FlightSearch search, Double afterPrice, long afterId, int max) {
+    Route route = find(search);
+    if (route == null) {
+      return Collections.emptyList();
+    }
+    Days days = route.days;
+    int from = lowerBound(days.epochDays, search.departFrom().toEpochDay());
+    int to = lowerBound(days.epochDays, search.departTo().toEpochDay() + 1);
+    int span = to - from;
+    if (span <= 0) {
+      return Collections.emptyList();
+    }
+    // Per day, the next position in its price order.
+    int[] heads = new int[span];
+    if (afterPrice != null) {
+      for (int d = 0; d < span; d++) {
+        heads[d] = days.buckets[from + d].firstPricedAfter(afterPrice, afterId);
+      }
+    }
+
+    List<FlightResponse> out = new ArrayList<>(Math.min(max, 64));
+    while (out.size() < max) {
+      int best = -1;
+      Day bestDay = null;
+      int bestRow = 0;
+      for (int d = 0; d < span; d++) {
+        Day bucket = days.buckets[from + d];
+        int[] byPrice = bucket.byPrice;
+        int h = heads[d];
+        while (h < byPrice.length && bucket.seats[byPrice[h]] < search.minSeats()) {
+          h++;
+        }
+        heads[d] = h;
+        if (h < byPrice.length) {
+          int row = byPrice[h];
+          if (best < 0 || bucket.comparePrice(row, bestDay.prices[bestRow], bestDay.ids[bestRow]) < 0) {
+            best = d;
+            bestDay = bucket;
+            bestRow = row;
+          }
+        }
+      }
+      if (best < 0) {
+        break;
+      }
+      out.add(bestDay.response(route, days.epochDays[from + best], bestRow));
+      heads[best]++;
+    }
+    return out;
+  }
+
+  private Route find(FlightSearch search) {
+    Map<String, Route> byArrival = routes.get(search.from());
+    return byArrival == null ? null : byArrival.get(search.to());
+  }
+
+  private Route route(String from, String to) {
+    return routes.computeIfAbsent(from, f -> new ConcurrentHashMap<>()).computeIfAbsent(to, t -> new Route(from, to));
+  }
+
+  private boolean inCoverage(Row row) {
+    if (row.departureAt() == null || row.from() == null || row.to() == null) {
+      return false;
+    }
+    long day = epochDay(row.departureAt());
+    return day >= firstDay && day <= lastDay;
+  }
+
+  private static long epochDay(Instant at) {
+    return Math.floorDiv(at.getEpochSecond(), SECONDS_PER_DAY);
+  }
+
+  /** Microseconds from the start of {@code day} to {@code at}. */
+  private static long microOfDay(Instant at, long day) {
+    return (at.getEpochSecond() - day * SECONDS_PER_DAY) * MICROS_PER_SECOND + at.getNano() / 1_000;
+  }
+
+  private static Instant atMicroOfDay(long day, long micro) {
+    return Instant.ofEpochSecond(day * SECONDS_PER_DAY).plus(micro, ChronoUnit.MICROS);
+  }
+
+  /** First index whose value is {@code >= key}. */
+  private static int lowerBound(long[] sorted, long key) {
+    int at = Arrays.binarySearch(sorted, key);
+    return at >= 0 ? at : -at - 1;
+  }
+
+  /** One route; {@code days} is replaced whole on every change. */
+  private static final class Route {
+    final String from;
+    final String to;
+    volatile Days days = new Days(new long[0], new Day[0]);
+
+    Route(String from, String to) {
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  /** A route's day buckets, ordered by day. Immutable. */
+  private record Days(long[] epochDays, Day[] buckets) {
+
+    Days replace(int at, Day bucket) {
+      Day[] next = buckets.clone();
+      next[at] = bucket;
+      return new Days(epochDays, next);
+    }
+
+    Days insert(int at, long day, Day bucket) {
+      long[] nextDays = new long[epochDays.length + 1];
+      Day[] next = new Day[buckets.length + 1];
+      System.arraycopy(epochDays, 0, nextDays, 0, at);
+      System.arraycopy(buckets, 0, next, 0, at);
+      nextDays[at] = day;
+      next[at] = bucket;
+      System.arraycopy(epochDays, at, nextDays, at + 1, epochDays.length - at);
+      System.arraycopy(buckets, at, next, at + 1, buckets.length - at);
+      return new Days(nextDays, next);
+    }
+
+    Days delete(int at) {
+      long[] nextDays = new long[epochDays.length - 1];
+      Day[] next = new Day[buckets.length - 1];
+      System.arraycopy(epochDays, 0, nextDays, 0, at);
+      System.arraycopy(buckets, 0, next, 0, at);
+      System.arraycopy(epochDays, at + 1, nextDays, at, nextDays.length - at);
+      System.arraycopy(buckets, at + 1, next, at, next.length - at);
+      return new Days(nextDays, next);
+    }
+  }
+
+  /**
+   * One route's flights of one UTC day, sorted by (departure, id), column per field. Immutable.
+   */
+  private static final class Day {
+    final long[] ids;
+    /** Departure, microseconds into the day. */
+    final long[] departs;
+    /** Arrival, microseconds after departure, or {@link #NO_ARRIVAL}. */
+    final long[] durations;
+    final int[] seats;
+    /** NaN when the flight has no price. */
+    final double[] prices;
+    /** Positions of priced flights, sorted by (price, id). */
+    final int[] byPrice;
+
+    private Day(int n) {
+      ids = new long[n];
+      departs = new long[n];
+      durations = new long[n];
+      seats = new int[n];
+      prices = new double[n];
+      byPrice = null;
+    }
+
+    private Day(Day columns, int[] byPrice) {
+      ids = columns.ids;
+      departs = columns.departs;
+      durations = columns.durations;
+      seats = columns.seats;
+      prices = columns.prices;
+      this.byPrice = byPrice;
+    }
+
+    static Day of(List<Row> source, long day) {
+      Row[] sorted = source.toArray(new Row[0]);
+      Arrays.sort(sorted, (a, b) -> {
+        int c = a.departureAt().compareTo(b.departureAt());
+        return c != 0 ? c : Long.compare(a.id(), b.id());
+      });
+      Day columns = new Day(sorted.length);
+      int priced = 0;
+      for (int i = 0; i < sorted.length; i++) {
+        columns.set(i, sorted[i], day);
+        if (sorted[i].price() != null) {
+          priced++;
+        }
+      }
+      Integer[] order = new Integer[priced];
+      for (int i = 0, k = 0; i < sorted.length; i++) {
+        if (!Double.isNaN(columns.prices[i])) {
+          order[k++] = i;
+        }
+      }
+      Arrays.sort(order, (a, b) -> columns.comparePrice(a, columns.prices[b], columns.ids[b]));
+      int[] byPrice = new int[priced];
+      for (int i = 0; i < priced; i++) {
+        byPrice[i] = order[i];
+      }
+      return new Day(columns, byPrice);
+    }
+
+    /** This bucket plus {@code row}, which it must not hold yet. */
+    Day with(Row row, long day) {
+      int n = ids.length;
+      int at = firstAfter(microOfDay(row.departureAt(), day), row.id());
+      Day columns = new Day(n + 1);
+      copy(this, 0, columns, 0, at);
+      copy(this, at, columns, at + 1, n - at);
+      columns.set(at, row, day);
+
+      boolean priced = row.price() != null;
+      int pricedAt = priced ? firstPricedAfter(row.price(), row.id()) : byPrice.length;
+      int[] order = new int[byPrice.length + (priced ? 1 : 0)];
+      for (int k = 0; k < byPrice.length; k++) {
+        int i = byPrice[k];
+        order[k < pricedAt ? k : k + 1] = i < at ? i : i + 1;
+      }
+      if (priced) {
+        order[pricedAt] = at;
+      }
+      return new Day(columns, order);
+    }
+
+    /** This bucket without flight {@code id}, or null if nothing is left. */
+    Day without(long id) {
+      int n = ids.length;
+      int at = 0;
+      while (ids[at] != id) {
+        at++;
+      }
+      if (n == 1) {
+        return null;
+      }
+      Day columns = new Day(n - 1);
+      copy(this, 0, columns, 0, at);
+      copy(this, at + 1, columns, at, n - at - 1);
+
+      int[] order = new int[Double.isNaN(prices[at]) ? byPrice.length : byPrice.length - 1];
+      for (int k = 0, j = 0; k < byPrice.length; k++) {
+        int i = byPrice[k];
+        if (i != at) {
+          order[j++] = i < at ? i : i - 1;
+        }
+      }
+      return new Day(columns, order);
+    }
+
+    private void set(int i, Row row, long day) {
+      long depart = microOfDay(row.departureAt(), day);
+      ids[i] = row.id();
+      departs[i] = depart;
+      durations[i] = row.arrivalAt() == null
+          ? NO_ARRIVAL
+          : microOfDay(row.arrivalAt(), day) - depart;
+      // A null seat count never matches "available_seats >= :seats" (seats >= 1).
+      seats[i] = row.availableSeats() == null ? 0 : row.availableSeats();
+      prices[i] = row.price() == null ? Double.NaN : row.price();
+    }
+
+    private static void copy(Day from, int fromAt, Day to, int toAt, int length) {
+      System.arraycopy(from.ids, fromAt, to.ids, toAt, length);
+      System.arraycopy(from.departs, fromAt, to.departs, toAt, length);
+      System.arraycopy(from.durations, fromAt, to.durations, toAt, length);
+      System.arraycopy(from.seats, fromAt, to.seats, toAt, length);
+      System.arraycopy(from.prices, fromAt, to.prices, toAt, length);
+    }
+
+    /** First position after keyset {@code (departMicro, id)}. */
+    int firstAfter(long departMicro, long id) {
+      int lo = 0;
+      int hi = ids.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (departs[mid] < departMicro || (departs[mid] == departMicro && ids[mid] <= id)) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    /** First position in {@link #byPrice} after keyset {@code (price, id)}. */
+    int firstPricedAfter(double price, long id) {
+      int lo = 0;
+      int hi = byPrice.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (comparePrice(byPrice[mid], price, id) <= 0) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    int comparePrice(int row, double price, long id) {
+      int c = Double.compare(prices[row], price);
+      return c != 0 ? c : Long.compare(ids[row], id);
+    }
+
+    FlightResponse response(Route route, long day, int row) {
+      Instant departure = atMicroOfDay(day, departs[row]);
+      return new FlightResponse(ids[row], route.from, route.to, departure,
+          durations[row] == NO_ARRIVAL ? null : departure.plus(durations[row], ChronoUnit.MICROS),
+          seats[row], Double.isNaN(prices[row]) ? null : prices[row]);
+    }
+  }
+
+  /**
+   * Flight id → route and day, open addressing with linear probing and backward-shift deletion, in
+   * parallel arrays; a null route marks a free slot. Guarded by the index.
+   */
+  private static final class Locations {
+    long[] ids = new long[16];
+    Route[] routes = new Route[16];
+    long[] days = new long[16];
+    private int size;
+
+    int size() {
+      return size;
+    }
+
+    /** Slot holding {@code id}, or -1. */
+    int find(long id) {
+      int mask = ids.length - 1;
+      for (int i = slot(id, mask); routes[i] != null; i = (i + 1) & mask) {
+        if (ids[i] == id) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    void put(long id, Route route, long day) {
+      if ((size + 1) * 4L > ids.length * 3L) {
+        grow();
+      }
+      int mask = ids.length - 1;
+      int i = slot(id, mask);
+      while (routes[i] != null && ids[i] != id) {
+        i = (i + 1) & mask;
+      }
+      if (routes[i] == null) {
+        size++;
+      }
+      ids[i] = id;
+      routes[i] = route;
+      days[i] = day;
+    }
+
+    /** Empties {@code slot}, moving back later entries of its probe run so lookups need no tombstones. */
+    void delete(int slot) {
+      int mask = ids.length - 1;
+      int hole = slot;
+      for (int i = (slot + 1) & mask; routes[i] != null; i = (i + 1) & mask) {
+        // Movable unless its home slot lies cyclically in (hole, i].
+        if (((i - slot(ids[i], mask)) & mask) >= ((i - hole) & mask)) {
+          ids[hole] = ids[i];
+          routes[hole] = routes[i];
+          days[hole] = days[i];
+          hole = i;
+        }
+      }
+      routes[hole] = null;
+      size--;
+    }
+
+    private void grow() {
+      long[] oldIds = ids;
+      Route[] oldRoutes = routes;
+      long[] oldDays = days;
+      ids = new long[oldIds.length * 2];
+      routes = new Route[oldIds.length * 2];
+      days = new long[oldIds.length * 2];
+      size = 0;
+      for (int i = 0; i < oldIds.length; i++) {
+        if (oldRoutes[i] != null) {
+          put(oldIds[i], oldRoutes[i], oldDays[i]);
+        }
+      }
+    }
+
+    private static int slot(long id, int mask) {
+      long h = id * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+  }
+}
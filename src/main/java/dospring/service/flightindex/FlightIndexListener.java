@@ -0,0 +1,51 @@
+package dospring.service.flightindex;
+
+import dospring.model.Flight;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Forwards {@link Flight} writes to {@link FlightAvailability}, which applies them to the index after
+ * commit. A Hibernate event listener registered by {@link FlightAvailability} itself, so the entity
+ * knows nothing about the index, and nothing is registered while the index is disabled.
+ */
+final class FlightIndexListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+  private final FlightAvailability availability;
+
+  FlightIndexListener(FlightAvailability availability) {
+    this.availability = availability;
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof Flight flight) {
+      availability.saved(flight);
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (event.getEntity() instanceof Flight flight) {
+      availability.saved(flight);
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof Flight flight) {
+      availability.removed(flight.getId());
+    }
+  }
+
+  /** Commit ordering is handled by {@link FlightAvailability} through transaction synchronization. */
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return false;
+  }
+}
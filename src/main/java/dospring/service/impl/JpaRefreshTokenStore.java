@@ -0,0 +1,87 @@
+package dospring.service.impl;
+
+import dospring.model.RefreshToken;
+import dospring.repository.RefreshTokenRepository;
+import dospring.repository.UserRepository;
+import dospring.service.RefreshTokenStore;
+import dospring.service.StoredRefreshToken;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Default {@link RefreshTokenStore}: the {@code refresh_tokens} table.
+ *
+ * <p>Also serves as the durable tier behind {@link RedisRefreshTokenStore}.
+ */
+@Service
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+  private final RefreshTokenRepository refreshTokenRepository;
+  private final UserRepository userRepository;
+
+  public JpaRefreshTokenStore(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
+    this.refreshTokenRepository = refreshTokenRepository;
+    this.userRepository = userRepository;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<StoredRefreshToken> findByHash(String tokenHash) {
+    return refreshTokenRepository.findStoredByTokenHash(tokenHash);
+  }
+
+  @Override
+  @Transactional
+  public void save(StoredRefreshToken token) {
+    RefreshToken rt = RefreshToken.builder()
+        .user(userRepository.getReferenceById(token.userId()))
+        .tokenHash(token.tokenHash())
+        .deviceId(token.deviceId())
+        .userAgent(token.userAgent())
+        .ipAddress(token.ipAddress())
+        .expiresAt(token.expiresAt())
+        .revokedAt(token.revokedAt())
+        .lastUsedAt(token.issuedAt())
+        .build();
+    refreshTokenRepository.save(rt);
+  }
+
+  /**
+   * Conditional UPDATE on {@code revoked_at is null}: of two concurrent refreshes with the same
+   * token, only one can win.
+   */
+  @Override
+  @Transactional
+  public boolean rotate(StoredRefreshToken current, StoredRefreshToken next, Instant now) {
+    if (refreshTokenRepository.revokeForRotation(current.tokenHash(), now) == 0) {
+      return false;
+    }
+    save(next);
+    return true;
+  }
+
+  @Override
+  @Transactional
+  public void revoke(String tokenHash, Instant now) {
+    refreshTokenRepository.revokeByTokenHash(tokenHash, now);
+  }
+
+  /**
+   * One set-based UPDATE, whatever the number of sessions.
+   */
+  @Override
+  @Transactional
+  public void revokeAll(Long userId, Instant now) {
+    refreshTokenRepository.revokeAllByUserId(userId, now);
+  }
+
+  @Override
+  @Transactional
+  public void revokeDevice(Long userId, String deviceId, Instant now) {
+    refreshTokenRepository.revokeAllByUserIdAndDeviceId(userId, deviceId, now);
+  }
+}
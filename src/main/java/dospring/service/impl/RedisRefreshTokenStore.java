@@ -0,0 +1,428 @@
+package dospring.service.impl;
+
+import dospring.service.RefreshTokenStore;
+import dospring.service.StoredRefreshToken;
+import io.lettuce.core.Consumer;
+import io.lettuce.core.RedisBusyException;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XGroupCreateArgs;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Two-tier {@link RefreshTokenStore}: Redis hot tier in front of {@code refresh_tokens}.
+ *
+ * <p>Layout:
+ * <ul>
+ *   <li>{@code rt:{hash}}: hash of the session fields, native TTL = {@code expiresAt}.</li>
+ *   <li>Revoked tokens become tombstones ({@code rev} field only) kept for
+ *   {@code tombstone-seconds}, so a replayed token is rejected even before the database catches up.</li>
+ *   <li>{@code rt:u:{userId}}: set of the user's live token hashes (logout-all / logout-device).</li>
+ *   <li>{@code rt:wb}: Redis Stream of pending database writes (write-behind log).</li>
+ * </ul>
+ *
+ * <p>Every mutation is a single Lua script that updates the hot tier <em>and</em> appends to the
+ * write-behind stream, so a rotation is one Redis round trip and no write is lost if the JVM dies.
+ * {@link #flushWriteBehind()} replays the stream into the durable store in order; a Redis lease
+ * ensures a single instance consumes it at a time.
+ *
+ * <p>Scripts touch only keys passed in {@code KEYS}: revocations first read which keys they need (the
+ * token's owner, the user's set) and retry if those changed before the script ran. The stream is a
+ * single key shared by all users, so the layout targets one primary (standalone or Sentinel), not a
+ * sharded Redis Cluster.
+ *
+ * <p>Lookups that miss Redis fall back to the durable store (tokens minted before the switch, or
+ * a flushed Redis). Tombstones must outlive the worst-case write-behind lag.
+ */
+@Slf4j
+public class RedisRefreshTokenStore implements RefreshTokenStore, AutoCloseable {
+
+  static final String TOKEN_PREFIX = "rt:";
+  static final String USER_PREFIX = "rt:u:";
+  static final String STREAM = "rt:wb";
+  static final String GROUP = "rt-writers";
+  static final String LEASE_KEY = "rt:wb:lease";
+
+  /** One logical consumer: the lease holder, whichever instance it is, so replay stays ordered. */
+  private static final String CONSUMER = "writer";
+
+  /** Revocations read keys before their script; they retry this often if those keys move underneath. */
+  private static final int MAX_ATTEMPTS = 5;
+
+  private static final String MINT = """
+      redis.call('HSET', KEYS[1], unpack(ARGV, 4))
+      redis.call('PEXPIREAT', KEYS[1], ARGV[1])
+      redis.call('SADD', KEYS[2], ARGV[3])
+      redis.call('PEXPIRE', KEYS[2], ARGV[2])
+      redis.call('XADD', KEYS[3], '*', 'op', 'insert', 'h', ARGV[3], unpack(ARGV, 4))
+      return 1
+      """;
+
+  private static final String ROTATE = """
+      if redis.call('HEXISTS', KEYS[1], 'rev') == 1 then return 0 end
+      if ARGV[1] == '1' and redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+      redis.call('DEL', KEYS[1])
+      redis.call('HSET', KEYS[1], 'rev', ARGV[2])
+      redis.call('PEXPIRE', KEYS[1], ARGV[3])
+      redis.call('SREM', KEYS[3], ARGV[4])
+      redis.call('HSET', KEYS[2], unpack(ARGV, 8))
+      redis.call('PEXPIREAT', KEYS[2], ARGV[5])
+      redis.call('SADD', KEYS[3], ARGV[7])
+      redis.call('PEXPIRE', KEYS[3], ARGV[6])
+      redis.call('XADD', KEYS[4], '*', 'op', 'rotate', 'old', ARGV[4], 'at', ARGV[2], 'h', ARGV[7], unpack(ARGV, 8))
+      return 1
+      """;
+
+  /**
+   * KEYS[3] is the owner's set, read by the caller: a token whose {@code uid} no longer matches
+   * ARGV[4] ({@code ''} when it had none) is left alone and 0 returned, so the caller re-reads it.
+   */
+  private static final String REVOKE = """
+      if redis.call('HEXISTS', KEYS[1], 'rev') == 0 then
+        local uid = redis.call('HGET', KEYS[1], 'uid') or ''
+        if uid ~= ARGV[4] then return 0 end
+        redis.call('DEL', KEYS[1])
+        redis.call('HSET', KEYS[1], 'rev', ARGV[2])
+        redis.call('PEXPIRE', KEYS[1], ARGV[3])
+        if uid ~= '' then redis.call('SREM', KEYS[3], ARGV[1]) end
+      end
+      redis.call('XADD', KEYS[2], '*', 'op', 'revoke', 'h', ARGV[1], 'at', ARGV[2])
+      return 1
+      """;
+
+  /**
+   * Revokes the user's live tokens (ARGV[4] = 'all'), or only those of device ARGV[5] ('device').
+   * KEYS[3..] are the token keys of the set members the caller read, ARGV[6..] their hashes; if the set
+   * has gained a member since, nothing is done and 0 returned, so the caller re-reads it.
+   */
+  private static final String REVOKE_USER = """
+      local passed = {}
+      for i = 6, #ARGV do passed[ARGV[i]] = true end
+      for _, h in ipairs(redis.call('SMEMBERS', KEYS[1])) do
+        if not passed[h] then return 0 end
+      end
+      for i = 3, #KEYS do
+        local k = KEYS[i]
+        local h = ARGV[i + 3]
+        if ARGV[4] == 'all' or redis.call('HGET', k, 'dev') == ARGV[5] then
+          if redis.call('HEXISTS', k, 'rev') == 0 then
+            redis.call('DEL', k)
+            redis.call('HSET', k, 'rev', ARGV[2])
+            redis.call('PEXPIRE', k, ARGV[3])
+          end
+          redis.call('SREM', KEYS[1], h)
+        end
+      end
+      if ARGV[4] == 'all' then
+        redis.call('XADD', KEYS[2], '*', 'op', 'revoke_all', 'uid', ARGV[1], 'at', ARGV[2])
+      else
+        redis.call('XADD', KEYS[2], '*', 'op', 'revoke_device', 'uid', ARGV[1], 'dev', ARGV[5], 'at', ARGV[2])
+      end
+      return 1
+      """;
+
+  private static final String LEASE = """
+      local v = redis.call('GET', KEYS[1])
+      if v == false then
+        redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+        return 1
+      end
+      if v == ARGV[1] then
+        redis.call('PEXPIRE', KEYS[1], ARGV[2])
+        return 1
+      end
+      return 0
+      """;
+
+  private final StatefulRedisConnection<String, String> connection;
+  private final RedisCommands<String, String> redis;
+  private final RefreshTokenStore durable;
+  private final TransactionOperations transactions;
+  private final long tombstoneMillis;
+  private final long userSetTtlMillis;
+  private final int flushBatchSize;
+  private final long leaseMillis;
+  private final String nodeId = UUID.randomUUID().toString();
+
+  private final Map<String, String> scriptShas = new HashMap<>();
+
+  public RedisRefreshTokenStore(StatefulRedisConnection<String, String> connection,
+                                RefreshTokenStore durable,
+                                TransactionOperations transactions,
+                                long refreshTtlSeconds,
+                                long tombstoneSeconds,
+                                int flushBatchSize,
+                                long leaseMillis) {
+    this.connection = connection;
+    this.redis = connection.sync();
+    this.durable = durable;
+    this.transactions = transactions;
+    this.tombstoneMillis = tombstoneSeconds * 1000L;
+    this.userSetTtlMillis = refreshTtlSeconds * 1000L;
+    this.flushBatchSize = flushBatchSize;
+    this.leaseMillis = leaseMillis;
+
+    for (String script : List.of(MINT, ROTATE, REVOKE, REVOKE_USER, LEASE)) {
+      scriptShas.put(script, redis.digest(script));
+    }
+    try {
+      redis.xgroupCreate(XReadArgs.StreamOffset.from(STREAM, "0"), GROUP, XGroupCreateArgs.Builder.mkstream());
+    } catch (RedisBusyException e) {
+      // group already exists
+    }
+  }
+
+  @Override
+  public Optional<StoredRefreshToken> findByHash(String tokenHash) {
+    Map<String, String> fields = redis.hgetall(TOKEN_PREFIX + tokenHash);
+    if (fields.isEmpty()) {
+      return durable.findByHash(tokenHash);
+    }
+    String rev = fields.get("rev");
+    if (rev != null) {
+      return Optional.of(new StoredRefreshToken(null, tokenHash, null, null, null, null, null, null, null,
+          Instant.ofEpochMilli(Long.parseLong(rev))));
+    }
+    return Optional.of(fromFields(tokenHash, fields));
+  }
+
+  @Override
+  public void save(StoredRefreshToken token) {
+    List<String> args = new ArrayList<>();
+    args.add(String.valueOf(token.expiresAt().toEpochMilli()));
+    args.add(String.valueOf(userSetTtlMillis));
+    args.add(token.tokenHash());
+    appendFields(args, token);
+    eval(MINT, new String[] {TOKEN_PREFIX + token.tokenHash(), USER_PREFIX + token.userId(), STREAM}, args);
+  }
+
+  @Override
+  public boolean rotate(StoredRefreshToken current, StoredRefreshToken next, Instant now) {
+    List<String> args = new ArrayList<>();
+    // Tokens found in the durable tier have no hot entry yet: do not require one.
+    args.add(current.id() == null ? "1" : "0");
+    args.add(String.valueOf(now.toEpochMilli()));
+    args.add(String.valueOf(tombstoneMillis));
+    args.add(current.tokenHash());
+    args.add(String.valueOf(next.expiresAt().toEpochMilli()));
+    args.add(String.valueOf(userSetTtlMillis));
+    args.add(next.tokenHash());
+    appendFields(args, next);
+    Long ok = eval(ROTATE, new String[] {
+        TOKEN_PREFIX + current.tokenHash(), TOKEN_PREFIX + next.tokenHash(), USER_PREFIX + next.userId(), STREAM
+    }, args);
+    return ok != null && ok == 1L;
+  }
+
+  @Override
+  public void revoke(String tokenHash, Instant now) {
+    String tokenKey = TOKEN_PREFIX + tokenHash;
+    for (int attempt = 1; ; attempt++) {
+      String uid = redis.hget(tokenKey, "uid");
+      String[] keys = uid == null
+          ? new String[] {tokenKey, STREAM}
+          : new String[] {tokenKey, STREAM, USER_PREFIX + uid};
+      List<String> args = List.of(tokenHash, String.valueOf(now.toEpochMilli()), String.valueOf(tombstoneMillis),
+          uid == null ? "" : uid);
+      if (succeeded(eval(REVOKE, keys, args), attempt)) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void revokeAll(Long userId, Instant now) {
+    revokeMembers(userId, null, now);
+  }
+
+  @Override
+  public void revokeDevice(Long userId, String deviceId, Instant now) {
+    revokeMembers(userId, deviceId, now);
+  }
+
+  /**
+   * Reads the user's set, then revokes its members in one script that receives every token key through
+   * KEYS; re-reads if the set changed in between.
+   */
+  private void revokeMembers(Long userId, String deviceId, Instant now) {
+    String userKey = USER_PREFIX + userId;
+    for (int attempt = 1; ; attempt++) {
+      List<String> hashes = new ArrayList<>(redis.smembers(userKey));
+      String[] keys = new String[hashes.size() + 2];
+      keys[0] = userKey;
+      keys[1] = STREAM;
+      List<String> args = new ArrayList<>(hashes.size() + 5);
+      args.add(String.valueOf(userId));
+      args.add(String.valueOf(now.toEpochMilli()));
+      args.add(String.valueOf(tombstoneMillis));
+      args.add(deviceId == null ? "all" : "device");
+      args.add(deviceId == null ? "" : deviceId);
+      for (int i = 0; i < hashes.size(); i++) {
+        keys[i + 2] = TOKEN_PREFIX + hashes.get(i);
+        args.add(hashes.get(i));
+      }
+      if (succeeded(eval(REVOKE_USER, keys, args), attempt)) {
+        return;
+      }
+    }
+  }
+
+  /** False asks for another attempt: the keys read before the script changed before it ran. */
+  private static boolean succeeded(Long result, int attempt) {
+    if (result != null && result == 1L) {
+      return true;
+    }
+    if (attempt >= MAX_ATTEMPTS) {
+      throw new IllegalStateException("Refresh tokens kept changing during revocation; giving up after "
+          + MAX_ATTEMPTS + " attempts");
+    }
+    return false;
+  }
+
+  /**
+   * Replays pending write-behind entries into the durable store.
+   *
+   * <p>Entries already delivered but not acknowledged (previous holder crashed mid-batch) are
+   * replayed first. A batch is applied in one transaction; if it fails, entries are retried one by one
+   * and an entry that still fails is logged and dropped so it cannot block the stream.
+   *
+   * @return number of entries acknowledged
+   */
+  @Scheduled(fixedDelayString = "${app.auth.refresh-store.redis.flush-interval-ms:1000}")
+  public int flushWriteBehind() {
+    int total = 0;
+    try {
+      if (!holdsLease()) {
+        return 0;
+      }
+      List<StreamMessage<String, String>> batch = read(XReadArgs.StreamOffset.from(STREAM, "0"));
+      if (batch.isEmpty()) {
+        batch = read(XReadArgs.StreamOffset.lastConsumed(STREAM));
+      }
+      while (!batch.isEmpty()) {
+        applyBatch(batch);
+        String[] ids = batch.stream().map(StreamMessage::getId).toArray(String[]::new);
+        redis.xack(STREAM, GROUP, ids);
+        redis.xdel(STREAM, ids);
+        total += ids.length;
+        if (batch.size() < flushBatchSize || !holdsLease()) {
+          break;
+        }
+        batch = read(XReadArgs.StreamOffset.lastConsumed(STREAM));
+      }
+    } catch (RuntimeException e) {
+      log.warn("Refresh token write-behind flush failed; will retry", e);
+    }
+    return total;
+  }
+
+  @Override
+  public void close() {
+    flushWriteBehind();
+    connection.close();
+  }
+
+  private List<StreamMessage<String, String>> read(XReadArgs.StreamOffset<String> offset) {
+    List<StreamMessage<String, String>> messages = redis.xreadgroup(
+        Consumer.from(GROUP, CONSUMER), XReadArgs.Builder.count(flushBatchSize), offset);
+    return messages == null ? List.of() : messages;
+  }
+
+  private boolean holdsLease() {
+    Long ok = eval(LEASE, new String[] {LEASE_KEY}, List.of(nodeId, String.valueOf(leaseMillis)));
+    return ok != null && ok == 1L;
+  }
+
+  private void applyBatch(List<StreamMessage<String, String>> batch) {
+    try {
+      transactions.executeWithoutResult(status -> batch.forEach(m -> apply(m.getBody())));
+    } catch (RuntimeException batchFailure) {
+      for (StreamMessage<String, String> m : batch) {
+        try {
+          transactions.executeWithoutResult(status -> apply(m.getBody()));
+        } catch (RuntimeException e) {
+          log.error("Dropping refresh token write-behind entry {} ({})", m.getId(), m.getBody().get("op"), e);
+        }
+      }
+    }
+  }
+
+  private void apply(Map<String, String> f) {
+    String op = f.get("op");
+    Instant at = f.containsKey("at") ? Instant.ofEpochMilli(Long.parseLong(f.get("at"))) : null;
+    switch (op) {
+      case "insert" -> insertIfAbsent(fromFields(f.get("h"), f));
+      case "rotate" -> {
+        durable.revoke(f.get("old"), at);
+        insertIfAbsent(fromFields(f.get("h"), f));
+      }
+      case "revoke" -> durable.revoke(f.get("h"), at);
+      case "revoke_all" -> durable.revokeAll(Long.valueOf(f.get("uid")), at);
+      case "revoke_device" -> durable.revokeDevice(Long.valueOf(f.get("uid")), f.get("dev"), at);
+      default -> log.warn("Unknown refresh token write-behind op '{}'", op);
+    }
+  }
+
+  /** Stream entries may be delivered twice (crash before XACK): inserts must be idempotent. */
+  private void insertIfAbsent(StoredRefreshToken token) {
+    if (durable.findByHash(token.tokenHash()).isEmpty()) {
+      durable.save(token);
+    }
+  }
+
+  private Long eval(String script, String[] keys, List<String> args) {
+    String[] values = args.toArray(String[]::new);
+    try {
+      return redis.evalsha(scriptShas.get(script), ScriptOutputType.INTEGER, keys, values);
+    } catch (RedisNoScriptException e) {
+      // script cache flushed (restart/failover): send the body once, SHA is cached again server-side
+      return redis.eval(script, ScriptOutputType.INTEGER, keys, values);
+    }
+  }
+
+  private static void appendFields(List<String> args, StoredRefreshToken t) {
+    put(args, "uid", t.userId());
+    put(args, "usr", t.username());
+    put(args, "dev", t.deviceId());
+    put(args, "ua", t.userAgent());
+    put(args, "ip", t.ipAddress());
+    put(args, "iat", t.issuedAt() != null ? t.issuedAt().toEpochMilli() : null);
+    put(args, "exp", t.expiresAt().toEpochMilli());
+  }
+
+  private static void put(List<String> args, String field, Object value) {
+    if (value != null) {
+      args.add(field);
+      args.add(String.valueOf(value));
+    }
+  }
+
+  private static StoredRefreshToken fromFields(String tokenHash, Map<String, String> f) {
+    return new StoredRefreshToken(
+        null,
+        tokenHash,
+        f.containsKey("uid") ? Long.valueOf(f.get("uid")) : null,
+        f.get("usr"),
+        f.get("dev"),
+        f.get("ua"),
+        f.get("ip"),
+        f.containsKey("iat") ? Instant.ofEpochMilli(Long.parseLong(f.get("iat"))) : null,
+        f.containsKey("exp") ? Instant.ofEpochMilli(Long.parseLong(f.get("exp"))) : null,
+        null);
+  }
+}
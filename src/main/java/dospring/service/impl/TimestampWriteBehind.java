@@ -0,0 +1,158 @@
+package dospring.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Write-behind coalescer for "last seen" style timestamps (e.g. {@code users.last_login_at}).
+ *
+ * <p>{@link #record} only keeps the latest instant per id in memory, so a hot account costs one row
+ * write per flush instead of one per request. Pending values are written with one JDBC batch every
+ * {@code intervalMillis}, or as soon as {@code batchSize} ids are pending, on a single background
+ * thread. {@link #close()} drains what is left.
+ *
+ * <p>The update statement receives {@code (timestamp, id, timestamp)} and should never move the
+ * column backwards, e.g. {@code ... set c = ? where id = ? and (c is null or c < ?)}. Values are
+ * best-effort: a crash loses at most one interval of them.
+ *
+ * <p>Metrics, tagged {@code target=<name>}: {@code write_behind.pending}, {@code write_behind.flush}
+ * (latency) and {@code write_behind.written}.
+ */
+@Slf4j
+public class TimestampWriteBehind implements AutoCloseable {
+
+  private final String name;
+  private final String updateSql;
+  private final JdbcTemplate jdbc;
+  private final int batchSize;
+
+  private final Map<Long, Instant> pending = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService flusher;
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+  private final Timer flushTimer;
+  private final Counter written;
+
+  public TimestampWriteBehind(String name, String updateSql, JdbcTemplate jdbc, MeterRegistry registry,
+                              int batchSize, long intervalMillis) {
+    this.name = name;
+    this.updateSql = updateSql;
+    this.jdbc = jdbc;
+    this.batchSize = batchSize;
+
+    Gauge.builder("write_behind.pending", pending, Map::size)
+        .tag("target", name)
+        .description("Timestamps waiting to be written")
+        .register(registry);
+    this.flushTimer = Timer.builder("write_behind.flush")
+        .tag("target", name)
+        .publishPercentiles(0.5, 0.99)
+        .register(registry);
+    this.written = Counter.builder("write_behind.written")
+        .tag("target", name)
+        .register(registry);
+
+    this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "write-behind-" + name);
+      t.setDaemon(true);
+      return t;
+    });
+    flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Remembers {@code at} for {@code id} (keeps the latest if one is already pending).
+   */
+  public void record(Long id, Instant at) {
+    pending.merge(id, at, TimestampWriteBehind::latest);
+    if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+      flusher.execute(this::flushQuietly);
+    }
+  }
+
+  /**
+   * Writes every pending timestamp; returns how many rows were sent. Failed batches are put back.
+   */
+  public int flush() {
+    flushRequested.set(false);
+    if (pending.isEmpty()) {
+      return 0;
+    }
+    return flushTimer.record(() -> {
+      int total = 0;
+      List<Object[]> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+      for (Long id : pending.keySet()) {
+        Instant at = pending.remove(id);
+        if (at != null) {
+          Timestamp ts = Timestamp.from(at);
+          batch.add(new Object[] {ts, id, ts});
+        }
+        if (batch.size() >= batchSize) {
+          total += write(batch);
+          batch = new ArrayList<>(batchSize);
+        }
+      }
+      if (!batch.isEmpty()) {
+        total += write(batch);
+      }
+      return total;
+    });
+  }
+
+  private int write(List<Object[]> batch) {
+    try {
+      jdbc.batchUpdate(updateSql, batch);
+      written.increment(batch.size());
+      return batch.size();
+    } catch (RuntimeException e) {
+      // keep them for the next flush, without overwriting newer values recorded meanwhile
+      for (Object[] row : batch) {
+        pending.merge((Long) row[1], ((Timestamp) row[0]).toInstant(), TimestampWriteBehind::latest);
+      }
+      throw e;
+    }
+  }
+
+  private static Instant latest(Instant a, Instant b) {
+    return a.isAfter(b) ? a : b;
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("Write-behind {}: flush failed, {} timestamps kept for retry ({})", name, pending.size(),
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Stops the background flusher and drains what is still pending.
+   */
+  @Override
+  public void close() {
+    flusher.shutdown();
+    try {
+      flusher.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flushQuietly();
+  }
+}
@@ -1,10 +1,12 @@
 package dospring.service.impl;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
+import dospring.crypto.EncryptedString;
 import dospring.model.User;
 import lombok.Data;
 import lombok.Getter;
@@ -25,29 +27,66 @@ public class UserDetailsImpl implements UserDetails {
 	  private static final long serialVersionUID = 1L;
 	  private Long id;
 	  private String username;
-	  private String email;
+	  /** Kept encrypted until read: most principals never need the email. */
+	  private EncryptedString email;
 	  @JsonIgnore
 	  private String password;
 	  private Collection<? extends GrantedAuthority> authorities;
+	  private boolean enabled = true;
+	  private Instant lockUntil;
+	  private Instant tokensValidAfter;
 	  public UserDetailsImpl(Long id, String username, String email, String password,
 	      Collection<? extends GrantedAuthority> authorities) {
 	    this.id = id;
 	    this.username = username;
-	    this.email = email;
+	    this.email = EncryptedString.of(email);
 	    this.password = password;
 	    this.authorities = authorities;
 	  }
+	  public UserDetailsImpl(Long id, String username, String email, String password,
+	      Collection<? extends GrantedAuthority> authorities, boolean enabled, Instant lockUntil,
+	      Instant tokensValidAfter) {
+	    this(id, username, email, password, authorities);
+	    this.enabled = enabled;
+	    this.lockUntil = lockUntil;
+	    this.tokensValidAfter = tokensValidAfter;
+	  }
 	  public static UserDetailsImpl build(User user) {
 	    List<GrantedAuthority> authorities = user.getRoles().stream()
 	        .map(role -> new SimpleGrantedAuthority(role.getName().name()))
 	        .collect(Collectors.toList());
-	    return new UserDetailsImpl(
+	    UserDetailsImpl details = new UserDetailsImpl(
 	        user.getId(), 
 	        user.getUsername(), 
-	        user.getEmail(),
+	        null,
 	        user.getPassword(), 
-	        authorities);
+	        authorities,
+	        user.isEnabled(),
+	        user.getLockUntil(),
+	        user.getTokensValidAfter());
+	    details.email = user.getEncryptedEmail();
+	    return details;
+	  }
+
+	  /**
+	   * Copy of this principal carrying the given authorities and no password hash.
+	   *
+	   * <p>Used when the authorities come from a verified access token rather than the database.
+	   */
+	  public UserDetailsImpl withAuthorities(Collection<? extends GrantedAuthority> authorities) {
+	    UserDetailsImpl copy = new UserDetailsImpl(id, username, null, null, authorities, enabled, lockUntil, tokensValidAfter);
+	    copy.email = email;
+	    return copy;
+	  }
+
+	  public String getEmail() {
+	    return email == null ? null : email.value();
 	  }
+
+	  public void setEmail(String email) {
+	    this.email = EncryptedString.of(email);
+	  }
+
 	  @Override
 	  public Collection<? extends GrantedAuthority> getAuthorities() {
 	    return authorities;
@@ -67,7 +106,7 @@ public class UserDetailsImpl implements UserDetails {
 	  }
 	  @Override
 	  public boolean isAccountNonLocked() {
-	    return true;
+	    return lockUntil == null || !lockUntil.isAfter(Instant.now());
 	  }
 	  @Override
 	  public boolean isCredentialsNonExpired() {
@@ -75,7 +114,7 @@ public class UserDetailsImpl implements UserDetails {
 	  }
 	  @Override
 	  public boolean isEnabled() {
-	    return true;
+	    return enabled;
 	  }
 	  @Override
 	  public boolean equals(Object o) {
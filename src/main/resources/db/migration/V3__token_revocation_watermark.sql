@@ -0,0 +1,5 @@
+-- Per-user revocation watermark: "logout everywhere" / password change becomes a single-row UPDATE.
+-- Refresh tokens created and access tokens issued before tokens_valid_after are rejected.
+
+ALTER TABLE users
+  ADD COLUMN IF NOT EXISTS tokens_valid_after TIMESTAMPTZ NULL;
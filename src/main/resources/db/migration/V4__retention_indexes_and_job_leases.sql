@@ -0,0 +1,17 @@
+-- Retention engine support (PostgreSQL).
+--
+-- Indexes let the purge walk expired / revoked rows in keyset order without scanning the table.
+-- job_leases holds one row per background job so only one instance runs it at a time.
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens(expires_at, id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_revoked_at ON refresh_tokens(revoked_at, id)
+  WHERE revoked_at IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_password_history_user_created
+  ON password_history(user_id, created_at DESC, id DESC);
+
+CREATE TABLE IF NOT EXISTS job_leases (
+  name VARCHAR(100) PRIMARY KEY,
+  owner VARCHAR(100) NOT NULL,
+  lease_until TIMESTAMPTZ NOT NULL
+);
@@ -0,0 +1,11 @@
+-- Keyset-paginated session listing (GET /api/auth/sessions), most recently used first.
+--
+-- Partial covering index: only live rows, ordered like the query, with every listed column
+-- included so a page is an index-only scan however many dead tokens the user has.
+
+UPDATE refresh_tokens SET last_used_at = created_at WHERE last_used_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_sessions
+  ON refresh_tokens(user_id, last_used_at DESC, id DESC)
+  INCLUDE (device_id, ip_address, user_agent, created_at, expires_at)
+  WHERE revoked_at IS NULL;
@@ -0,0 +1,6 @@
+-- users.email is AES-GCM encrypted with a random IV, so uk_users_email can never detect duplicates
+-- and equality lookups cannot use it. Add the HMAC blind index column; V7 (Java) backfills it and
+-- V8 makes it unique.
+
+ALTER TABLE users
+  ADD COLUMN IF NOT EXISTS email_bidx VARCHAR(64) NULL;
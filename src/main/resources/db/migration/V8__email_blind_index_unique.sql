@@ -0,0 +1,7 @@
+-- Uniqueness of emails now lives on the blind index (backfilled by V7).
+-- Fails if two existing accounts share an email (the old constraint could not catch it): resolve
+-- those accounts first, then re-run.
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_email_bidx ON users(email_bidx);
+
+ALTER TABLE users DROP CONSTRAINT IF EXISTS uk_users_email;
@@ -0,0 +1,44 @@
+-- Typed flight schedule and route/date search index (PostgreSQL).
+--
+-- departure/arrival dates and times were free-form VARCHAR(30) columns, so a date search meant string
+-- comparisons over a full scan. They become TIMESTAMPTZ departure_at / arrival_at, read as UTC from
+-- ISO dates (YYYY-MM-DD) and HH:MM[:SS] times (midnight when the time is empty).
+--
+-- The VARCHAR columns are kept, unmapped, so rows that do not parse or name an impossible date or
+-- time (left with a null timestamp and therefore absent from search) can still be repaired by hand;
+-- a later migration drops them.
+
+ALTER TABLE flights
+  ADD COLUMN IF NOT EXISTS departure_at TIMESTAMPTZ,
+  ADD COLUMN IF NOT EXISTS arrival_at TIMESTAMPTZ;
+
+-- Parses one date/time pair, or returns NULL: the regex only checks the shape, and a well-shaped but
+-- impossible value (2024-02-30, 25:00) must leave its row unparsed instead of aborting the migration.
+CREATE OR REPLACE FUNCTION v9_flight_utc(d TEXT, t TEXT) RETURNS TIMESTAMPTZ
+LANGUAGE plpgsql STABLE AS $$
+BEGIN
+  IF d !~ '^\d{4}-\d{2}-\d{2}$' OR COALESCE(NULLIF(t, ''), '00:00') !~ '^\d{2}:\d{2}(:\d{2})?$' THEN
+    RETURN NULL;
+  END IF;
+  RETURN (d || ' ' || COALESCE(NULLIF(t, ''), '00:00'))::timestamp AT TIME ZONE 'UTC';
+EXCEPTION
+  WHEN invalid_datetime_format OR datetime_field_overflow THEN
+    RETURN NULL;
+END;
+$$;
+
+UPDATE flights
+SET departure_at = v9_flight_utc(departure_date, departure_time)
+WHERE departure_at IS NULL;
+
+UPDATE flights
+SET arrival_at = v9_flight_utc(arrival_date, arrival_time)
+WHERE arrival_at IS NULL;
+
+DROP FUNCTION v9_flight_utc(TEXT, TEXT);
+
+-- Route + departure range, in keyset order (departure_at, id); the listed columns are included so a
+-- page sorted by departure is an index-only scan. Price-sorted pages sort the route/date range only.
+CREATE INDEX IF NOT EXISTS idx_flights_route_departure
+  ON flights(departure_location, arrival_location, departure_at, id)
+  INCLUDE (arrival_at, available_seats, price);
@@ -0,0 +1,79 @@
+package com.java.dospring;
+
+import dospring.security.ratelimit.AdaptiveConcurrencyLimit;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Adaptive concurrency limit: sheds past the limit, grows while latency holds at the baseline under
+ * load, shrinks when queueing inflates latency, and backs off on overload signals.
+ */
+class AdaptiveConcurrencyLimitTest {
+
+  private long clock;
+
+  private AdaptiveConcurrencyLimit newLimit(int initial) {
+    // One-nanosecond windows with one sample each: every release closes a window.
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", initial, 1, 100, 1.5, 0.5, 1, 1);
+    clock = System.nanoTime();
+    return limit;
+  }
+
+  /** Fills the limit, then completes every request with the given latency. */
+  private void saturatedRound(AdaptiveConcurrencyLimit limit, long rttMillis, boolean dropped) {
+    int slots = limit.limit();
+    for (int i = 0; i < slots; i++) {
+      assertThat(limit.tryAcquire()).isTrue();
+    }
+    for (int i = 0; i < slots; i++) {
+      clock += TimeUnit.MILLISECONDS.toNanos(1);
+      limit.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), dropped, clock);
+    }
+  }
+
+  @Test
+  void sheds_requests_past_the_limit() {
+    AdaptiveConcurrencyLimit limit = newLimit(2);
+
+    assertThat(limit.tryAcquire()).isTrue();
+    assertThat(limit.tryAcquire()).isTrue();
+    assertThat(limit.tryAcquire()).isFalse();
+    assertThat(limit.inflight()).isEqualTo(2);
+    assertThat(limit.shedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void grows_at_baseline_latency_and_shrinks_when_latency_inflates() {
+    AdaptiveConcurrencyLimit limit = newLimit(4);
+
+    for (int i = 0; i < 5; i++) {
+      saturatedRound(limit, 10, false);
+    }
+    int grown = limit.limit();
+    assertThat(grown).isGreaterThan(4);
+    assertThat(limit.baselineMillis()).isEqualTo(10.0);
+
+    for (int i = 0; i < 2; i++) {
+      saturatedRound(limit, 100, false);
+    }
+    assertThat(limit.limit()).isLessThan(grown);
+    assertThat(limit.lastRttMillis()).isEqualTo(100.0);
+  }
+
+  @Test
+  void overload_signals_back_off_multiplicatively_down_to_the_minimum() {
+    AdaptiveConcurrencyLimit limit = newLimit(20);
+
+    saturatedRound(limit, 10, true);
+    assertThat(limit.limit()).isLessThan(20);
+
+    for (int i = 0; i < 50; i++) {
+      saturatedRound(limit, 10, true);
+    }
+    assertThat(limit.limit()).isEqualTo(1);
+    assertThat(limit.inflight()).isZero();
+  }
+}
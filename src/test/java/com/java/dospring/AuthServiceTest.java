@@ -0,0 +1,290 @@
+package com.java.dospring;
+
+import dospring.constants.ERole;
+import dospring.model.Role;
+import dospring.model.User;
+import dospring.payload.request.LoginRequest;
+import dospring.payload.request.RefreshRequest;
+import dospring.payload.response.AuthResponse;
+import dospring.payload.response.SessionInfoResponse;
+import dospring.payload.response.SessionPage;
+import dospring.repository.PasswordHistoryRepository;
+import dospring.repository.RefreshTokenRepository;
+import dospring.repository.RoleRepository;
+import dospring.repository.UserRepository;
+import dospring.security.JwtUtils;
+import dospring.security.LocalLoginAttemptStore;
+import dospring.security.OffloadingPasswordEncoder;
+import dospring.security.PasswordHashingExecutor;
+import dospring.security.PasswordPolicy;
+import dospring.security.TokenDigests;
+import dospring.security.UserPrincipalCache;
+import dospring.security.heavyhitters.HeavyHitters;
+import dospring.service.AuthService;
+import dospring.service.RefreshTokenStore;
+import dospring.service.StoredRefreshToken;
+import dospring.service.impl.TimestampWriteBehind;
+import dospring.service.impl.UserDetailsImpl;
+import dospring.service.impl.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * AuthService flows against mocked repositories: login checks the password against the one User it
+ * loads and engages the lock at the failure threshold; logout-all revokes refresh tokens on every
+ * instance, whatever the local principal cache holds; password changes check exactly
+ * {@code app.auth.password.history} previous hashes; session pages resume from an opaque keyset cursor.
+ */
+class AuthServiceTest {
+
+  private static final String PASSWORD = "correct horse battery";
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+  private final RefreshTokenStore refreshTokenStore = mock(RefreshTokenStore.class);
+  private final PasswordHistoryRepository passwordHistoryRepository = mock(PasswordHistoryRepository.class);
+  private final UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+  private final PasswordEncoder passwordEncoder = spy(new BCryptPasswordEncoder(4));
+  private final String passwordHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+  @Test
+  void login_verifies_the_password_against_the_loaded_user() {
+    User user = user(true, null);
+    when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user));
+
+    AuthResponse response = service(5, 5).login(login(PASSWORD), "phone", new MockHttpServletRequest());
+
+    assertThat(response.getUsername()).isEqualTo("jane");
+    assertThat(response.getRoles()).containsExactly("ROLE_USER");
+    verify(userRepository, times(1)).findByUsername("jane");
+    verify(userDetailsService, never()).loadUserByUsername(anyString());
+    verify(passwordEncoder).matches(PASSWORD, passwordHash);
+    verify(refreshTokenStore).save(any());
+    verify(userRepository, never()).clearLoginFailures(anyLong());
+  }
+
+  @Test
+  void failed_logins_engage_the_lock_at_the_threshold() {
+    when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user(true, null)));
+    AuthService service = service(2, 5);
+
+    assertThatThrownBy(() -> service.login(login("wrong password 1"), null, new MockHttpServletRequest()))
+        .isInstanceOf(BadCredentialsException.class);
+    verify(userRepository, never()).recordLoginFailure(anyLong(), anyInt(), any());
+
+    assertThatThrownBy(() -> service.login(login("wrong password 2"), null, new MockHttpServletRequest()))
+        .isInstanceOf(BadCredentialsException.class);
+    verify(userRepository).recordLoginFailure(eq(1L), eq(2), any(Instant.class));
+    verify(refreshTokenStore, never()).save(any());
+  }
+
+  @Test
+  void disabled_or_locked_accounts_are_refused_before_hashing() {
+    AuthService service = service(5, 5);
+
+    when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user(false, null)));
+    assertThatThrownBy(() -> service.login(login(PASSWORD), null, new MockHttpServletRequest()))
+        .isInstanceOf(BadCredentialsException.class).hasMessageContaining("disabled");
+
+    when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user(true, Instant.now().plusSeconds(600))));
+    assertThatThrownBy(() -> service.login(login(PASSWORD), null, new MockHttpServletRequest()))
+        .isInstanceOf(BadCredentialsException.class).hasMessageContaining("locked");
+
+    verify(passwordEncoder, never()).matches(any(), any());
+  }
+
+  @Test
+  void refresh_after_logout_all_is_rejected_even_with_a_cached_principal() {
+    Instant logoutAllAt = Instant.now().minusSeconds(10);
+    when(userDetailsService.loadUserByUsername("jane")).thenReturn(UserDetailsImpl.build(user(true, null)));
+    when(refreshTokenStore.findByHash(TokenDigests.sha256Hex("old")))
+        .thenReturn(Optional.of(stored("old", logoutAllAt.minusSeconds(60))));
+    when(refreshTokenStore.findByHash(TokenDigests.sha256Hex("new")))
+        .thenReturn(Optional.of(stored("new", logoutAllAt.plusSeconds(5))));
+    when(refreshTokenStore.rotate(any(), any(), any())).thenReturn(true);
+    AuthService service = service(5, 5);
+
+    // This node caches the principal before the logout-all, which happens on another node.
+    assertThat(service.refresh(refresh("new"), new MockHttpServletRequest()).getUsername()).isEqualTo("jane");
+    when(userRepository.findTokensValidAfter(1L)).thenReturn(Optional.of(logoutAllAt));
+
+    assertThatThrownBy(() -> service.refresh(refresh("old"), new MockHttpServletRequest()))
+        .isInstanceOf(BadCredentialsException.class);
+    assertThat(service.refresh(refresh("new"), new MockHttpServletRequest()).getRefreshToken()).isNotBlank();
+    verify(userDetailsService, times(1)).loadUserByUsername("jane");
+    verify(refreshTokenStore, times(2)).rotate(any(), any(), any());
+  }
+
+  @Test
+  void logout_all_moves_the_watermark_and_revokes_stored_tokens() {
+    service(5, 5).logoutAll(1L);
+
+    verify(userRepository).revokeTokensIssuedBefore(eq(1L), any(Instant.class));
+    verify(refreshTokenStore).revokeAll(eq(1L), any(Instant.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void change_password_checks_the_configured_history_depth_on_the_hashing_pool() {
+    ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+    when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+    PasswordHashingExecutor executor = new PasswordHashingExecutor(meterRegistry, 4, 64, 5000, 0);
+    try {
+      BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+      List<String> history = new ArrayList<>();
+      for (int i = 0; i < 9; i++) {
+        history.add(bcrypt.encode("older password " + i));
+      }
+      history.add(bcrypt.encode("Reused-Passw0rd!"));
+      when(userRepository.findById(1L)).thenReturn(Optional.of(user(true, null)));
+      when(passwordHistoryRepository.findRecentHashes(1L, Limit.of(10))).thenReturn(history);
+      AuthService service = service(5, 10, new OffloadingPasswordEncoder(bcrypt, executor));
+
+      assertThatThrownBy(() -> service.changePassword(1L, PASSWORD, "Reused-Passw0rd!"))
+          .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("used recently");
+      verify(passwordHistoryRepository).findRecentHashes(1L, Limit.of(10));
+
+      service.changePassword(1L, PASSWORD, "Brand-New-Passw0rd!");
+      verify(userRepository).save(any(User.class));
+      verify(refreshTokenStore).revokeAll(eq(1L), any(Instant.class));
+    } finally {
+      executor.destroy();
+    }
+  }
+
+  @Test
+  void change_password_skips_the_history_check_when_disabled() {
+    when(userRepository.findById(1L)).thenReturn(Optional.of(user(true, null)));
+
+    service(5, 0).changePassword(1L, PASSWORD, "Brand-New-Passw0rd!");
+
+    verify(passwordHistoryRepository, never()).findRecentHashes(anyLong(), any());
+    verify(userRepository).save(any(User.class));
+  }
+
+  @Test
+  void session_pages_resume_after_the_cursor() {
+    Instant t0 = Instant.parse("2026-03-01T08:00:00.123456Z");
+    when(refreshTokenRepository.findActiveSessions(eq(1L), any(Instant.class), eq(Limit.of(3))))
+        .thenReturn(List.of(session(9L, t0.plusSeconds(60)), session(4L, t0), session(3L, t0)));
+    when(refreshTokenRepository.findActiveSessionsAfter(eq(1L), any(Instant.class), eq(t0), eq(4L), eq(Limit.of(3))))
+        .thenReturn(List.of(session(3L, t0)));
+    AuthService service = service(5, 5);
+
+    SessionPage first = service.listActiveSessions(1L, null, 2);
+    assertThat(first.items()).extracting(SessionInfoResponse::getId).containsExactly(9L, 4L);
+    assertThat(first.nextCursor()).isNotBlank();
+
+    SessionPage second = service.listActiveSessions(1L, first.nextCursor(), 2);
+    assertThat(second.items()).extracting(SessionInfoResponse::getId).containsExactly(3L);
+    assertThat(second.nextCursor()).isNull();
+  }
+
+  @Test
+  void tampered_session_cursors_are_rejected_with_their_cause() {
+    AuthService service = service(5, 5);
+    String forged = Base64.getUrlEncoder().withoutPadding().encodeToString("yesterday|4".getBytes());
+
+    for (String cursor : new String[] {"%%%", forged, "bm9zZXBhcmF0b3I"}) {
+      assertThatThrownBy(() -> service.listActiveSessions(1L, cursor, 2))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessage("Invalid cursor")
+          .hasCauseInstanceOf(RuntimeException.class);
+    }
+    verify(refreshTokenRepository, never()).findActiveSessionsAfter(anyLong(), any(), any(), anyLong(), any());
+  }
+
+  private AuthService service(int maxFailedAttempts, int pwdHistory) {
+    return service(maxFailedAttempts, pwdHistory, passwordEncoder);
+  }
+
+  @SuppressWarnings("unchecked")
+  private AuthService service(int maxFailedAttempts, int pwdHistory, PasswordEncoder encoder) {
+    UserPrincipalCache principalCache = new UserPrincipalCache(userDetailsService, mock(ObjectProvider.class),
+        mock(ObjectProvider.class), 100, 300);
+    return new AuthService(
+        userRepository,
+        mock(RoleRepository.class),
+        encoder,
+        new JwtUtils("test-secret-test-secret-test-secret-0123456789", "dospring", 900, true, 100, 30),
+        refreshTokenRepository,
+        refreshTokenStore,
+        passwordHistoryRepository,
+        principalCache,
+        new LocalLoginAttemptStore(Duration.ofMinutes(15), 1000),
+        new PasswordPolicy(12),
+        mock(TimestampWriteBehind.class),
+        mock(HeavyHitters.class),
+        mock(PlatformTransactionManager.class),
+        900,
+        86400,
+        maxFailedAttempts,
+        15,
+        pwdHistory);
+  }
+
+  private User user(boolean enabled, Instant lockUntil) {
+    return User.builder()
+        .id(1L)
+        .username("jane")
+        .email("jane@example.com")
+        .password(passwordHash)
+        .roles(Set.of(Role.builder().id(1L).name(ERole.ROLE_USER).build()))
+        .enabled(enabled)
+        .lockUntil(lockUntil)
+        .build();
+  }
+
+  private static StoredRefreshToken stored(String token, Instant issuedAt) {
+    return new StoredRefreshToken(null, TokenDigests.sha256Hex(token), 1L, "jane", null, null, null, issuedAt,
+        issuedAt.plusSeconds(86400), null);
+  }
+
+  private static SessionInfoResponse session(Long id, Instant lastUsedAt) {
+    return new SessionInfoResponse(id, "device-" + id, "127.0.0.1", "junit", lastUsedAt, lastUsedAt,
+        lastUsedAt.plusSeconds(86400));
+  }
+
+  private static RefreshRequest refresh(String token) {
+    RefreshRequest request = new RefreshRequest();
+    request.setRefreshToken(token);
+    return request;
+  }
+
+  private static LoginRequest login(String password) {
+    LoginRequest request = new LoginRequest();
+    request.setUsername("jane");
+    request.setPassword(password);
+    return request;
+  }
+}
@@ -0,0 +1,124 @@
+package com.java.dospring;
+
+import dospring.security.AuthTokenFilter;
+import dospring.security.JwtUtils;
+import dospring.security.UserPrincipalCache;
+import dospring.security.VerifiedToken;
+import dospring.service.impl.UserDetailsImpl;
+import dospring.service.impl.UserDetailsServiceImpl;
+import io.lettuce.core.RedisClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Access-token principal: in both principal-source modes a disabled or locked account is refused, and a
+ * principal cache invalidation reaches the other instances through Redis.
+ */
+class AuthTokenFilterTest {
+
+  private static final Instant NOW = Instant.now();
+
+  private final JwtUtils jwtUtils = mock(JwtUtils.class);
+  private final UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+
+  @AfterEach
+  void clear() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void claims_mode_refuses_disabled_and_locked_accounts() throws Exception {
+    assertThat(authenticates("claims", account(true, null))).isTrue();
+    assertThat(authenticates("claims", account(false, null))).isFalse();
+    assertThat(authenticates("claims", account(true, NOW.plusSeconds(600)))).isFalse();
+    assertThat(authenticates("claims", account(true, NOW.minusSeconds(600)))).isTrue();
+  }
+
+  @Test
+  void database_mode_refuses_disabled_and_locked_accounts() throws Exception {
+    assertThat(authenticates("database", account(true, null))).isTrue();
+    assertThat(authenticates("database", account(false, null))).isFalse();
+    assertThat(authenticates("database", account(true, NOW.plusSeconds(600)))).isFalse();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void invalidation_reaches_other_instances_through_redis() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    RedisServer server = new RedisServer(port);
+    server.start();
+    RedisClient client = RedisClient.create("redis://localhost:" + port);
+    ObjectProvider<RedisClient> redis = mock(ObjectProvider.class);
+    when(redis.getIfAvailable()).thenReturn(client);
+    when(userDetailsService.loadUserByUsername("jane")).thenReturn(account(true, null));
+    try (UserPrincipalCache nodeA = new UserPrincipalCache(userDetailsService, mock(ObjectProvider.class), redis, 100, 300);
+         UserPrincipalCache nodeB = new UserPrincipalCache(userDetailsService, mock(ObjectProvider.class), redis, 100, 300)) {
+      nodeA.get("jane");
+      nodeB.get("jane");
+      verify(userDetailsService, times(2)).loadUserByUsername("jane");
+
+      nodeA.invalidate("jane");
+      Thread.sleep(300);
+      nodeB.get("jane");
+      verify(userDetailsService, times(3)).loadUserByUsername("jane");
+
+      nodeA.get("jane");
+      nodeA.invalidateUserId(1L);
+      Thread.sleep(300);
+      nodeB.get("jane");
+      verify(userDetailsService, times(5)).loadUserByUsername("jane");
+    } finally {
+      client.shutdown();
+      server.stop();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean authenticates(String principalSource, UserDetailsImpl account) throws Exception {
+    SecurityContextHolder.clearContext();
+    when(jwtUtils.verifyAccessToken("token")).thenReturn(Optional.of(
+        new VerifiedToken("jane", List.of("ROLE_USER"), NOW.minusSeconds(60), NOW.plusSeconds(600), "access")));
+    when(userDetailsService.loadUserByUsername(anyString())).thenReturn(account);
+    UserPrincipalCache cache = new UserPrincipalCache(userDetailsService, mock(ObjectProvider.class),
+        mock(ObjectProvider.class), 100, 300);
+
+    AuthTokenFilter filter = new AuthTokenFilter();
+    ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+    ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+    ReflectionTestUtils.setField(filter, "principalCache", cache);
+    ReflectionTestUtils.setField(filter, "principalSource", principalSource);
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test/user");
+    request.addHeader("Authorization", "Bearer token");
+    filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    return SecurityContextHolder.getContext().getAuthentication() != null;
+  }
+
+  private static UserDetailsImpl account(boolean enabled, Instant lockUntil) {
+    return new UserDetailsImpl(1L, "jane", null, "hash", List.of(new SimpleGrantedAuthority("ROLE_USER")),
+        enabled, lockUntil, null);
+  }
+}
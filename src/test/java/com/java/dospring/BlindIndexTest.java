@@ -0,0 +1,20 @@
+package com.java.dospring;
+
+import dospring.crypto.BlindIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Email blind index: normalized (trimmed, lower-cased) before hashing, distinct per address,
+ * null for null.
+ */
+class BlindIndexTest {
+
+  @Test
+  void email_index_ignores_case_and_surrounding_spaces() {
+    assertThat(BlindIndex.email("  User1@Mail.com ")).isEqualTo(BlindIndex.email("user1@mail.com"));
+    assertThat(BlindIndex.email("user1@mail.com")).hasSize(64).isNotEqualTo(BlindIndex.email("user2@mail.com"));
+    assertThat(BlindIndex.email(null)).isNull();
+  }
+}
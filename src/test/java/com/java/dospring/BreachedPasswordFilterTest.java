@@ -0,0 +1,60 @@
+package com.java.dospring;
+
+import dospring.security.blocklist.BloomFilterBuilder;
+import dospring.security.blocklist.BreachedPasswordFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Offline builder + memory-mapped runtime round trip.
+ */
+class BreachedPasswordFilterTest {
+
+  @Test
+  void built_filter_contains_every_corpus_entry_and_few_others(@TempDir Path dir) throws Exception {
+    List<String> corpus = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      corpus.add("Breached#" + i);
+    }
+    // HaveIBeenPwned-style line: upper-case SHA-1 with a count
+    String sha1 = HexFormat.of().withUpperCase().formatHex(
+        MessageDigest.getInstance("SHA-1").digest("Hunter2#Hunter2".getBytes(StandardCharsets.UTF_8)));
+    corpus.add(sha1 + ":4031");
+
+    Path corpusFile = Files.write(dir.resolve("corpus.txt"), corpus);
+    Path filterFile = dir.resolve("breached.bloom");
+    assertThat(BloomFilterBuilder.build(corpusFile, filterFile, corpus.size(), 0.01)).isEqualTo(corpus.size());
+
+    BreachedPasswordFilter filter = new BreachedPasswordFilter(filterFile.toString());
+    assertThat(filter.isEnabled()).isTrue();
+    for (int i = 0; i < 20_000; i++) {
+      assertThat(filter.mightContain("Breached#" + i)).isTrue();
+    }
+    assertThat(filter.mightContain("Hunter2#Hunter2")).isTrue();
+
+    int falsePositives = 0;
+    for (int i = 0; i < 20_000; i++) {
+      if (filter.mightContain("Fresh!" + i)) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives).isLessThan(400); // 1% target, 2% bound
+  }
+
+  @Test
+  void disabled_without_path() {
+    BreachedPasswordFilter filter = new BreachedPasswordFilter("");
+    assertThat(filter.isEnabled()).isFalse();
+    assertThat(filter.mightContain("password")).isFalse();
+  }
+}
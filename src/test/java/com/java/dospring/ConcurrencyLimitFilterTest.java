@@ -0,0 +1,61 @@
+package com.java.dospring;
+
+import dospring.security.ratelimit.ConcurrencyLimitFilter;
+import dospring.security.ratelimit.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Concurrency limit filter: while a group's only slot is taken, encoded or dot-segment spellings of
+ * its paths are shed with 503 like the plain path.
+ */
+class ConcurrencyLimitFilterTest {
+
+  @Test
+  void encoded_paths_take_a_slot_of_their_group() throws Exception {
+    ConcurrencyLimitFilter filter = filter();
+    List<Integer> nested = new ArrayList<>();
+
+    MockHttpServletResponse holder = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("POST", "/api/auth/login"), holder, (request, response) -> {
+      for (String uri : List.of("/api/auth/login", "/api/auth/%6cogin", "/api/x/../auth/login")) {
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", uri), shed, new MockFilterChain());
+        nested.add(shed.getStatus());
+      }
+    });
+
+    assertThat(holder.getStatus()).isEqualTo(200);
+    assertThat(nested).containsExactly(503, 503, 503);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ConcurrencyLimitFilter filter() {
+    ConcurrencyLimitProperties.Group group = new ConcurrencyLimitProperties.Group();
+    group.setName("login");
+    group.setPaths(List.of("/api/auth/login"));
+    group.setMethods(List.of("POST"));
+    group.setInitialLimit(1);
+    group.setMinLimit(1);
+    group.setMaxLimit(1);
+    ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+    properties.setGroups(List.of(group));
+
+    ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+    when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+    return new ConcurrencyLimitFilter(properties, meterRegistry);
+  }
+}
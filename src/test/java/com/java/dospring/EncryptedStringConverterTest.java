@@ -0,0 +1,180 @@
+package com.java.dospring;
+
+import dospring.crypto.BlindIndex;
+import dospring.crypto.CryptoKeyProvider;
+import dospring.crypto.EncryptedStringConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Column encryption: round trips any string, stays byte-compatible with values written by the
+ * original converter (Cipher + java.util.Base64), rejects tampering, never repeats an IV, and keeps
+ * values under every configured key version readable across a rotation, with a pinned blind index key
+ * that survives it.
+ */
+class EncryptedStringConverterTest {
+
+  private final EncryptedStringConverter converter = new EncryptedStringConverter();
+  private SecretKey key;
+
+  @BeforeEach
+  void enable() {
+    byte[] raw = new byte[32];
+    Arrays.fill(raw, (byte) 7);
+    key = new SecretKeySpec(raw, "AES");
+    configure(Base64.getEncoder().encodeToString(raw));
+  }
+
+  @AfterEach
+  void disable() {
+    configure("");
+  }
+
+  @Test
+  void round_trips_ascii_unicode_and_large_values() {
+    String large = "x".repeat(40_000);
+    for (String value : new String[] {"jane.doe@example.com", "pay_Nq8xZ", "Zoë Ødegård 東京 🚀", large}) {
+      String stored = converter.convertToDatabaseColumn(value);
+      assertThat(stored).startsWith("enc:").doesNotContain(value);
+      assertThat(converter.convertToEntityAttribute(stored)).isEqualTo(value);
+    }
+    // Same bytes as String.getBytes(UTF_8): a lone surrogate is stored as '?'.
+    assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn("a\uD800b"))).isEqualTo("a?b");
+    assertThat(converter.convertToEntityAttribute("legacy plain value")).isEqualTo("legacy plain value");
+  }
+
+  @Test
+  void reads_and_writes_the_original_format() throws Exception {
+    for (String value : new String[] {"a", "ab", "abc", "jane.doe+bookings@example.com", "é"}) {
+      byte[] iv = new byte[12];
+      iv[11] = (byte) value.length();
+      Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+      byte[] ct = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+      byte[] sealed = new byte[iv.length + ct.length];
+      System.arraycopy(iv, 0, sealed, 0, iv.length);
+      System.arraycopy(ct, 0, sealed, iv.length, ct.length);
+      assertThat(converter.convertToEntityAttribute("enc:" + Base64.getEncoder().encodeToString(sealed)))
+          .isEqualTo(value);
+
+      byte[] written = Base64.getDecoder().decode(converter.convertToDatabaseColumn(value).substring(4));
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, written, 0, 12));
+      assertThat(new String(cipher.doFinal(written, 12, written.length - 12), StandardCharsets.UTF_8))
+          .isEqualTo(value);
+    }
+  }
+
+  @Test
+  void rejects_tampered_values() {
+    String stored = converter.convertToDatabaseColumn("jane.doe@example.com");
+    // Flip a character of the authentication tag.
+    int at = stored.length() - 3;
+    String tampered = stored.substring(0, at) + (stored.charAt(at) == 'A' ? 'B' : 'A') + stored.substring(at + 1);
+
+    assertThatThrownBy(() -> converter.convertToEntityAttribute(tampered)).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> converter.convertToEntityAttribute("enc:not*base64")).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> converter.convertToEntityAttribute("enc:AAAA")).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void ivs_are_unique_within_and_across_threads() throws Exception {
+    Set<String> ivs = ConcurrentHashMap.newKeySet();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    for (int t = 0; t < 8; t++) {
+      pool.execute(() -> {
+        Set<String> local = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+          local.add(converter.convertToDatabaseColumn("same value").substring(4, 20));
+        }
+        ivs.addAll(local);
+      });
+    }
+    pool.shutdown();
+    assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+    assertThat(ivs).hasSize(40_000);
+  }
+
+  @Test
+  void rotation_keeps_old_values_readable_and_writes_under_the_newest_key() {
+    String underV1 = converter.convertToDatabaseColumn("jane.doe@example.com");
+    String v2 = key((byte) 2);
+    configure(Base64.getEncoder().encodeToString(key.getEncoded()), "2:" + v2 + ", 3:" + key((byte) 3), 0);
+
+    String underV3 = converter.convertToDatabaseColumn("jane.doe@example.com");
+    assertThat(underV3).startsWith("enc:v3:");
+    assertThat(converter.convertToEntityAttribute(underV1)).isEqualTo("jane.doe@example.com");
+    assertThat(converter.convertToEntityAttribute(underV3)).isEqualTo("jane.doe@example.com");
+
+    // Pinned primary: writes go back to version 2, version 3 stays readable.
+    configure("", "2:" + v2 + ",3:" + key((byte) 3), 2);
+    assertThat(converter.convertToDatabaseColumn("x")).startsWith("enc:v2:");
+    assertThat(converter.convertToEntityAttribute(underV3)).isEqualTo("jane.doe@example.com");
+
+    // Version 1 retired: its values can no longer be read.
+    assertThatThrownBy(() -> converter.convertToEntityAttribute(underV1))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("key version 1");
+
+    assertThatThrownBy(() -> configure("", "2:" + v2 + ",2:" + v2, 0)).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> configure("", "2:" + v2, 4)).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> configure("", "2:AAAA", 0)).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void rotation_requires_a_pinned_blind_index_key_that_survives_retiring_version_1() {
+    String v1 = Base64.getEncoder().encodeToString(key.getEncoded());
+    String v2 = key((byte) 2);
+    assertThatThrownBy(() -> configure(v1, "2:" + v2, 0, ""))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("blind-index-key-base64");
+
+    String indexKey = key((byte) 7);
+    configure(v1, "2:" + v2, 0, indexKey);
+    String before = BlindIndex.email("jane.doe@example.com");
+    configure("", "2:" + v2, 0, indexKey);
+    assertThat(BlindIndex.email("jane.doe@example.com")).isEqualTo(before);
+  }
+
+  private static String key(byte fill) {
+    byte[] raw = new byte[32];
+    Arrays.fill(raw, fill);
+    return Base64.getEncoder().encodeToString(raw);
+  }
+
+  private static void configure(String keyBase64) {
+    configure(keyBase64, "", 0);
+  }
+
+  private static void configure(String keyBase64, String keys, int primaryKeyVersion) {
+    configure(keyBase64, keys, primaryKeyVersion, keys.isBlank() ? "" : key((byte) 8));
+  }
+
+  private static void configure(String keyBase64, String keys, int primaryKeyVersion, String blindIndexKeyBase64) {
+    CryptoKeyProvider provider = new CryptoKeyProvider();
+    ReflectionTestUtils.setField(provider, "keyBase64", keyBase64);
+    ReflectionTestUtils.setField(provider, "keys", keys);
+    ReflectionTestUtils.setField(provider, "primaryKeyVersion", primaryKeyVersion);
+    ReflectionTestUtils.setField(provider, "blindIndexKeyBase64", blindIndexKeyBase64);
+    provider.init();
+  }
+}
@@ -0,0 +1,89 @@
+package com.java.dospring;
+
+import dospring.crypto.CryptoKeyProvider;
+import dospring.crypto.EncryptedString;
+import dospring.crypto.EncryptedStringConverter;
+import dospring.crypto.LazyEncryptedStringConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lazy encrypted attributes: loading keeps the stored text, decryption happens on first read, an
+ * untouched value is written back unchanged without a decrypt or re-encrypt, and equality and hashing
+ * go by the column text without decrypting.
+ */
+class EncryptedStringTest {
+
+  private final LazyEncryptedStringConverter converter = new LazyEncryptedStringConverter();
+  private final EncryptedStringConverter eager = new EncryptedStringConverter();
+
+  @BeforeEach
+  void enable() {
+    byte[] raw = new byte[32];
+    Arrays.fill(raw, (byte) 9);
+    configure(Base64.getEncoder().encodeToString(raw));
+  }
+
+  @AfterEach
+  void disable() {
+    configure("");
+  }
+
+  @Test
+  void decrypts_on_first_read_only() {
+    String stored = eager.convertToDatabaseColumn("jane.doe@example.com");
+    EncryptedString loaded = converter.convertToEntityAttribute(stored);
+
+    assertThat(loaded.isLoaded()).isTrue();
+    assertThat(loaded.isDecrypted()).isFalse();
+    assertThat(loaded.value()).isEqualTo("jane.doe@example.com");
+    assertThat(loaded.isDecrypted()).isTrue();
+    assertThat(converter.convertToEntityAttribute(null)).isNull();
+  }
+
+  @Test
+  void writes_back_the_loaded_text_without_decrypting() {
+    String stored = eager.convertToDatabaseColumn("jane.doe@example.com");
+    EncryptedString loaded = converter.convertToEntityAttribute(stored);
+
+    assertThat(converter.convertToDatabaseColumn(loaded)).isSameAs(stored);
+    assertThat(loaded).isEqualTo(converter.convertToEntityAttribute(stored));
+    assertThat(loaded.isDecrypted()).isFalse();
+  }
+
+  @Test
+  void new_values_encrypt_once_and_compare_by_column_text() {
+    EncryptedString assigned = EncryptedString.of("jane.doe@example.com");
+    String stored = converter.convertToDatabaseColumn(assigned);
+
+    assertThat(stored).startsWith("enc:").doesNotContain("jane");
+    assertThat(converter.convertToDatabaseColumn(assigned)).isSameAs(stored);
+    assertThat(eager.convertToEntityAttribute(stored)).isEqualTo("jane.doe@example.com");
+
+    EncryptedString loaded = converter.convertToEntityAttribute(stored);
+    assertThat(loaded).isEqualTo(assigned).hasSameHashCodeAs(assigned);
+    assertThat(loaded.isDecrypted()).isFalse();
+    assertThat(loaded).isNotEqualTo(EncryptedString.of("jane.doe@example.com"));
+    assertThat(loaded.isDecrypted()).isFalse();
+    assertThat(loaded.toString()).doesNotContain("jane");
+    assertThat(EncryptedString.of(null)).isNull();
+  }
+
+  @Test
+  void legacy_plaintext_columns_still_read() {
+    assertThat(converter.convertToEntityAttribute("legacy plain value").value()).isEqualTo("legacy plain value");
+  }
+
+  private static void configure(String keyBase64) {
+    CryptoKeyProvider provider = new CryptoKeyProvider();
+    ReflectionTestUtils.setField(provider, "keyBase64", keyBase64);
+    provider.init();
+  }
+}
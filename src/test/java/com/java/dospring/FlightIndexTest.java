@@ -0,0 +1,153 @@
+package com.java.dospring;
+
+import dospring.payload.response.FlightResponse;
+import dospring.service.FlightSearch;
+import dospring.service.flightindex.FlightIndex;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The in-memory index returns exactly what the SQL search would (filters, order, keyset pages, times to
+ * the microsecond), before and after incremental updates.
+ */
+class FlightIndexTest {
+
+  private static final LocalDate FIRST = LocalDate.of(2026, 3, 1);
+  private static final LocalDate LAST = FIRST.plusDays(59);
+  private static final String[] CITIES = {"BOM", "DEL", "BLR"};
+
+  @Test
+  void pages_match_a_full_scan_in_both_orders() {
+    Random random = new Random(42);
+    List<FlightIndex.Row> rows = new ArrayList<>();
+    for (long id = 1; id <= 3_000; id++) {
+      rows.add(randomRow(random, id));
+    }
+    FlightIndex index = FlightIndex.build(rows, FIRST, LAST);
+
+    for (int i = 0; i < 200; i++) {
+      FlightSearch search = randomSearch(random);
+      assertPagesMatch(index, rows, search, 1 + random.nextInt(7));
+    }
+  }
+
+  @Test
+  void follows_upserts_and_removals() {
+    Random random = new Random(7);
+    List<FlightIndex.Row> rows = new ArrayList<>();
+    for (long id = 1; id <= 500; id++) {
+      rows.add(randomRow(random, id));
+    }
+    FlightIndex index = FlightIndex.build(rows, FIRST, LAST);
+
+    for (int i = 0; i < 1_000; i++) {
+      int at = random.nextInt(rows.size());
+      if (random.nextInt(10) == 0) {
+        index.remove(rows.remove(at).id());
+      } else {
+        FlightIndex.Row changed = randomRow(random, rows.get(at).id());
+        rows.set(at, changed);
+        index.upsert(changed);
+      }
+      if (random.nextInt(5) == 0) {
+        FlightIndex.Row added = randomRow(random, 10_000 + i);
+        rows.add(added);
+        index.upsert(added);
+      }
+    }
+    assertThat(index.size()).isEqualTo((int) rows.stream().filter(FlightIndexTest::inCoverage).count());
+    for (int i = 0; i < 100; i++) {
+      assertPagesMatch(index, rows, randomSearch(random), 3);
+    }
+  }
+
+  @Test
+  void keeps_sub_second_departures_in_sql_order() {
+    Instant departure = FIRST.atStartOfDay(ZoneOffset.UTC).toInstant().plusSeconds(8 * 3_600);
+    List<FlightIndex.Row> rows = List.of(
+        new FlightIndex.Row(1, "BOM", "DEL", departure.plusNanos(250_000_000), departure.plusSeconds(7_200).plusNanos(999_999_999), 3, 4_000.0),
+        new FlightIndex.Row(2, "BOM", "DEL", departure.plusNanos(250_000_001), null, 3, 4_000.0),
+        new FlightIndex.Row(3, "BOM", "DEL", departure.plusNanos(7_000), null, 3, 4_000.0));
+    FlightIndex index = FlightIndex.build(rows, FIRST, LAST);
+    FlightSearch search = new FlightSearch("BOM", "DEL", FIRST, FIRST, 1, FlightSearch.Sort.DEPARTURE);
+
+    List<FlightResponse> all = index.searchByDeparture(search, null, 0, 10);
+    assertThat(all).extracting(FlightResponse::id).containsExactly(3L, 1L, 2L);
+    assertThat(all.get(0).departureAt()).isEqualTo(departure.plusNanos(7_000));
+    assertThat(all.get(1).departureAt()).isEqualTo(departure.plusNanos(250_000_000));
+    assertThat(all.get(1).arrivalAt()).isEqualTo(departure.plusSeconds(7_200).plusNanos(999_999_000));
+    assertThat(index.searchByDeparture(search, all.get(1).departureAt(), 1, 10))
+        .extracting(FlightResponse::id).containsExactly(2L);
+    assertPagesMatch(index, rows, search, 1);
+  }
+
+  @Test
+  void covers_only_its_window() {
+    FlightIndex index = FlightIndex.build(List.of(), FIRST, LAST);
+    assertThat(index.covers(FIRST, LAST)).isTrue();
+    assertThat(index.covers(FIRST.minusDays(1), FIRST)).isFalse();
+    assertThat(index.covers(LAST, LAST.plusDays(1))).isFalse();
+  }
+
+  private static void assertPagesMatch(FlightIndex index, List<FlightIndex.Row> rows, FlightSearch search, int pageSize) {
+    List<FlightResponse> expected = fullScan(rows, search);
+    List<FlightResponse> paged = new ArrayList<>();
+    FlightResponse last = null;
+    while (true) {
+      List<FlightResponse> page = search.sort() == FlightSearch.Sort.PRICE
+          ? index.searchByPrice(search, last == null ? null : last.price(), last == null ? 0 : last.id(), pageSize)
+          : index.searchByDeparture(search, last == null ? null : last.departureAt(), last == null ? 0 : last.id(), pageSize);
+      paged.addAll(page);
+      if (page.size() < pageSize) {
+        break;
+      }
+      last = page.get(page.size() - 1);
+    }
+    assertThat(paged).as("%s", search).isEqualTo(expected);
+  }
+
+  /** What FlightRepository's queries select, in their order. */
+  private static List<FlightResponse> fullScan(List<FlightIndex.Row> rows, FlightSearch search) {
+    Comparator<FlightResponse> order = search.sort() == FlightSearch.Sort.PRICE
+        ? Comparator.comparing(FlightResponse::price).thenComparing(FlightResponse::id)
+        : Comparator.comparing(FlightResponse::departureAt).thenComparing(FlightResponse::id);
+    return rows.stream()
+        .filter(r -> r.from().equals(search.from()) && r.to().equals(search.to()))
+        .filter(r -> !r.departureAt().isBefore(search.departStart()) && r.departureAt().isBefore(search.departEnd()))
+        .filter(r -> r.availableSeats() != null && r.availableSeats() >= search.minSeats())
+        .filter(r -> search.sort() != FlightSearch.Sort.PRICE || r.price() != null)
+        .map(r -> new FlightResponse(r.id(), r.from(), r.to(), r.departureAt(), r.arrivalAt(), r.availableSeats(), r.price()))
+        .sorted(order)
+        .toList();
+  }
+
+  private static boolean inCoverage(FlightIndex.Row row) {
+    LocalDate day = LocalDate.ofInstant(row.departureAt(), ZoneOffset.UTC);
+    return !day.isBefore(FIRST) && !day.isAfter(LAST);
+  }
+
+  private static FlightIndex.Row randomRow(Random random, long id) {
+    // Some flights fall outside the index window; prices repeat so ties are broken by id.
+    Instant departure = FIRST.minusDays(2).atStartOfDay(ZoneOffset.UTC).toInstant()
+        .plusSeconds(random.nextInt(64 * 86_400 / 300) * 300L);
+    return new FlightIndex.Row(id, CITIES[random.nextInt(3)], CITIES[random.nextInt(3)], departure,
+        random.nextInt(8) == 0 ? null : departure.plusSeconds(3_600 + random.nextInt(20_000)),
+        random.nextInt(12) == 0 ? null : random.nextInt(6),
+        random.nextInt(10) == 0 ? null : 2_000 + random.nextInt(40) * 250.0);
+  }
+
+  private static FlightSearch randomSearch(Random random) {
+    LocalDate from = FIRST.plusDays(random.nextInt(50));
+    return new FlightSearch(CITIES[random.nextInt(3)], CITIES[random.nextInt(3)], from, from.plusDays(random.nextInt(10)),
+        1 + random.nextInt(4), random.nextBoolean() ? FlightSearch.Sort.PRICE : FlightSearch.Sort.DEPARTURE);
+  }
+}
@@ -0,0 +1,91 @@
+package com.java.dospring;
+
+import dospring.payload.response.FlightPage;
+import dospring.payload.response.FlightResponse;
+import dospring.repository.FlightRepository;
+import dospring.service.FlightSearch;
+import dospring.service.FlightService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Flight search paging: the cursor of a full page resumes after its last row, in the same order.
+ */
+class FlightServiceTest {
+
+  private static final Instant T0 = Instant.parse("2026-03-01T08:00:00Z");
+
+  private final FlightRepository repository = mock(FlightRepository.class);
+  @SuppressWarnings("unchecked")
+  private final FlightService service = new FlightService(repository, mock(ObjectProvider.class));
+
+  @Test
+  void pages_by_departure_keyset() {
+    FlightSearch search = new FlightSearch(" BOM ", "DEL", LocalDate.of(2026, 3, 1), null, 0, FlightSearch.Sort.parse(null));
+    when(repository.searchByDeparture(anyString(), anyString(), any(), any(), anyInt(), any()))
+        .thenReturn(List.of(flight(7, T0, 4500.0), flight(3, T0.plusSeconds(600), 3900.0), flight(9, T0.plusSeconds(900), 5100.0)));
+
+    FlightPage first = service.search(search, null, 2);
+    assertThat(first.items()).extracting(FlightResponse::id).containsExactly(7L, 3L);
+    assertThat(first.nextCursor()).isNotNull();
+    verify(repository).searchByDeparture("BOM", "DEL", Instant.parse("2026-03-01T00:00:00Z"),
+        Instant.parse("2026-03-02T00:00:00Z"), 1, Limit.of(3));
+
+    when(repository.searchByDepartureAfter(anyString(), anyString(), any(), any(), anyInt(), any(), any(), any()))
+        .thenReturn(List.of(flight(9, T0.plusSeconds(900), 5100.0)));
+    FlightPage second = service.search(search, first.nextCursor(), 2);
+    assertThat(second.items()).extracting(FlightResponse::id).containsExactly(9L);
+    assertThat(second.nextCursor()).isNull();
+    verify(repository).searchByDepartureAfter(eq("BOM"), eq("DEL"), any(), any(), eq(1), eq(T0.plusSeconds(600)),
+        eq(3L), eq(Limit.of(3)));
+  }
+
+  @Test
+  void pages_by_price_keyset_and_rejects_foreign_cursors() {
+    FlightSearch byPrice = new FlightSearch("BOM", "DEL", LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 7), 2,
+        FlightSearch.Sort.parse("price"));
+    when(repository.searchByPrice(anyString(), anyString(), any(), any(), anyInt(), any()))
+        .thenReturn(List.of(flight(3, T0, 3900.5), flight(7, T0, 4500.0)));
+
+    String cursor = service.search(byPrice, null, 1).nextCursor();
+    service.search(byPrice, cursor, 1);
+    verify(repository).searchByPriceAfter(eq("BOM"), eq("DEL"), any(), eq(Instant.parse("2026-03-08T00:00:00Z")),
+        eq(2), eq(3900.5), eq(3L), eq(Limit.of(2)));
+
+    FlightSearch byDeparture = new FlightSearch("BOM", "DEL", LocalDate.of(2026, 3, 1), null, 1, FlightSearch.Sort.DEPARTURE);
+    assertThatThrownBy(() -> service.search(byDeparture, cursor, 1)).isInstanceOf(IllegalArgumentException.class)
+        .hasRootCauseMessage("Cursor sorted by PRICE, search by DEPARTURE");
+    assertThatThrownBy(() -> service.search(byDeparture, "bm90IGEgY3Vyc29y", 1)).isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Invalid cursor").hasCauseInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void validates_the_search() {
+    LocalDate day = LocalDate.of(2026, 3, 1);
+    assertThatThrownBy(() -> new FlightSearch("", "DEL", day, null, 1, null)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new FlightSearch("BOM", "DEL", day, day.minusDays(1), 1, null))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new FlightSearch("BOM", "DEL", day, day.plusDays(FlightSearch.MAX_RANGE_DAYS), 1, null))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> FlightSearch.Sort.parse("cheapest")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static FlightResponse flight(long id, Instant departure, double price) {
+    return new FlightResponse(id, "BOM", "DEL", departure, departure.plusSeconds(7200), 10, price);
+  }
+}
@@ -0,0 +1,69 @@
+package com.java.dospring;
+
+import dospring.security.heavyhitters.HeavyHitterSketch;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heavy-hitter sketch: the heaviest keys surface through a spray of one-off keys with counts never
+ * below the truth, and they leave the top-K once the window has slid past them.
+ */
+class HeavyHitterSketchTest {
+
+  @Test
+  void heavy_keys_surface_through_a_spray_of_one_off_keys() {
+    long now = System.nanoTime();
+    HeavyHitterSketch sketch = new HeavyHitterSketch(5, 4, 2048, Duration.ofMinutes(5), 5, now);
+
+    for (int i = 0; i < 200_000; i++) {
+      sketch.add("10.1." + (i >>> 8 & 0xff) + "." + (i & 0xff) + ":" + i, now);
+      if (i % 100 == 0) {
+        // 5 heavy keys: heavy-k is seen (k + 1) * 2000 times in all.
+        for (int k = 0; k < 5; k++) {
+          for (int n = 0; n <= k; n++) {
+            sketch.add("heavy-" + k, now);
+          }
+        }
+      }
+    }
+
+    List<HeavyHitterSketch.Entry> top = sketch.top(now);
+    assertThat(top).extracting(HeavyHitterSketch.Entry::key)
+        .containsExactly("heavy-4", "heavy-3", "heavy-2", "heavy-1", "heavy-0");
+    for (HeavyHitterSketch.Entry entry : top) {
+      int truth = (entry.key().charAt(6) - '0' + 1) * 2000;
+      assertThat(entry.count()).isBetween(truth, truth + 1000);
+    }
+  }
+
+  @Test
+  void keys_leave_the_top_once_the_window_slides_past_them() {
+    long start = System.nanoTime();
+    long slot = TimeUnit.SECONDS.toNanos(10);
+    HeavyHitterSketch sketch = new HeavyHitterSketch(3, 4, 1024, Duration.ofSeconds(30), 3, start);
+
+    for (int i = 0; i < 50; i++) {
+      sketch.add("old", start);
+    }
+    for (int i = 0; i < 10; i++) {
+      sketch.add("new", start + 2 * slot + 1);
+    }
+    assertThat(sketch.top(start + 2 * slot + 1)).extracting(HeavyHitterSketch.Entry::key)
+        .containsExactly("old", "new");
+
+    // The slot holding "old" expires; "new" is still in the window.
+    assertThat(sketch.top(start + 3 * slot)).containsExactly(new HeavyHitterSketch.Entry("new", 10));
+    assertThat(sketch.estimate("old")).isZero();
+
+    // Idle for much longer than the window: everything is gone, counting starts over.
+    long later = start + 100 * slot;
+    assertThat(sketch.top(later)).isEmpty();
+    sketch.add("new", later);
+    assertThat(sketch.estimate("new")).isEqualTo(1);
+  }
+}
@@ -0,0 +1,63 @@
+package com.java.dospring;
+
+import dospring.security.JwtUtils;
+import dospring.security.VerifiedToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Access-token verification: one parse yields the claims, bad tokens are refused, and a cached
+ * verification never outlives the token's {@code exp}.
+ */
+class JwtUtilsTest {
+
+  private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+
+  @Test
+  void verifies_claims_with_and_without_the_cache() {
+    for (boolean cached : new boolean[] {true, false}) {
+      JwtUtils jwt = new JwtUtils(SECRET, "dospring", 900, cached, 100, 30);
+      String token = jwt.generateAccessToken("jane", List.of("ROLE_ADMIN", "ROLE_USER"));
+
+      VerifiedToken verified = jwt.verifyAccessToken(token).orElseThrow();
+      assertThat(verified.subject()).isEqualTo("jane");
+      assertThat(verified.roles()).containsExactly("ROLE_ADMIN", "ROLE_USER");
+      assertThat(verified.type()).isEqualTo("access");
+      assertThat(verified.issuedAt()).isNotNull();
+      assertThat(jwt.verifyAccessToken(token)).contains(verified);
+    }
+  }
+
+  @Test
+  void refuses_tampered_foreign_and_empty_tokens() {
+    JwtUtils jwt = new JwtUtils(SECRET, "dospring", 900, true, 100, 30);
+    String token = jwt.generateAccessToken("jane", List.of("ROLE_USER"));
+    jwt.verifyAccessToken(token);
+
+    String[] parts = token.split("\\.");
+    char last = parts[2].charAt(parts[2].length() - 2);
+    String tampered = parts[0] + "." + parts[1] + "."
+        + parts[2].substring(0, parts[2].length() - 2) + (last == 'A' ? 'B' : 'A') + parts[2].charAt(parts[2].length() - 1);
+    String foreign = new JwtUtils(SECRET.replace('t', 'x'), "dospring", 900, true, 100, 30)
+        .generateAccessToken("jane", List.of("ROLE_ADMIN"));
+
+    assertThat(jwt.verifyAccessToken(tampered)).isEmpty();
+    assertThat(jwt.verifyAccessToken(foreign)).isEmpty();
+    assertThat(jwt.verifyAccessToken("")).isEmpty();
+    assertThat(jwt.verifyAccessToken(null)).isEmpty();
+    assertThat(jwt.verifyAccessToken("not.a.jwt")).isEmpty();
+  }
+
+  @Test
+  void cached_verification_ends_at_token_expiry() throws Exception {
+    JwtUtils jwt = new JwtUtils(SECRET, "dospring", 1, true, 100, 60);
+    String token = jwt.generateAccessToken("jane", List.of("ROLE_USER"));
+    assertThat(jwt.verifyAccessToken(token)).isPresent();
+
+    Thread.sleep(2100);
+    assertThat(jwt.verifyAccessToken(token)).isEmpty();
+  }
+}
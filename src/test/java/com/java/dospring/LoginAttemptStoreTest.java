@@ -0,0 +1,117 @@
+package com.java.dospring;
+
+import dospring.security.LocalLoginAttemptStore;
+import dospring.security.RedisLoginAttemptStore;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import org.junit.jupiter.api.Test;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Failed-login counters: local and Redis implementations count, reset and expire the same way; a
+ * login without a counted failure does not touch Redis, and a Redis outage falls back to local counts.
+ */
+class LoginAttemptStoreTest {
+
+  @Test
+  void local_counts_per_user_and_resets() {
+    LocalLoginAttemptStore store = new LocalLoginAttemptStore(Duration.ofMinutes(15), 1000);
+
+    assertThat(store.recordFailure(1L)).isEqualTo(1);
+    assertThat(store.recordFailure(1L)).isEqualTo(2);
+    assertThat(store.recordFailure(2L)).isEqualTo(1);
+
+    store.reset(1L);
+    assertThat(store.recordFailure(1L)).isEqualTo(1);
+  }
+
+  @Test
+  void redis_counts_and_expires_with_the_lock_window() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    RedisServer server = new RedisServer(port);
+    server.start();
+    RedisClient client = RedisClient.create("redis://localhost:" + port);
+    try (RedisLoginAttemptStore store = redisStore(client, Duration.ofMillis(300))) {
+
+      assertThat(store.recordFailure(7L)).isEqualTo(1);
+      assertThat(store.recordFailure(7L)).isEqualTo(2);
+      store.reset(7L);
+      assertThat(store.recordFailure(7L)).isEqualTo(1);
+
+      Thread.sleep(600);
+      assertThat(store.recordFailure(7L)).isEqualTo(1);
+    } finally {
+      client.shutdown();
+      server.stop();
+    }
+  }
+
+  @Test
+  void reset_skips_redis_when_this_instance_counted_nothing() throws Exception {
+    int port = freePort();
+    RedisServer server = new RedisServer(port);
+    server.start();
+    RedisClient client = RedisClient.create("redis://localhost:" + port);
+    try (StatefulRedisConnection<String, String> probe = client.connect();
+         RedisLoginAttemptStore store = redisStore(client, Duration.ofMinutes(15))) {
+      probe.sync().set("auth:fail:9", "3");
+
+      store.reset(9L);
+      assertThat(probe.sync().get("auth:fail:9")).isEqualTo("3");
+
+      assertThat(store.recordFailure(9L)).isEqualTo(4);
+      store.reset(9L);
+      assertThat(probe.sync().exists("auth:fail:9")).isZero();
+    } finally {
+      client.shutdown();
+      server.stop();
+    }
+  }
+
+  @Test
+  void redis_outage_counts_locally_and_opens_the_circuit() throws Exception {
+    int port = freePort();
+    RedisServer server = new RedisServer(port);
+    server.start();
+    RedisClient client = RedisClient.create("redis://localhost:" + port);
+    try (RedisLoginAttemptStore store = redisStore(client, Duration.ofMinutes(15))) {
+      assertThat(store.recordFailure(5L)).isEqualTo(1);
+
+      server.stop();
+      // Two failures (timeout or refused) open the circuit; counting goes on locally.
+      assertThat(store.recordFailure(5L)).isEqualTo(1);
+      assertThat(store.recordFailure(5L)).isEqualTo(2);
+
+      long start = System.nanoTime();
+      for (int i = 3; i <= 100; i++) {
+        assertThat(store.recordFailure(5L)).isEqualTo(i);
+      }
+      store.reset(5L);
+      // Circuit open: no call waits for the command timeout.
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+      assertThat(store.recordFailure(5L)).isEqualTo(1);
+    } finally {
+      client.shutdown();
+      server.stop();
+    }
+  }
+
+  private static RedisLoginAttemptStore redisStore(RedisClient client, Duration window) {
+    return new RedisLoginAttemptStore(client.connect(), window, new LocalLoginAttemptStore(window, 1000), 1000,
+        Duration.ofMillis(50), 2, Duration.ofMinutes(1));
+  }
+
+  private static int freePort() throws Exception {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.java.dospring;
+
+import dospring.security.PasswordHashingExecutor;
+import dospring.security.PasswordHashingOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bounded hashing executor: a saturated pool and full queue reject at once, a slow result times out,
+ * and both count as rejections; capacity, including queue slots of cancelled tasks, is usable again
+ * afterwards.
+ */
+class PasswordHashingExecutorTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final ExecutorService callers = Executors.newCachedThreadPool();
+  private PasswordHashingExecutor executor;
+
+  @AfterEach
+  void shutdown() {
+    callers.shutdownNow();
+    if (executor != null) {
+      executor.destroy();
+    }
+  }
+
+  @Test
+  void rejects_when_pool_and_queue_are_full() throws Exception {
+    executor = executor(1, 1, 5000);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    Future<String> running = callers.submit(() -> executor.execute(() -> {
+      started.countDown();
+      release.await();
+      return "first";
+    }));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    Future<String> queued = callers.submit(() -> executor.execute(() -> "second"));
+    awaitQueued(1);
+
+    assertThatThrownBy(() -> executor.execute(() -> "third"))
+        .isInstanceOf(PasswordHashingOverloadedException.class);
+    assertThat(registry.get("auth.hashing.rejected").counter().count()).isEqualTo(1.0);
+
+    release.countDown();
+    assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    assertThat(executor.execute(() -> "after")).isEqualTo("after");
+  }
+
+  @Test
+  void times_out_a_result_that_is_not_ready_within_max_wait() {
+    executor = executor(1, 4, 100);
+
+    assertThatThrownBy(() -> executor.execute(() -> {
+      Thread.sleep(5000);
+      return "late";
+    })).isInstanceOf(PasswordHashingOverloadedException.class);
+    assertThat(registry.get("auth.hashing.rejected").counter().count()).isEqualTo(1.0);
+    // The timed-out task was cancelled, so the single thread is free again.
+    assertThat(executor.execute(() -> "next")).isEqualTo("next");
+  }
+
+  @Test
+  void any_true_stops_at_first_match_and_propagates_saturation() throws Exception {
+    // Queue as large as the fan-out: a burst may be queued before an idle thread takes it.
+    executor = executor(2, 2, 5000);
+    for (int i = 0; i < 50; i++) {
+      // A short-circuited, cancelled task must not keep its queue slot from the next call.
+      assertThat(executor.anyTrue(List.of(() -> false, () -> true, () -> false))).isTrue();
+      assertThat(executor.anyTrue(List.of(() -> false, () -> false))).isFalse();
+    }
+    assertThat(executor.anyTrue(List.of())).isFalse();
+
+    CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < 2; i++) {
+      // One at a time, so each task reaches a thread before the next is queued.
+      CountDownLatch started = new CountDownLatch(1);
+      callers.submit(() -> executor.execute(() -> {
+        started.countDown();
+        release.await();
+        return true;
+      }));
+      assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+    callers.submit(() -> executor.execute(() -> true));
+    callers.submit(() -> executor.execute(() -> true));
+    awaitQueued(2);
+
+    assertThatThrownBy(() -> executor.anyTrue(List.of(() -> false)))
+        .isInstanceOf(PasswordHashingOverloadedException.class);
+    release.countDown();
+  }
+
+  private void awaitQueued(int size) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (registry.get("auth.hashing.queue.size").gauge().value() < size) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(5);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private PasswordHashingExecutor executor(int poolSize, int queueCapacity, long maxWaitMillis) {
+    ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+    when(meterRegistry.getIfAvailable(any())).thenReturn(registry);
+    return new PasswordHashingExecutor(meterRegistry, poolSize, queueCapacity, maxWaitMillis, 0);
+  }
+}
@@ -0,0 +1,194 @@
+package com.java.dospring;
+
+import dospring.security.ratelimit.LocalRateLimitBackend;
+import dospring.security.ratelimit.RateLimitDecision;
+import dospring.security.ratelimit.RateLimitProperties;
+import dospring.security.ratelimit.RateLimitRule;
+import dospring.security.ratelimit.RedisRateLimitBackend;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rate-limit backends: local buckets reject past capacity; Redis leases never let the cluster exceed
+ * the shared limit and spare most round trips, also when concurrent requests share a refill in flight;
+ * a Redis outage trips the circuit to local limits and
+ * recovery closes it again.
+ */
+class RateLimitBackendTest {
+
+  @Test
+  void local_rejects_past_capacity_with_wait_time() {
+    LocalRateLimitBackend backend = new LocalRateLimitBackend(1024);
+    RateLimitRule rule = new RateLimitRule("login", 3, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(backend.tryConsume("login:10.0.0.1", rule).allowed()).isTrue();
+    }
+    RateLimitDecision rejected = backend.tryConsume("login:10.0.0.1", rule);
+    assertThat(rejected.allowed()).isFalse();
+    assertThat(rejected.nanosToWait()).isPositive();
+    assertThat(backend.tryConsume("login:10.0.0.2", rule).allowed()).isTrue();
+  }
+
+  @Test
+  void redis_leases_share_one_cluster_wide_limit() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    RedisServer server = new RedisServer(port);
+    server.start();
+    RedisClient client = RedisClient.create("redis://localhost:" + port);
+    try (StatefulRedisConnection<byte[], byte[]> connection = client.connect(new ByteArrayCodec())) {
+      ProxyManager<byte[]> proxyManager = LettuceBasedProxyManager.builderFor(connection).build();
+      SimpleMeterRegistry registry = new SimpleMeterRegistry();
+      RateLimitRule rule = new RateLimitRule("api", 200, Duration.ofMinutes(1));
+      // Two nodes sharing the same Redis bucket.
+      RedisRateLimitBackend nodeA = new RedisRateLimitBackend(proxyManager, new LocalRateLimitBackend(1024), redisSettings(), 1024, registry);
+      RedisRateLimitBackend nodeB = new RedisRateLimitBackend(proxyManager, new LocalRateLimitBackend(1024), redisSettings(), 1024, registry);
+
+      int allowed = 0;
+      for (int i = 0; i < 300; i++) {
+        RedisRateLimitBackend node = i % 2 == 0 ? nodeA : nodeB;
+        if (node.tryConsume("api:10.0.0.1", rule).allowed()) {
+          allowed++;
+        }
+      }
+
+      assertThat(allowed).isEqualTo(200);
+      // 200 tokens in leases of 20, then one remembered rejection per node.
+      assertThat(registry.counter("rate_limit.redis.calls").count()).isLessThanOrEqualTo(14);
+    } finally {
+      client.shutdown();
+      server.stop();
+    }
+  }
+
+  @Test
+  void concurrent_requests_for_one_key_share_refills_without_exceeding_the_limit() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    RedisServer server = new RedisServer(port);
+    server.start();
+    RedisClient client = RedisClient.create("redis://localhost:" + port);
+    ExecutorService callers = Executors.newFixedThreadPool(16);
+    try (StatefulRedisConnection<byte[], byte[]> connection = client.connect(new ByteArrayCodec())) {
+      ProxyManager<byte[]> proxyManager = LettuceBasedProxyManager.builderFor(connection).build();
+      SimpleMeterRegistry registry = new SimpleMeterRegistry();
+      RateLimitRule rule = new RateLimitRule("api", 200, Duration.ofMinutes(1));
+      RedisRateLimitBackend backend = new RedisRateLimitBackend(proxyManager, new LocalRateLimitBackend(1024), redisSettings(), 1024, registry);
+
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t = 0; t < 16; t++) {
+        results.add(callers.submit(() -> {
+          start.await();
+          int allowed = 0;
+          for (int i = 0; i < 20; i++) {
+            if (backend.tryConsume("api:10.0.0.1", rule).allowed()) {
+              allowed++;
+            }
+          }
+          return allowed;
+        }));
+      }
+      start.countDown();
+      int allowed = 0;
+      for (Future<Integer> result : results) {
+        allowed += result.get(30, TimeUnit.SECONDS);
+      }
+
+      assertThat(allowed).isEqualTo(200);
+      assertThat(registry.counter("rate_limit.redis.fallback", "reason", "timeout").count()).isZero();
+      assertThat(registry.counter("rate_limit.redis.fallback", "reason", "error").count()).isZero();
+      // 200 tokens in leases of 20, then a remembered rejection: waiters do not call Redis themselves.
+      assertThat(registry.counter("rate_limit.redis.calls").count()).isLessThanOrEqualTo(12);
+    } finally {
+      callers.shutdownNow();
+      client.shutdown();
+      server.stop();
+    }
+  }
+
+  @Test
+  void redis_outage_opens_the_circuit_and_recovery_closes_it() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    RedisServer server = new RedisServer(port);
+    server.start();
+    RedisClient client = RedisClient.create("redis://localhost:" + port);
+    try (StatefulRedisConnection<byte[], byte[]> connection = client.connect(new ByteArrayCodec())) {
+      ProxyManager<byte[]> proxyManager = LettuceBasedProxyManager.builderFor(connection).build();
+      SimpleMeterRegistry registry = new SimpleMeterRegistry();
+      RateLimitProperties.Redis settings = redisSettings();
+      settings.setTimeout(Duration.ofMillis(100));
+      settings.setFailureThreshold(2);
+      settings.setOpenDuration(Duration.ofMillis(300));
+      RedisRateLimitBackend backend = new RedisRateLimitBackend(proxyManager, new LocalRateLimitBackend(1024), settings, 1024, registry);
+      RateLimitRule rule = new RateLimitRule("api", 100, Duration.ofMinutes(1));
+      // Warm up the client path with a generous deadline; the first exchange can exceed 100 ms.
+      new RedisRateLimitBackend(proxyManager, new LocalRateLimitBackend(16), redisSettings(), 16, new SimpleMeterRegistry())
+          .tryConsume("api:warmup", rule);
+
+      assertThat(backend.tryConsume("api:a", rule).allowed()).isTrue();
+      assertThat(circuit(registry)).isZero();
+
+      server.stop();
+      // Redis down: decided locally (still allowed), and two failures open the circuit.
+      assertThat(backend.tryConsume("api:b", rule).allowed()).isTrue();
+      assertThat(backend.tryConsume("api:c", rule).allowed()).isTrue();
+      assertThat(circuit(registry)).isEqualTo(2);
+
+      long start = System.nanoTime();
+      assertThat(backend.tryConsume("api:d", rule).allowed()).isTrue();
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(50));
+      assertThat(registry.counter("rate_limit.redis.fallback", "reason", "circuit_open").count()).isEqualTo(1);
+
+      server = new RedisServer(port);
+      server.start();
+      for (int i = 0; i < 50 && circuit(registry) != 0; i++) {
+        Thread.sleep(350);
+        backend.tryConsume("api:probe" + i, rule);
+      }
+      assertThat(circuit(registry)).isZero();
+    } finally {
+      client.shutdown();
+      server.stop();
+    }
+  }
+
+  private static RateLimitProperties.Redis redisSettings() {
+    RateLimitProperties.Redis settings = new RateLimitProperties.Redis();
+    settings.setLeaseTokens(20);
+    settings.setLeaseFraction(0.1);
+    settings.setLeaseTtl(Duration.ofMinutes(1));
+    settings.setTimeout(Duration.ofSeconds(2));
+    return settings;
+  }
+
+  private static double circuit(SimpleMeterRegistry registry) {
+    return registry.get("rate_limit.redis.circuit").gauge().value();
+  }
+}
@@ -0,0 +1,96 @@
+package com.java.dospring;
+
+import dospring.security.heavyhitters.HeavyHitters;
+import dospring.security.ratelimit.LocalRateLimitBackend;
+import dospring.security.ratelimit.RateLimitFilter;
+import dospring.security.ratelimit.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rate limit filter: per-rule outcome counters exist before the first request and count each
+ * decision; the policy's limit answers 429 with {@code Retry-After}; encoded, dot-segment or
+ * parameterized spellings of a route share its bucket.
+ */
+class RateLimitFilterTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void counters_are_registered_up_front_and_count_each_outcome() throws Exception {
+    RateLimitFilter filter = filter();
+    assertThat(count("allowed")).isZero();
+    assertThat(count("rejected")).isZero();
+
+    assertThat(post(filter, "/api/auth/login").getStatus()).isEqualTo(200);
+    MockHttpServletResponse rejected = post(filter, "/api/auth/login");
+    assertThat(rejected.getStatus()).isEqualTo(429);
+    assertThat(rejected.getHeader("Retry-After")).isNotBlank();
+
+    assertThat(count("allowed")).isEqualTo(1.0);
+    assertThat(count("rejected")).isEqualTo(1.0);
+  }
+
+  @Test
+  void encoded_and_dotted_paths_match_the_decoded_route() throws Exception {
+    RateLimitFilter filter = filter();
+    assertThat(post(filter, "/api/auth/login").getStatus()).isEqualTo(200);
+
+    for (String uri : List.of("/api/auth/%6cogin", "/api/x/../auth/login", "/api/./auth//login", "/api/auth/login;x=1")) {
+      assertThat(post(filter, uri).getStatus()).as(uri).isEqualTo(429);
+    }
+    MockHttpServletRequest underContext = request("/app/api/auth/%6Cogin");
+    underContext.setContextPath("/app");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(underContext, response, new MockFilterChain());
+    assertThat(response.getStatus()).isEqualTo(429);
+    assertThat(count("rejected")).isEqualTo(5.0);
+  }
+
+  private static MockHttpServletResponse post(RateLimitFilter filter, String uri) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request(uri), response, new MockFilterChain());
+    return response;
+  }
+
+  private static MockHttpServletRequest request(String uri) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+    request.setRemoteAddr("203.0.113.7");
+    return request;
+  }
+
+  private double count(String outcome) {
+    return registry.get("rate_limit.requests").tag("rule", "login").tag("outcome", outcome).counter().count();
+  }
+
+  @SuppressWarnings("unchecked")
+  private RateLimitFilter filter() {
+    RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+    limit.setCapacity(1);
+    limit.setPeriod(Duration.ofMinutes(1));
+    RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+    policy.setName("login");
+    policy.setPaths(List.of("/api/auth/login"));
+    policy.setMethods(List.of("POST"));
+    policy.setLimits(List.of(limit));
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setPolicies(List.of(policy));
+
+    ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+    when(meterRegistry.getIfAvailable(any())).thenReturn(registry);
+    return new RateLimitFilter(properties, new LocalRateLimitBackend(1024), mock(HeavyHitters.class), meterRegistry);
+  }
+}
@@ -0,0 +1,45 @@
+package com.java.dospring;
+
+import dospring.security.ratelimit.LocalRateLimitBackend;
+import dospring.security.ratelimit.RateLimitRule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress: a spray of distinct source addresses, several times the table size, against the in-memory
+ * limiter. The table keeps its fixed slot count however many keys are seen, and a brute-forcer hiding
+ * in the spray must stay limited.
+ */
+class RateLimitSprayTest {
+
+  private static final int MAX_ENTRIES = 65_536;
+  private static final int SPRAYED_KEYS = 8 * MAX_ENTRIES;
+
+  @Test
+  void a_spray_beyond_the_table_size_keeps_slots_fixed_and_the_heavy_key_limited() {
+    LocalRateLimitBackend backend = new LocalRateLimitBackend(MAX_ENTRIES);
+    RateLimitRule rule = new RateLimitRule("login", 5, Duration.ofMinutes(10));
+    backend.tryConsume("login:warmup", rule);
+    assertThat(backend.slots()).isEqualTo(MAX_ENTRIES);
+
+    int attackerAllowed = 0;
+    int attackerAttempts = 0;
+    for (int i = 0; i < SPRAYED_KEYS; i++) {
+      backend.tryConsume("login:" + (i >>> 24) + "." + ((i >>> 16) & 0xff) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff), rule);
+      if (i % 1_000 == 0) {
+        attackerAttempts++;
+        if (backend.tryConsume("login:203.0.113.7", rule).allowed()) {
+          attackerAllowed++;
+        }
+      }
+    }
+
+    assertThat(attackerAttempts).isEqualTo(525);
+    assertThat(attackerAllowed).isEqualTo(5);
+    // Eviction reuses the preallocated slots (24 bytes each) instead of adding entries per key.
+    assertThat(backend.slots()).isEqualTo(MAX_ENTRIES);
+  }
+}
@@ -0,0 +1,210 @@
+package com.java.dospring;
+
+import dospring.service.RefreshTokenStore;
+import dospring.service.StoredRefreshToken;
+import dospring.service.impl.RedisRefreshTokenStore;
+import io.lettuce.core.RedisClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Redis hot tier + write-behind, against an embedded Redis server.
+ */
+class RedisRefreshTokenStoreTest {
+
+  static RedisServer server;
+  static RedisClient client;
+
+  InMemoryStore durable;
+  RedisRefreshTokenStore store;
+
+  @BeforeAll
+  static void startRedis() throws IOException {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    server = new RedisServer(port);
+    server.start();
+    client = RedisClient.create("redis://localhost:" + port);
+  }
+
+  @AfterAll
+  static void stopRedis() throws IOException {
+    client.shutdown();
+    server.stop();
+  }
+
+  @BeforeEach
+  void setUp() {
+    try (var c = client.connect()) {
+      c.sync().flushall();
+    }
+    durable = new InMemoryStore();
+    store = new RedisRefreshTokenStore(client.connect(), durable, TransactionOperations.withoutTransaction(),
+        3600, 600, 100, 30_000);
+  }
+
+  @Test
+  void rotate_is_single_use_and_replay_is_rejected() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    StoredRefreshToken first = token("h1", 1L, "laptop", now);
+    store.save(first);
+
+    StoredRefreshToken found = store.findByHash("h1").orElseThrow();
+    assertThat(found.username()).isEqualTo("user1");
+    assertThat(found.deviceId()).isEqualTo("laptop");
+    assertThat(found.expiresAt()).isEqualTo(first.expiresAt());
+
+    assertThat(store.rotate(found, token("h2", 1L, "laptop", now), now)).isTrue();
+    assertThat(store.rotate(found, token("h3", 1L, "laptop", now), now)).isFalse();
+
+    assertThat(store.findByHash("h1").orElseThrow().isRevoked()).isTrue();
+    assertThat(store.findByHash("h2").orElseThrow().isRevoked()).isFalse();
+    assertThat(store.findByHash("h3")).isEmpty();
+  }
+
+  @Test
+  void write_behind_replays_operations_in_order() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    store.save(token("a", 1L, "phone", now));
+    store.save(token("b", 1L, "laptop", now));
+    store.rotate(store.findByHash("a").orElseThrow(), token("c", 1L, "phone", now), now);
+    store.revokeDevice(1L, "laptop", now);
+
+    assertThat(durable.tokens).isEmpty();
+    assertThat(store.flushWriteBehind()).isEqualTo(4);
+
+    assertThat(durable.tokens).containsOnlyKeys("a", "b", "c");
+    assertThat(durable.tokens.get("a").isRevoked()).isTrue();
+    assertThat(durable.tokens.get("b").isRevoked()).isTrue();
+    assertThat(durable.tokens.get("c").isRevoked()).isFalse();
+    assertThat(store.flushWriteBehind()).isZero();
+  }
+
+  @Test
+  void revoke_all_tombstones_every_live_token() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    store.save(token("x", 7L, "phone", now));
+    store.save(token("y", 7L, "laptop", now));
+    store.save(token("z", 8L, "laptop", now));
+
+    store.revokeAll(7L, now);
+
+    assertThat(store.findByHash("x").orElseThrow().isRevoked()).isTrue();
+    assertThat(store.findByHash("y").orElseThrow().isRevoked()).isTrue();
+    assertThat(store.findByHash("z").orElseThrow().isRevoked()).isFalse();
+  }
+
+  @Test
+  void revocations_update_the_user_set_through_declared_keys() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    store.save(token("p", 9L, "phone", now));
+    store.save(token("q", 9L, "laptop", now));
+    store.save(token("r", 9L, "laptop", now));
+
+    store.revoke("p", now);
+    store.revoke("unknown", now);
+    store.revokeDevice(9L, "laptop", now);
+
+    try (var c = client.connect()) {
+      assertThat(c.sync().smembers("rt:u:9")).isEmpty();
+    }
+    assertThat(store.findByHash("p").orElseThrow().isRevoked()).isTrue();
+    assertThat(store.findByHash("q").orElseThrow().isRevoked()).isTrue();
+
+    store.save(token("s", 9L, "phone", now));
+    store.revokeDevice(9L, "laptop", now);
+    assertThat(store.findByHash("s").orElseThrow().isRevoked()).isFalse();
+    store.revokeAll(9L, now);
+    assertThat(store.findByHash("s").orElseThrow().isRevoked()).isTrue();
+  }
+
+  @Test
+  void durable_tier_answers_misses_and_can_be_rotated_into_redis() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    durable.save(new StoredRefreshToken(42L, "legacy", 1L, "user1", null, null, null, now,
+        now.plusSeconds(3600), null));
+
+    StoredRefreshToken legacy = store.findByHash("legacy").orElseThrow();
+    assertThat(legacy.id()).isEqualTo(42L);
+
+    assertThat(store.rotate(legacy, token("fresh", 1L, null, now), now)).isTrue();
+    // tombstone wins over the (not yet updated) durable row
+    assertThat(store.findByHash("legacy").orElseThrow().isRevoked()).isTrue();
+    assertThat(store.rotate(legacy, token("again", 1L, null, now), now)).isFalse();
+  }
+
+  private static StoredRefreshToken token(String hash, Long userId, String deviceId, Instant now) {
+    return new StoredRefreshToken(null, hash, userId, "user" + userId, deviceId, "junit", "127.0.0.1",
+        now, now.plusSeconds(3600), null);
+  }
+
+  /** Stand-in for the JPA durable tier. */
+  static class InMemoryStore implements RefreshTokenStore {
+
+    final Map<String, StoredRefreshToken> tokens = new LinkedHashMap<>();
+
+    @Override
+    public Optional<StoredRefreshToken> findByHash(String tokenHash) {
+      return Optional.ofNullable(tokens.get(tokenHash));
+    }
+
+    @Override
+    public void save(StoredRefreshToken token) {
+      tokens.put(token.tokenHash(), token);
+    }
+
+    @Override
+    public boolean rotate(StoredRefreshToken current, StoredRefreshToken next, Instant now) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void revoke(String tokenHash, Instant now) {
+      tokens.computeIfPresent(tokenHash, (h, t) -> t.isRevoked() ? t : revoked(t, now));
+    }
+
+    @Override
+    public void revokeAll(Long userId, Instant now) {
+      for (String h : new ArrayList<>(tokens.keySet())) {
+        StoredRefreshToken t = tokens.get(h);
+        if (userId.equals(t.userId()) && !t.isRevoked()) {
+          tokens.put(h, revoked(t, now));
+        }
+      }
+    }
+
+    @Override
+    public void revokeDevice(Long userId, String deviceId, Instant now) {
+      List<String> hashes = new ArrayList<>(tokens.keySet());
+      for (String h : hashes) {
+        StoredRefreshToken t = tokens.get(h);
+        if (userId.equals(t.userId()) && deviceId.equals(t.deviceId()) && !t.isRevoked()) {
+          tokens.put(h, revoked(t, now));
+        }
+      }
+    }
+
+    private static StoredRefreshToken revoked(StoredRefreshToken t, Instant now) {
+      return new StoredRefreshToken(t.id(), t.tokenHash(), t.userId(), t.username(), t.deviceId(), t.userAgent(),
+          t.ipAddress(), t.issuedAt(), t.expiresAt(), now);
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package com.java.dospring;
+
+import dospring.crypto.CryptoKeyProvider;
+import dospring.crypto.EncryptedStringConverter;
+import dospring.crypto.ReencryptionJob;
+import dospring.retention.JobLease;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Re-encryption: the stale-value filter selects everything not under the primary key (bare {@code enc:}
+ * for version 1, {@code enc:vN:} otherwise, without confusing v2 with v20), a stale row is rewritten to
+ * the same plaintext under the primary key, and a row changed since it was read counts as a conflict.
+ */
+class ReencryptionJobTest {
+
+  private static final String V1 = key((byte) 1);
+
+  private final EncryptedStringConverter converter = new EncryptedStringConverter();
+  private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+  private final JobLease lease = mock(JobLease.class);
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @AfterEach
+  void disable() {
+    configure("", "", 0);
+  }
+
+  @Test
+  void stale_filter_under_version_1_selects_plaintext_and_versioned_values() {
+    configure(V1, "", 0);
+    String filter = usersFilter();
+
+    assertThat(filter).isEqualTo("email NOT LIKE 'enc:%' OR email LIKE 'enc:v%:%'");
+    assertThat(matches(filter, "jane.doe@example.com")).isTrue();
+    assertThat(matches(filter, "enc:v2:AAAA")).isTrue();
+    assertThat(matches(filter, "enc:AAAA")).isFalse();
+  }
+
+  @Test
+  void stale_filter_under_version_n_does_not_take_v20_for_v2() {
+    configure(V1, "2:" + key((byte) 2) + ", 20:" + key((byte) 20), 2);
+    String filter = usersFilter();
+
+    assertThat(filter).isEqualTo("email NOT LIKE 'enc:v2:%'");
+    assertThat(matches(filter, "enc:v20:AAAA")).isTrue();
+    assertThat(matches(filter, "enc:AAAA")).isTrue();
+    assertThat(matches(filter, "jane.doe@example.com")).isTrue();
+    assertThat(matches(filter, "enc:v2:AAAA")).isFalse();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void rewrites_a_stale_row_to_the_same_plaintext_under_the_primary_key() {
+    configure(V1, "", 0);
+    String stored = converter.convertToDatabaseColumn("jane.doe@example.com");
+    configure(V1, "2:" + key((byte) 2), 0);
+    when(jdbc.query(contains("FROM users"), any(RowMapper.class), any(), any()))
+        .thenReturn(List.<Object[]>of(new Object[] {42L, stored}));
+    when(jdbc.batchUpdate(anyString(), anyList())).thenReturn(new int[] {1});
+
+    job().run();
+
+    Object[] args = rewrite();
+    assertThat((String) args[0]).startsWith("enc:v2:");
+    assertThat(converter.convertToEntityAttribute((String) args[0])).isEqualTo("jane.doe@example.com");
+    assertThat(args[1]).isEqualTo(42L);
+    assertThat(rows("rewritten")).isEqualTo(1.0);
+    assertThat(rows("conflict")).isZero();
+    verify(lease).release("reencrypt");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void counts_a_row_changed_since_it_was_read_as_a_conflict() {
+    configure(V1, "", 0);
+    String stored = converter.convertToDatabaseColumn("jane.doe@example.com");
+    configure(V1, "2:" + key((byte) 2), 0);
+    when(jdbc.query(contains("FROM users"), any(RowMapper.class), any(), any()))
+        .thenReturn(List.<Object[]>of(new Object[] {42L, stored}));
+    // The application wrote the row in between: the conditional UPDATE matches nothing.
+    when(jdbc.batchUpdate(anyString(), anyList())).thenReturn(new int[] {0});
+
+    job().run();
+
+    // Only applies while the column still holds the value that was read.
+    assertThat(rewrite()[2]).isEqualTo(stored);
+    assertThat(rows("rewritten")).isZero();
+    assertThat(rows("conflict")).isEqualTo(1.0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private ReencryptionJob job() {
+    when(lease.tryAcquire(anyString(), any(Long.class))).thenReturn(true);
+    ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+    when(provider.getIfAvailable(any())).thenReturn(registry);
+    return new ReencryptionJob(jdbc, lease, provider, 60_000, 200, 100_000);
+  }
+
+  /** Runs the job with no rows to find and returns the stale-value filter of {@code users.email}. */
+  @SuppressWarnings("unchecked")
+  private String usersFilter() {
+    job().run();
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    verify(jdbc, times(3)).query(sql.capture(), any(RowMapper.class), eq(0L), eq(200));
+    String select = sql.getAllValues().stream().filter(s -> s.contains("FROM users")).findFirst().orElseThrow();
+    Matcher m = Pattern.compile("AND \\((.*)\\)\\s*ORDER BY", Pattern.DOTALL).matcher(select);
+    assertThat(m.find()).isTrue();
+    return m.group(1);
+  }
+
+  /** The single row of the {@code users.email} rewrite batch: new value, id, value read. */
+  @SuppressWarnings("unchecked")
+  private Object[] rewrite() {
+    ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+    verify(jdbc).batchUpdate(eq("UPDATE users SET email = ? WHERE id = ? AND email = ?"), batch.capture());
+    assertThat(batch.getValue()).hasSize(1);
+    return batch.getValue().get(0);
+  }
+
+  private double rows(String outcome) {
+    return registry.get("crypto.reencrypt.rows")
+        .tag("table", "users").tag("column", "email").tag("outcome", outcome)
+        .counter().count();
+  }
+
+  /** Evaluates a filter of {@code col [NOT] LIKE '...'} terms joined by OR against one value. */
+  private static boolean matches(String filter, String value) {
+    assertThat(filter).doesNotContain(" AND ");
+    Matcher term = Pattern.compile("(NOT )?LIKE '([^']*)'").matcher(filter);
+    boolean any = false;
+    while (term.find()) {
+      String regex = String.join(".*", Arrays.stream(term.group(2).split("%", -1)).map(Pattern::quote).toList());
+      any |= value.matches(regex) != (term.group(1) != null);
+    }
+    return any;
+  }
+
+  private static String key(byte fill) {
+    byte[] raw = new byte[32];
+    Arrays.fill(raw, fill);
+    return Base64.getEncoder().encodeToString(raw);
+  }
+
+  private static void configure(String keyBase64, String keys, int primaryKeyVersion) {
+    CryptoKeyProvider provider = new CryptoKeyProvider();
+    ReflectionTestUtils.setField(provider, "keyBase64", keyBase64);
+    ReflectionTestUtils.setField(provider, "keys", keys);
+    ReflectionTestUtils.setField(provider, "primaryKeyVersion", primaryKeyVersion);
+    ReflectionTestUtils.setField(provider, "blindIndexKeyBase64", keys.isBlank() ? "" : key((byte) 8));
+    provider.init();
+  }
+}
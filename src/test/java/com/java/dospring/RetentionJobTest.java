@@ -0,0 +1,91 @@
+package com.java.dospring;
+
+import dospring.retention.JobLease;
+import dospring.retention.RetentionJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Retention purge: token chunks continue past a short (SKIP LOCKED) chunk until one deletes nothing,
+ * resume after the last deleted row, stay within the chunk budget, and only run under the lease.
+ */
+class RetentionJobTest {
+
+  private static final Timestamp T1 = Timestamp.from(Instant.parse("2026-01-01T00:00:00Z"));
+  private static final Timestamp T2 = Timestamp.from(Instant.parse("2026-01-02T00:00:00Z"));
+
+  private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+  private final JobLease lease = mock(JobLease.class);
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void purges_until_a_chunk_deletes_nothing() {
+    when(lease.tryAcquire(anyString(), any(Long.class))).thenReturn(true);
+    when(jdbc.query(contains("expires_at"), any(RowMapper.class), any(), any(), any(), any()))
+        .thenReturn(List.<Object[]>of(row(T2, 5L), row(T1, 9L)), List.<Object[]>of(row(T2, 7L)), List.of());
+
+    job(3, 100).run();
+
+    verify(jdbc, times(3)).query(contains("expires_at"), any(RowMapper.class), any(), any(), any(), any());
+    verify(jdbc).query(contains("expires_at"), any(RowMapper.class), any(), eq(T2), eq(5L), eq(3));
+    verify(jdbc).query(contains("expires_at"), any(RowMapper.class), any(), eq(T2), eq(7L), eq(3));
+    assertThat(registry.get("retention.deleted").tag("reason", "expired").counter().count()).isEqualTo(3.0);
+    verify(lease).release("retention");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void stops_at_the_chunk_budget() {
+    when(lease.tryAcquire(anyString(), any(Long.class))).thenReturn(true);
+    when(jdbc.query(contains("expires_at"), any(RowMapper.class), any(), any(), any(), any()))
+        .thenReturn(List.<Object[]>of(row(T1, 1L)), List.<Object[]>of(row(T1, 2L)), List.<Object[]>of(row(T1, 3L)));
+
+    job(3, 2).run();
+
+    verify(jdbc, times(2)).query(contains("expires_at"), any(RowMapper.class), any(), any(), any(), any());
+    verify(jdbc, never()).query(contains("revoked_at"), any(RowMapper.class), any(), any(), any(), any());
+    assertThat(registry.get("retention.chunks").counter().count()).isEqualTo(2.0);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void skips_the_run_without_the_lease() {
+    when(lease.tryAcquire(anyString(), any(Long.class))).thenReturn(false);
+
+    job(3, 100).run();
+
+    verify(jdbc, never()).query(anyString(), any(RowMapper.class), any(), any(), any(), any());
+    verify(lease, never()).release(anyString());
+  }
+
+  @SuppressWarnings("unchecked")
+  private RetentionJob job(int chunkSize, int maxChunksPerRun) {
+    ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+    when(meterRegistry.getIfAvailable(any())).thenReturn(registry);
+    return new RetentionJob(jdbc, lease, meterRegistry, 60_000, chunkSize, 500, maxChunksPerRun, 0, 86_400, 5);
+  }
+
+  private static Object[] row(Timestamp at, long id) {
+    return new Object[] {at, id};
+  }
+}
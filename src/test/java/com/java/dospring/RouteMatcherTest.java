@@ -0,0 +1,94 @@
+package com.java.dospring;
+
+import dospring.security.ratelimit.RateLimitKey;
+import dospring.security.ratelimit.RateLimitProperties;
+import dospring.security.ratelimit.RateLimitRule;
+import dospring.security.ratelimit.RouteMatcher;
+import dospring.security.ratelimit.RouteMatcher.Route;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compiled route matcher: precedence (literal > * > **), methods, context path, and configuration errors.
+ */
+class RouteMatcherTest {
+
+  private static RateLimitRule rule(String name) {
+    return new RateLimitRule(name, 10, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void most_specific_route_and_first_matching_method_win() {
+    RouteMatcher<RateLimitRule> matcher = RouteMatcher.compile(List.<Route<RateLimitRule>>of(
+        new Route<>("/api/bookings/**", List.of("POST", "DELETE"), rule("booking-write")),
+        new Route<>("/api/bookings/**", List.of(), rule("booking-read")),
+        new Route<>("/api/bookings/*/pay", List.of("post"), rule("booking-pay")),
+        new Route<>("/api/bookings/export", List.of("GET"), rule("booking-export")),
+        new Route<>("/api/auth/login", List.of("POST"), rule("login"))));
+
+    assertThat(matcher.match("POST", "/api/auth/login", 0).name()).isEqualTo("login");
+    assertThat(matcher.match("GET", "/api/auth/login", 0)).isNull();
+    assertThat(matcher.match("POST", "/api/auth/login/extra", 0)).isNull();
+    assertThat(matcher.match("POST", "/api/auth", 0)).isNull();
+
+    assertThat(matcher.match("GET", "/api/bookings", 0).name()).isEqualTo("booking-read");
+    assertThat(matcher.match("POST", "/api/bookings/", 0).name()).isEqualTo("booking-write");
+    assertThat(matcher.match("GET", "/api/bookings/42", 0).name()).isEqualTo("booking-read");
+    assertThat(matcher.match("POST", "/api/bookings/42/pay", 0).name()).isEqualTo("booking-pay");
+    assertThat(matcher.match("DELETE", "/api/bookings/42/pay", 0).name()).isEqualTo("booking-write");
+    assertThat(matcher.match("GET", "/api/bookings/export", 0).name()).isEqualTo("booking-export");
+    // Literal 'export' has no POST route, so the '**' route applies.
+    assertThat(matcher.match("POST", "/api/bookings/export", 0).name()).isEqualTo("booking-write");
+
+    assertThat(matcher.match("POST", "/ctx/api/auth/login", 4).name()).isEqualTo("login");
+    assertThat(matcher.match("GET", "/api/orders", 0)).isNull();
+  }
+
+  @Test
+  void hundreds_of_routes_resolve_to_their_own_rule() {
+    List<Route<RateLimitRule>> routes = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      routes.add(new Route<>("/api/svc" + i + "/items/*", List.of("GET"), rule("svc" + i)));
+    }
+    RouteMatcher<RateLimitRule> matcher = RouteMatcher.compile(routes);
+
+    for (int i = 0; i < 500; i++) {
+      assertThat(matcher.match("GET", "/api/svc" + i + "/items/7", 0).name()).isEqualTo("svc" + i);
+    }
+    assertThat(matcher.match("GET", "/api/svc500/items/7", 0)).isNull();
+  }
+
+  @Test
+  void properties_compile_policies_and_reject_invalid_ones() {
+    RateLimitProperties properties = new RateLimitProperties();
+    RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+    policy.setName("orders");
+    policy.setPaths(List.of("/api/orders/**"));
+    policy.setKey(RateLimitKey.SUBJECT);
+    RateLimitProperties.Limit perMinute = new RateLimitProperties.Limit();
+    perMinute.setCapacity(30);
+    perMinute.setPeriod(Duration.ofMinutes(1));
+    RateLimitProperties.Limit perHour = new RateLimitProperties.Limit();
+    perHour.setCapacity(300);
+    perHour.setPeriod(Duration.ofHours(1));
+    policy.setLimits(List.of(perMinute, perHour));
+    properties.setPolicies(List.of(policy));
+
+    RateLimitRule rule = properties.compile().match("PUT", "/api/orders/paid", 0);
+    assertThat(rule.key()).isEqualTo(RateLimitKey.SUBJECT);
+    assertThat(rule.limits()).hasSize(2);
+    assertThat(rule.minCapacity()).isEqualTo(30);
+
+    policy.setPaths(List.of("/api/**/orders"));
+    assertThatThrownBy(properties::compile).isInstanceOf(IllegalArgumentException.class);
+    policy.setPaths(List.of("/api/orders"));
+    policy.setMethods(List.of("FETCH"));
+    assertThatThrownBy(properties::compile).isInstanceOf(IllegalArgumentException.class);
+  }
+}
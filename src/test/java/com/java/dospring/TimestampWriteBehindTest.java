@@ -0,0 +1,55 @@
+package com.java.dospring;
+
+import dospring.service.impl.TimestampWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Write-behind coalescing: one row per id with the latest value, failed batches retried.
+ */
+class TimestampWriteBehindTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void keeps_latest_timestamp_per_id_and_retries_failed_batches() {
+    JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    Instant t0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    try (TimestampWriteBehind writeBehind = new TimestampWriteBehind("test", "UPDATE t SET c = ? WHERE id = ?",
+        jdbc, new SimpleMeterRegistry(), 100, 60_000)) {
+
+      writeBehind.record(1L, t0.plusSeconds(5));
+      writeBehind.record(1L, t0);
+      writeBehind.record(2L, t0);
+
+      when(jdbc.batchUpdate(anyString(), anyList())).thenThrow(new IllegalStateException("db down"));
+      assertThatThrownBy(writeBehind::flush).isInstanceOf(IllegalStateException.class);
+
+      reset(jdbc);
+      assertThat(writeBehind.flush()).isEqualTo(2);
+
+      ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+      verify(jdbc).batchUpdate(anyString(), rows.capture());
+      assertThat(rows.getValue())
+          .anySatisfy(row -> assertThat(row).containsExactly(Timestamp.from(t0.plusSeconds(5)), 1L,
+              Timestamp.from(t0.plusSeconds(5))))
+          .anySatisfy(row -> assertThat(row[1]).isEqualTo(2L));
+      assertThat(writeBehind.flush()).isZero();
+    }
+  }
+}